@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Encodes many barcodes at once, on a caller-supplied {@link ExecutorService}, with
+ * {@link MultiFormatWriter}. Contents may come from an {@link Iterator} of any length: only a few
+ * of them are encoded ahead of the one being handed back, and barcodes are handed back in the
+ * order of their contents, on the calling thread.</p>
+ *
+ * <p>Writers keep no state between barcodes, and the Reed-Solomon generators they need are shared
+ * between threads, so the encoding of one barcode costs the same on any thread. The executor is not
+ * shut down by this class. An instance may be used from several threads at once.</p>
+ *
+ * @see MultiFormatWriter
+ */
+public final class BatchWriter {
+
+  /**
+   * Receives barcodes from {@link #encode(Iterator, BarcodeFormat, int, int, Map, Callback)}.
+   */
+  public interface Callback {
+
+    /**
+     * @param index index of the contents in the order they were given, from 0
+     * @param contents the contents encoded
+     * @param matrix the barcode
+     */
+    void encoded(int index, String contents, BitMatrix matrix);
+
+  }
+
+  private final ExecutorService executor;
+  private final int threads;
+
+  /**
+   * @param executor executor on which barcodes are encoded; not shut down by this class
+   * @param threads number of barcodes to encode at the same time
+   */
+  public BatchWriter(ExecutorService executor, int threads) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor must be non-null.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive.");
+    }
+    this.executor = executor;
+    this.threads = threads;
+  }
+
+  /**
+   * Encodes all of the given contents, in the same way.
+   *
+   * @param contents the contents to encode, one barcode each
+   * @param format the barcode format to generate
+   * @param width the preferred width in pixels
+   * @param height the preferred height in pixels
+   * @param hints additional parameters to supply to the encoder
+   * @return barcodes in the order of their contents
+   * @throws WriterException if any contents couldn't be encoded
+   */
+  public List<BitMatrix> encode(Collection<String> contents,
+                                BarcodeFormat format,
+                                int width,
+                                int height,
+                                Map<EncodeHintType,?> hints) throws WriterException {
+    final List<BitMatrix> matrices = new ArrayList<>(contents.size());
+    encode(contents.iterator(), format, width, height, hints, new Callback() {
+      @Override
+      public void encoded(int index, String contents, BitMatrix matrix) {
+        matrices.add(matrix);
+      }
+    });
+    return matrices;
+  }
+
+  /**
+   * Encodes contents as they are read from an iterator, in the same way. The callback is called
+   * for each barcode, in order, from the calling thread. If any contents can't be encoded, or the
+   * callback throws, no more contents are read, and the exception is thrown from this method.
+   *
+   * @param contents the contents to encode, one barcode each
+   * @param format the barcode format to generate
+   * @param width the preferred width in pixels
+   * @param height the preferred height in pixels
+   * @param hints additional parameters to supply to the encoder
+   * @param callback receives each barcode
+   * @throws WriterException if any contents couldn't be encoded, or the calling thread was interrupted
+   */
+  public void encode(Iterator<String> contents,
+                     BarcodeFormat format,
+                     int width,
+                     int height,
+                     Map<EncodeHintType,?> hints,
+                     Callback callback) throws WriterException {
+    // Enough barcodes in flight to keep every thread busy while the callback runs
+    int maxPending = 2 * threads;
+    Queue<Future<BitMatrix>> pending = new ArrayDeque<>(maxPending);
+    Queue<String> pendingContents = new ArrayDeque<>(maxPending);
+    int index = 0;
+    try {
+      while (contents.hasNext() || !pending.isEmpty()) {
+        while (pending.size() < maxPending && contents.hasNext()) {
+          String next = contents.next();
+          pending.add(executor.submit(new EncodeTask(next, format, width, height, hints)));
+          pendingContents.add(next);
+        }
+        BitMatrix matrix = getMatrix(pending.remove());
+        callback.encoded(index++, pendingContents.remove(), matrix);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new WriterException(ie);
+    } finally {
+      for (Future<BitMatrix> future : pending) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private static BitMatrix getMatrix(Future<BitMatrix> future) throws InterruptedException, WriterException {
+    try {
+      return future.get();
+    } catch (ExecutionException ee) {
+      Throwable cause = ee.getCause();
+      if (cause instanceof WriterException) {
+        throw (WriterException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new WriterException(cause);
+    }
+  }
+
+  private static final class EncodeTask implements Callable<BitMatrix> {
+
+    private final String contents;
+    private final BarcodeFormat format;
+    private final int width;
+    private final int height;
+    private final Map<EncodeHintType,?> hints;
+
+    EncodeTask(String contents, BarcodeFormat format, int width, int height, Map<EncodeHintType,?> hints) {
+      this.contents = contents;
+      this.format = format;
+      this.width = width;
+      this.height = height;
+      this.hints = hints;
+    }
+
+    @Override
+    public BitMatrix call() throws WriterException {
+      return new MultiFormatWriter().encode(contents, format, width, height, hints);
+    }
+
+  }
+
+}
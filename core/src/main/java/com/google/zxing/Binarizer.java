@@ -66,6 +66,30 @@ public abstract class Binarizer {
    */
   public abstract BitMatrix getBlackMatrix() throws NotFoundException;
 
+  /**
+   * @return Whether this subclass can convert part of the image at a time.
+   */
+  public boolean isRegionSupported() {
+    return false;
+  }
+
+  /**
+   * Converts only the part of the image which a caller needs to look at. The same matrix is
+   * returned each time, converted further as other regions are asked for; bits outside of the
+   * regions asked for so far may not have been converted yet. Only callable if
+   * isRegionSupported() is true.
+   *
+   * @param left The left coordinate, which must be in [0,getWidth())
+   * @param top The top coordinate, which must be in [0,getHeight())
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return The 2D array of bits for the image, converted at least within the region.
+   * @throws NotFoundException if image can't be binarized to make a matrix
+   */
+  public BitMatrix getBlackMatrix(int left, int top, int width, int height) throws NotFoundException {
+    throw new UnsupportedOperationException("This binarizer does not support converting a region.");
+  }
+
   /**
    * Creates a new object with the same type as this Binarizer implementation, but with pristine
    * state. This is needed because Binarizer implementations may be stateful, e.g. keeping a cache
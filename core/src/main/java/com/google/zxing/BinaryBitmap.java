@@ -37,6 +37,13 @@ public final class BinaryBitmap {
     this.binarizer = binarizer;
   }
 
+  /**
+   * @return the binarizer, and through it the luminance data, this bitmap was made from
+   */
+  Binarizer getBinarizer() {
+    return binarizer;
+  }
+
   /**
    * @return The width of the bitmap.
    */
@@ -87,6 +94,33 @@ public final class BinaryBitmap {
     return matrix;
   }
 
+  /**
+   * @return Whether this bitmap can binarize part of the image at a time.
+   */
+  public boolean isRegionSupported() {
+    return binarizer.isRegionSupported();
+  }
+
+  /**
+   * Like {@link #getBlackMatrix()}, but only promises that the bits within a region have been
+   * converted, which saves work if the binarizer can convert part of the image at a time, and only
+   * that region will be looked at. A detector which looks further should ask again for the region
+   * it looks at next; the same matrix is returned each time.
+   *
+   * @param left The left coordinate, which must be in [0,getWidth())
+   * @param top The top coordinate, which must be in [0,getHeight())
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return The 2D array of bits for the image, converted at least within the region.
+   * @throws NotFoundException if image can't be binarized to make a matrix
+   */
+  public BitMatrix getBlackMatrix(int left, int top, int width, int height) throws NotFoundException {
+    if (matrix == null && binarizer.isRegionSupported()) {
+      return binarizer.getBlackMatrix(left, top, width, height);
+    }
+    return getBlackMatrix();
+  }
+
   /**
    * @return Whether this bitmap can be cropped.
    */
@@ -109,6 +143,17 @@ public final class BinaryBitmap {
     return new BinaryBitmap(binarizer.createBinarizer(newSource));
   }
 
+  /**
+   * Returns a new object over the same image data, with a binarizer of its own. Binarizers keep
+   * per-instance buffers and are not thread-safe, so each thread reading rows of one image should
+   * work on its own copy.
+   *
+   * @return A copy of this object sharing its luminance data.
+   */
+  public BinaryBitmap copy() {
+    return new BinaryBitmap(binarizer.createBinarizer(binarizer.getLuminanceSource()));
+  }
+
   /**
    * @return Whether this bitmap supports counter-clockwise rotation.
    */
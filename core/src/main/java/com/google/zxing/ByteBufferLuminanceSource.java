@@ -0,0 +1,270 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This object extends LuminanceSource around 8-bit luminance data in a {@link ByteBuffer}, such as
+ * a direct buffer filled by a native camera library, or a memory-mapped file. Like
+ * {@link PlanarYUVLuminanceSource}, it works for any format where the Y channel is planar and
+ * appears first.
+ *
+ * <p>The luminance of pixel (x, y) is at index {@code position + y * rowStride + x} of the
+ * buffer, where position is the buffer's position when this is created; rows may be padded.
+ * Later changes to the buffer's position and limit don't affect this source, but changes to its
+ * content do.</p>
+ *
+ * <p>Cropping and rotating by quarter turns return views onto the same buffer without copying it,
+ * though rotating by 45 degrees resamples into a new buffer. Otherwise data is only
+ * copied onto the heap a row at a time by {@link #getRow(int, byte[])}, or all at once by
+ * {@link #getMatrix()}. Binarizers which read rows, like
+ * {@link com.google.zxing.common.IntegralImageBinarizer}, never need the whole frame on the
+ * heap.</p>
+ */
+public final class ByteBufferLuminanceSource extends LuminanceSource {
+
+  private final ByteBuffer buffer;
+  private final int rowStride;
+  // Index in buffer of the top-left pixel of the region this source covers, before rotation
+  private final int regionOffset;
+  private final int regionWidth;
+  private final int regionHeight;
+  // Number of quarter turns counterclockwise, from 0 to 3, by which the region is rotated
+  private final int turns;
+
+  public ByteBufferLuminanceSource(ByteBuffer buffer, int dataWidth, int dataHeight) {
+    this(buffer, dataWidth, dataWidth, dataHeight, 0, 0, dataWidth, dataHeight);
+  }
+
+  /**
+   * @param buffer luminance data, starting at the buffer's current position
+   * @param rowStride distance in bytes from the start of one row to the start of the next
+   * @param dataWidth width of the image data
+   * @param dataHeight height of the image data
+   * @param left left edge of the region of the image data to use
+   * @param top top edge of the region of the image data to use
+   * @param width width of the region
+   * @param height height of the region
+   */
+  public ByteBufferLuminanceSource(ByteBuffer buffer,
+                                   int rowStride,
+                                   int dataWidth,
+                                   int dataHeight,
+                                   int left,
+                                   int top,
+                                   int width,
+                                   int height) {
+    super(width, height);
+
+    if (rowStride < dataWidth) {
+      throw new IllegalArgumentException("Row stride is less than the width of the image data.");
+    }
+    if (left < 0 || top < 0 || left + width > dataWidth || top + height > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    if ((long) (dataHeight - 1) * rowStride + dataWidth > buffer.remaining()) {
+      throw new IllegalArgumentException("Buffer is too small for the image data.");
+    }
+
+    this.buffer = buffer.duplicate();
+    this.rowStride = rowStride;
+    this.regionOffset = buffer.position() + top * rowStride + left;
+    this.regionWidth = width;
+    this.regionHeight = height;
+    this.turns = 0;
+  }
+
+  private ByteBufferLuminanceSource(ByteBuffer buffer, int rowStride, int regionOffset,
+                                    int regionWidth, int regionHeight, int turns) {
+    super((turns & 1) == 0 ? regionWidth : regionHeight, (turns & 1) == 0 ? regionHeight : regionWidth);
+    this.buffer = buffer;
+    this.rowStride = rowStride;
+    this.regionOffset = regionOffset;
+    this.regionWidth = regionWidth;
+    this.regionHeight = regionHeight;
+    this.turns = turns;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    switch (turns) {
+      case 0:
+        readRegionRow(y, row, 0);
+        break;
+      case 2:
+        readRegionRow(regionHeight - 1 - y, row, 0);
+        reverse(row, 0, width);
+        break;
+      default:
+        readRegionColumn(y, row, 0);
+        break;
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    byte[] matrix = new byte[width * height];
+    if ((turns & 1) == 0) {
+      for (int y = 0; y < height; y++) {
+        int outputOffset = y * width;
+        if (turns == 0) {
+          readRegionRow(y, matrix, outputOffset);
+        } else {
+          readRegionRow(regionHeight - 1 - y, matrix, outputOffset);
+          reverse(matrix, outputOffset, width);
+        }
+      }
+    } else {
+      for (int y = 0; y < height; y++) {
+        readRegionColumn(y, matrix, y * width);
+      }
+    }
+    return matrix;
+  }
+
+  /**
+   * Reads row y of a view rotated by one or three quarter turns, which is a column of the region.
+   */
+  private void readRegionColumn(int y, byte[] row, int offset) {
+    int width = getWidth();
+    if (turns == 1) {
+      // From the right of the region, read downwards
+      for (int x = 0, i = regionOffset + regionWidth - 1 - y; x < width; x++, i += rowStride) {
+        row[offset + x] = buffer.get(i);
+      }
+    } else {
+      // From the left of the region, read upwards
+      for (int x = 0, i = regionOffset + (regionHeight - 1) * rowStride + y; x < width; x++, i -= rowStride) {
+        row[offset + x] = buffer.get(i);
+      }
+    }
+  }
+
+  /**
+   * Copies one row of the unrotated region in bulk.
+   */
+  private void readRegionRow(int y, byte[] row, int offset) {
+    // A duplicate has its own position, so several threads may read rows at once
+    ByteBuffer view = buffer.duplicate();
+    view.position(regionOffset + y * rowStride);
+    view.get(row, offset, regionWidth);
+  }
+
+  private static void reverse(byte[] values, int offset, int length) {
+    for (int i = offset, j = offset + length - 1; i < j; i++, j--) {
+      byte temp = values[i];
+      values[i] = values[j];
+      values[j] = temp;
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    // Find the corner of the crop rectangle which is top-left in the unrotated region
+    int regionLeft;
+    int regionTop;
+    switch (turns) {
+      case 0:
+        regionLeft = left;
+        regionTop = top;
+        break;
+      case 1:
+        regionLeft = regionWidth - (top + height);
+        regionTop = left;
+        break;
+      case 2:
+        regionLeft = regionWidth - (left + width);
+        regionTop = regionHeight - (top + height);
+        break;
+      default:
+        regionLeft = top;
+        regionTop = regionHeight - (left + width);
+        break;
+    }
+    boolean sideways = (turns & 1) != 0;
+    int newRegionWidth = sideways ? height : width;
+    int newRegionHeight = sideways ? width : height;
+    if (regionLeft < 0 || regionTop < 0 ||
+        regionLeft + newRegionWidth > regionWidth || regionTop + newRegionHeight > regionHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    return new ByteBufferLuminanceSource(buffer,
+                                         rowStride,
+                                         regionOffset + regionTop * rowStride + regionLeft,
+                                         newRegionWidth,
+                                         newRegionHeight,
+                                         turns);
+  }
+
+  @Override
+  public boolean isRotateSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource rotateCounterClockwise() {
+    return new ByteBufferLuminanceSource(buffer, rowStride, regionOffset, regionWidth, regionHeight, (turns + 1) & 0x03);
+  }
+
+  /**
+   * Unlike the other operations, this resamples the view into a new square buffer on the heap, as
+   * wide as the longer side of this view and centered on it. Corners which come from outside this
+   * view are black, as with {@code BufferedImageLuminanceSource}.
+   */
+  @Override
+  public LuminanceSource rotateCounterClockwise45() {
+    int width = getWidth();
+    int height = getHeight();
+    int dimension = Math.max(width, height);
+    byte[] matrix = getMatrix();
+    byte[] rotated = new byte[dimension * dimension];
+    float centerX = (width - 1) / 2.0f;
+    float centerY = (height - 1) / 2.0f;
+    float halfDimension = (dimension - 1) / 2.0f;
+    float cos45 = (float) Math.sqrt(0.5);
+    for (int y = 0; y < dimension; y++) {
+      float dy = y - halfDimension;
+      for (int x = 0; x < dimension; x++) {
+        float dx = x - halfDimension;
+        // Turn back clockwise to find the pixel which lands here
+        int sourceX = Math.round(centerX + (dx - dy) * cos45);
+        int sourceY = Math.round(centerY + (dx + dy) * cos45);
+        if (sourceX >= 0 && sourceX < width && sourceY >= 0 && sourceY < height) {
+          rotated[y * dimension + x] = matrix[sourceY * width + sourceX];
+        }
+      }
+    }
+    return new ByteBufferLuminanceSource(ByteBuffer.wrap(rotated), dimension, dimension);
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A time limit for decoding, which can also be cancelled early from another thread. Pass one
+ * with {@link DecodeHintType#DEADLINE}. Readers check it between rows, scans and attempts, and
+ * once it has passed, throw {@link DeadlineExceededException} instead of carrying on.</p>
+ *
+ * <p>Checks are cooperative, so a decode may overrun by as long as the longest step between two
+ * checks, such as decoding one row, or error-correcting one symbol.</p>
+ *
+ * @see DeadlineExceededException
+ */
+public final class Deadline {
+
+  private static final Deadline NONE = new Deadline(Long.MAX_VALUE, false, null);
+
+  private final long deadlineNanos;
+  private final boolean bounded;
+  private final Deadline parent;
+  private volatile boolean cancelled;
+
+  private Deadline(long deadlineNanos, boolean bounded, Deadline parent) {
+    this.deadlineNanos = deadlineNanos;
+    this.bounded = bounded;
+    this.parent = parent;
+  }
+
+  /**
+   * @param timeout time from now until the deadline
+   * @param unit unit of timeout
+   * @return deadline that passes after the given time, or when cancelled
+   */
+  public static Deadline after(long timeout, TimeUnit unit) {
+    return new Deadline(System.nanoTime() + unit.toNanos(timeout), true, null);
+  }
+
+  /**
+   * @return deadline that only passes when cancelled
+   */
+  public static Deadline cancellable() {
+    return new Deadline(Long.MAX_VALUE, false, null);
+  }
+
+  /**
+   * @return deadline that passes when this one does, and which can also be cancelled by itself,
+   *  to stop one part of a decode without stopping the rest
+   */
+  public Deadline newChild() {
+    return new Deadline(deadlineNanos, bounded, this);
+  }
+
+  /**
+   * @param hints decode hints, or null
+   * @return the {@link DecodeHintType#DEADLINE} hint, or a deadline which never passes if there is
+   *  none; never null
+   */
+  public static Deadline fromHints(Map<DecodeHintType,?> hints) {
+    Deadline deadline = hints == null ? null : (Deadline) hints.get(DecodeHintType.DEADLINE);
+    return deadline == null ? NONE : deadline;
+  }
+
+  /**
+   * Makes the deadline pass now. Decodes checking it stop at their next check.
+   */
+  public void cancel() {
+    if (this == NONE) {
+      throw new IllegalStateException("The empty deadline can't be cancelled");
+    }
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled || parent != null && parent.isCancelled();
+  }
+
+  /**
+   * @return true if the deadline has passed, or was cancelled
+   */
+  public boolean isExpired() {
+    return isCancelled() || bounded && System.nanoTime() - deadlineNanos >= 0;
+  }
+
+  /**
+   * @throws DeadlineExceededException if the deadline has passed, or was cancelled
+   */
+  public void check() {
+    if (isExpired()) {
+      throw new DeadlineExceededException(isCancelled());
+    }
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * Thrown when a {@link Deadline} passed with {@link DecodeHintType#DEADLINE} runs out, or is
+ * cancelled, before decoding finishes. This means the image was not fully searched, unlike a
+ * {@link NotFoundException}, which means it was searched and nothing was found.
+ *
+ * <p>Unlike {@link ReaderException}s, which readers catch internally to move on to the next row,
+ * region or format, this is unchecked so that it always reaches the caller.</p>
+ *
+ * @see Deadline
+ */
+public final class DeadlineExceededException extends RuntimeException {
+
+  private final boolean cancelled;
+
+  DeadlineExceededException(boolean cancelled) {
+    super(cancelled ? "Decoding was cancelled" : "Decoding deadline passed");
+    this.cancelled = cancelled;
+  }
+
+  /**
+   * @return true if this was caused by {@link Deadline#cancel()}, rather than time running out
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+}
@@ -98,6 +98,18 @@ public enum DecodeHintType {
    */
   ALLOWED_EAN_EXTENSIONS(int[].class),
 
+  /**
+   * Time limit for decoding, after which readers stop and throw {@link DeadlineExceededException}.
+   * Maps to a {@link Deadline}.
+   */
+  DEADLINE(Deadline.class),
+
+  /**
+   * Look over the image quickly first, and skip readers for formats it can't contain. See
+   * {@link FormatPreClassifier}. Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  PRE_CLASSIFY(Void.class),
+
   // End of enumeration values.
   ;
 
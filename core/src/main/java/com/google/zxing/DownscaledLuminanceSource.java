@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * A wrapper implementation of {@link LuminanceSource} which shrinks another by a whole factor in
+ * each direction, each pixel being the mean of a square of the other's pixels. Pixels left over
+ * at the right and bottom edges, when the other's size isn't a multiple of the factor, are dropped.
+ *
+ * <p>Nothing is computed until asked for, and then only from the rows of the other source which
+ * are needed, so a view of an image at low resolution costs little beyond reading it once. Buffers
+ * are reused from row to row, so an instance shouldn't be read from several threads at once.</p>
+ *
+ * @see PyramidReader
+ */
+public final class DownscaledLuminanceSource extends LuminanceSource {
+
+  private final LuminanceSource delegate;
+  private final int factor;
+  // Reused from row to row
+  private int[] sums;
+  private byte[] delegateRow;
+
+  /**
+   * @param delegate source to shrink
+   * @param factor number of the source's pixels, in each direction, averaged into one
+   */
+  public DownscaledLuminanceSource(LuminanceSource delegate, int factor) {
+    super(delegate.getWidth() / checkFactor(factor), delegate.getHeight() / factor);
+    if (getWidth() == 0 || getHeight() == 0) {
+      throw new IllegalArgumentException("Source is smaller than the factor.");
+    }
+    this.delegate = delegate;
+    this.factor = factor;
+  }
+
+  private static int checkFactor(int factor) {
+    if (factor < 1) {
+      throw new IllegalArgumentException("Factor must be positive.");
+    }
+    return factor;
+  }
+
+  public int getFactor() {
+    return factor;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    addRows(y);
+    divide(row, 0);
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    byte[] matrix = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      addRows(y);
+      divide(matrix, y * width);
+    }
+    return matrix;
+  }
+
+  /**
+   * Sums the delegate's pixels for one row of this source into {@link #sums}, over the square each
+   * pixel covers.
+   */
+  private void addRows(int y) {
+    int width = getWidth();
+    if (sums == null) {
+      sums = new int[width];
+      delegateRow = new byte[delegate.getWidth()];
+    } else {
+      for (int i = 0; i < width; i++) {
+        sums[i] = 0;
+      }
+    }
+    for (int dy = 0; dy < factor; dy++) {
+      delegateRow = delegate.getRow(y * factor + dy, delegateRow);
+      for (int x = 0, offset = 0; x < width; x++) {
+        int sum = 0;
+        for (int dx = 0; dx < factor; dx++, offset++) {
+          sum += delegateRow[offset] & 0xFF;
+        }
+        sums[x] += sum;
+      }
+    }
+  }
+
+  private void divide(byte[] output, int offset) {
+    int area = factor * factor;
+    for (int x = 0; x < sums.length; x++) {
+      output[offset + x] = (byte) (sums[x] / area);
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return delegate.isCropSupported();
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new DownscaledLuminanceSource(
+        delegate.crop(left * factor, top * factor, width * factor, height * factor), factor);
+  }
+
+  @Override
+  public boolean isRotateSupported() {
+    return delegate.isRotateSupported() && (!hasDroppedEdges() || delegate.isCropSupported());
+  }
+
+  @Override
+  public LuminanceSource rotateCounterClockwise() {
+    // Drop the delegate's extra rows and columns first, or they would end up on the wrong side
+    LuminanceSource cropped = hasDroppedEdges() ?
+        delegate.crop(0, 0, getWidth() * factor, getHeight() * factor) : delegate;
+    return new DownscaledLuminanceSource(cropped.rotateCounterClockwise(), factor);
+  }
+
+  private boolean hasDroppedEdges() {
+    return delegate.getWidth() != getWidth() * factor || delegate.getHeight() != getHeight() * factor;
+  }
+
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * <p>A quick look at an image for the structures each format's detector needs, so that readers
+ * which can't possibly find anything need not run. This makes one pass over the rows of the black
+ * matrix, splitting each into runs of black and white and counting:</p>
+ *
+ * <ul>
+ * <li>runs in 1:1:3:1:1 ratio, as across a QR Code finder pattern</li>
+ * <li>seven runs of about equal width, as across the rings of an Aztec bullseye</li>
+ * <li>runs matching a PDF417 start or stop pattern, read either way</li>
+ * <li>rows with at least two black runs, as any row across a Data Matrix has</li>
+ * </ul>
+ *
+ * <p>and then looks at the black rows that the 1D readers would look at, for one with enough runs
+ * to hold a 1D barcode. Each part is only done when a reader which needs it would run, as decided by
+ * {@link DecodeHintType#POSSIBLE_FORMATS}.</p>
+ *
+ * <p>Thresholds are deliberately loose: a format is only ruled out when a structure that every
+ * symbol of it shows is missing everywhere. Set {@link DecodeHintType#PRE_CLASSIFY} to have
+ * {@link MultiFormatReader} use this; the classification is then attached to results under
+ * {@link ResultMetadataType#PRE_CLASSIFICATION}, so the decision can be audited.</p>
+ */
+public final class FormatPreClassifier {
+
+  private static final Collection<BarcodeFormat> ONE_D_FORMATS = EnumSet.of(
+      BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8,
+      BarcodeFormat.CODABAR, BarcodeFormat.CODE_39, BarcodeFormat.CODE_93, BarcodeFormat.CODE_128,
+      BarcodeFormat.ITF, BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED);
+
+  private static final int[] PDF417_START_PATTERN = {8, 1, 1, 1, 1, 1, 1, 3};
+  private static final int[] PDF417_STOP_PATTERN = {7, 1, 1, 3, 1, 1, 1, 2, 1};
+  private static final int[] PDF417_START_PATTERN_REVERSED = {3, 1, 1, 1, 1, 1, 1, 8};
+  private static final int[] PDF417_STOP_PATTERN_REVERSED = {1, 2, 1, 1, 1, 3, 1, 1, 7};
+  // As in the PDF417 detector, how far one run may stray from the pattern, in modules
+  private static final float PDF417_MAX_INDIVIDUAL_VARIANCE = 0.8f;
+
+  // Fewest runs in a row that could hold a 1D barcode; the shortest, like a three-character
+  // Codabar or an EAN-8, has more than this
+  private static final int MIN_ONE_D_RUNS = 20;
+  // Fewest rows with two or more black runs that could cross a Data Matrix, which is at least ten
+  // modules high
+  private static final int MIN_TEXTURED_ROWS = 8;
+  // Fewest rows crossing the center of finder patterns that could be from a QR Code
+  private static final int MIN_FINDER_PATTERN_HITS = 2;
+  // Runs of equal width across the center of a compact Aztec bullseye, from the white ring inside
+  // its outer black ring to the one on the other side; the outer ring may run into data modules
+  private static final int BULLSEYE_RUNS = 7;
+
+  private final int finderPatternHits;
+  private final int bullseyeHits;
+  private final int pdf417PatternHits;
+  private final int texturedRows;
+  private final int oneDRows;
+  private final boolean pureBarcode;
+
+  private FormatPreClassifier(int finderPatternHits,
+                              int bullseyeHits,
+                              int pdf417PatternHits,
+                              int texturedRows,
+                              int oneDRows,
+                              boolean pureBarcode) {
+    this.finderPatternHits = finderPatternHits;
+    this.bullseyeHits = bullseyeHits;
+    this.pdf417PatternHits = pdf417PatternHits;
+    this.texturedRows = texturedRows;
+    this.oneDRows = oneDRows;
+    this.pureBarcode = pureBarcode;
+  }
+
+  /**
+   * @param image image to classify
+   * @param hints decode hints, of which {@link DecodeHintType#TRY_HARDER} and
+   *  {@link DecodeHintType#PURE_BARCODE} affect what is looked at, and
+   *  {@link DecodeHintType#POSSIBLE_FORMATS} what is looked for
+   * @return signals found in the image, and the formats they allow
+   */
+  public static FormatPreClassifier classify(BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    return classify(image, hints, MultiFormatReader.createReaders(hints));
+  }
+
+  /**
+   * Looks only for the signals that the given readers need; those for other formats are left at 0.
+   */
+  static FormatPreClassifier classify(BinaryBitmap image, Map<DecodeHintType,?> hints, Reader[] readers) {
+    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+    boolean pureBarcode = hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE);
+    boolean twoD = false;
+    boolean oneD = false;
+    for (Reader reader : readers) {
+      if (reader instanceof MultiFormatOneDReader) {
+        oneD = true;
+      } else if (reader instanceof QRCodeReader || reader instanceof DataMatrixReader ||
+                 reader instanceof AztecReader || reader instanceof PDF417Reader) {
+        twoD = true;
+      }
+    }
+    int[] runs = new int[image.getWidth() + 1];
+
+    int finderPatternHits = 0;
+    int bullseyeHits = 0;
+    int pdf417PatternHits = 0;
+    int texturedRows = 0;
+    BitMatrix matrix = null;
+    if (twoD) {
+      try {
+        matrix = image.getBlackMatrix();
+      } catch (NotFoundException ignored) {
+        // Nothing to see in 2D; 1D rows are binarized separately, so may still have something
+      }
+    }
+    if (matrix != null) {
+      BitArray row = new BitArray(matrix.getWidth());
+      for (int y = 0; y < matrix.getHeight(); y++) {
+        row = matrix.getRow(y, row);
+        int numRuns = toRuns(row, runs);
+        if (numRuns >= 3) {
+          texturedRows++;
+        }
+        for (int i = 0; i + 5 <= numRuns; i += 2) {
+          if (isFinderPattern(runs, i)) {
+            finderPatternHits++;
+          }
+        }
+        for (int i = 0; i + BULLSEYE_RUNS <= numRuns; i++) {
+          if (isBullseye(runs, i)) {
+            bullseyeHits++;
+          }
+        }
+        for (int i = 0; i + PDF417_START_PATTERN.length <= numRuns; i++) {
+          // Patterns starting with a black run start on even indices, and the reversed start pattern
+          // with a white one
+          int[] start = (i & 0x01) == 0 ? PDF417_START_PATTERN : PDF417_START_PATTERN_REVERSED;
+          if (matchesPattern(runs, i, start) ||
+              ((i & 0x01) == 0 && i + PDF417_STOP_PATTERN.length <= numRuns &&
+               (matchesPattern(runs, i, PDF417_STOP_PATTERN) ||
+                matchesPattern(runs, i, PDF417_STOP_PATTERN_REVERSED)))) {
+            pdf417PatternHits++;
+          }
+        }
+      }
+    }
+
+    int oneDRows = 0;
+    if (oneD) {
+      oneDRows = countOneDRows(image, tryHarder, runs);
+      if (oneDRows == 0 && tryHarder) {
+        // The 1D readers would now rotate the image and look at its columns. Rather than rotate and
+        // binarize it again here, look at the columns of the black matrix
+        if (matrix == null) {
+          try {
+            matrix = image.getBlackMatrix();
+          } catch (NotFoundException ignored) {
+            // Nothing in columns either
+          }
+        }
+        if (matrix != null) {
+          oneDRows = countOneDColumns(matrix);
+        }
+      }
+    }
+    return new FormatPreClassifier(finderPatternHits, bullseyeHits, pdf417PatternHits, texturedRows,
+                                   oneDRows, pureBarcode);
+  }
+
+  /**
+   * Looks at the rows that {@link com.google.zxing.oned.OneDReader} would, binarized the way it
+   * does, and counts those with enough runs to hold a 1D barcode.
+   */
+  private static int countOneDRows(BinaryBitmap image, boolean tryHarder, int[] runs) {
+    int height = image.getHeight();
+    int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
+    int maxLines = tryHarder ? height : 15;
+    BitArray row = new BitArray(image.getWidth());
+    int count = 0;
+    for (int x = 0; x < maxLines; x++) {
+      int rowNumber = toLineNumber(x, height, rowStep);
+      if (rowNumber < 0 || rowNumber >= height) {
+        break;
+      }
+      try {
+        row = image.getBlackRow(rowNumber, row);
+      } catch (NotFoundException ignored) {
+        continue;
+      }
+      if (toRuns(row, runs) >= MIN_ONE_D_RUNS) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Like {@link #countOneDRows(BinaryBitmap, boolean, int[])} when trying harder, but for the columns
+   * that the 1D readers would look at in the rotated image.
+   */
+  private static int countOneDColumns(BitMatrix matrix) {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    int columnStep = Math.max(1, width >> 8);
+    BitArray column = new BitArray(height);
+    int[] runs = new int[height + 1];
+    int count = 0;
+    for (int i = 0; i < width; i++) {
+      int x = toLineNumber(i, width, columnStep);
+      if (x < 0 || x >= width) {
+        break;
+      }
+      column.clear();
+      for (int y = 0; y < height; y++) {
+        if (matrix.get(x, y)) {
+          column.set(y);
+        }
+      }
+      if (toRuns(column, runs) >= MIN_ONE_D_RUNS) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the line looked at in the given attempt: the middle, then alternately further above and
+   *  below it
+   */
+  private static int toLineNumber(int attempt, int size, int step) {
+    int stepsAboveOrBelow = (attempt + 1) / 2;
+    boolean isAbove = (attempt & 0x01) == 0;
+    return (size >> 1) + step * (isAbove ? stepsAboveOrBelow : -stepsAboveOrBelow);
+  }
+
+  /**
+   * Splits a row into runs, starting with its first black pixel and ending with its last.
+   *
+   * @return number of runs
+   */
+  private static int toRuns(BitArray row, int[] runs) {
+    int width = row.getSize();
+    int numRuns = 0;
+    int x = row.getNextSet(0);
+    while (x < width) {
+      int end = row.getNextUnset(x);
+      runs[numRuns++] = end - x;
+      if (end >= width) {
+        break;
+      }
+      x = row.getNextSet(end);
+      if (x >= width) {
+        break;
+      }
+      runs[numRuns++] = x - end;
+    }
+    return numRuns;
+  }
+
+  private static boolean isFinderPattern(int[] runs, int offset) {
+    int total = 0;
+    for (int i = offset; i < offset + 5; i++) {
+      total += runs[i];
+    }
+    if (total < 7) {
+      return false;
+    }
+    // Looser than FinderPatternFinder, which allows half a module
+    float moduleSize = total / 7.0f;
+    float maxVariance = moduleSize * 0.75f;
+    return Math.abs(moduleSize - runs[offset]) < maxVariance &&
+        Math.abs(moduleSize - runs[offset + 1]) < maxVariance &&
+        Math.abs(3.0f * moduleSize - runs[offset + 2]) < 3 * maxVariance &&
+        Math.abs(moduleSize - runs[offset + 3]) < maxVariance &&
+        Math.abs(moduleSize - runs[offset + 4]) < maxVariance;
+  }
+
+  private static boolean isBullseye(int[] runs, int offset) {
+    int total = 0;
+    for (int i = offset; i < offset + BULLSEYE_RUNS; i++) {
+      total += runs[i];
+    }
+    if (total < BULLSEYE_RUNS) {
+      return false;
+    }
+    float moduleSize = (float) total / BULLSEYE_RUNS;
+    float maxVariance = moduleSize / 2.0f;
+    for (int i = offset; i < offset + BULLSEYE_RUNS; i++) {
+      if (Math.abs(moduleSize - runs[i]) >= maxVariance) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matchesPattern(int[] runs, int offset, int[] pattern) {
+    int total = 0;
+    int patternLength = 0;
+    for (int i = 0; i < pattern.length; i++) {
+      total += runs[offset + i];
+      patternLength += pattern[i];
+    }
+    if (total < patternLength) {
+      return false;
+    }
+    float unitBarWidth = (float) total / patternLength;
+    float maxVariance = PDF417_MAX_INDIVIDUAL_VARIANCE * unitBarWidth;
+    for (int i = 0; i < pattern.length; i++) {
+      if (Math.abs(runs[offset + i] - pattern[i] * unitBarWidth) > maxVariance) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return formats which may be in the image
+   */
+  public Collection<BarcodeFormat> getPossibleFormats() {
+    Collection<BarcodeFormat> formats = EnumSet.noneOf(BarcodeFormat.class);
+    if (oneDRows > 0) {
+      formats.addAll(ONE_D_FORMATS);
+    }
+    if (finderPatternHits >= MIN_FINDER_PATTERN_HITS) {
+      formats.add(BarcodeFormat.QR_CODE);
+    }
+    if (texturedRows >= MIN_TEXTURED_ROWS) {
+      formats.add(BarcodeFormat.DATA_MATRIX);
+    }
+    if (bullseyeHits > 0) {
+      formats.add(BarcodeFormat.AZTEC);
+    }
+    // The MaxiCode reader only reads pure barcodes, which it rejects quickly anyway
+    if (pureBarcode) {
+      formats.add(BarcodeFormat.MAXICODE);
+    }
+    if (pdf417PatternHits > 0) {
+      formats.add(BarcodeFormat.PDF_417);
+    }
+    return formats;
+  }
+
+  /**
+   * @return true unless the reader is one of {@link MultiFormatReader}'s, and its formats have been
+   *  ruled out
+   */
+  boolean mayMatch(Reader reader) {
+    if (reader instanceof MultiFormatOneDReader) {
+      return oneDRows > 0;
+    }
+    if (reader instanceof QRCodeReader) {
+      return finderPatternHits >= MIN_FINDER_PATTERN_HITS;
+    }
+    if (reader instanceof DataMatrixReader) {
+      return texturedRows >= MIN_TEXTURED_ROWS;
+    }
+    if (reader instanceof AztecReader) {
+      return bullseyeHits > 0;
+    }
+    if (reader instanceof PDF417Reader) {
+      return pdf417PatternHits > 0;
+    }
+    if (reader instanceof MaxiCodeReader) {
+      return pureBarcode;
+    }
+    return true;
+  }
+
+  public int getFinderPatternHits() {
+    return finderPatternHits;
+  }
+
+  public int getBullseyeHits() {
+    return bullseyeHits;
+  }
+
+  public int getPDF417PatternHits() {
+    return pdf417PatternHits;
+  }
+
+  public int getTexturedRows() {
+    return texturedRows;
+  }
+
+  public int getOneDRows() {
+    return oneDRows;
+  }
+
+  @Override
+  public String toString() {
+    return "finder patterns=" + finderPatternHits + " bullseyes=" + bullseyeHits +
+        " PDF417 patterns=" + pdf417PatternHits + " textured rows=" + texturedRows +
+        " 1D rows=" + oneDRows + " possible=" + getPossibleFormats();
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BinarizerWorkspace;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Map;
+
+/**
+ * <p>Decodes a stream of frames, such as from a camera or video, reusing as much as possible from
+ * one frame to the next. Like {@link MultiFormatReader#decodeWithState(BinaryBitmap)}, it keeps its
+ * readers and hints; in addition it keeps the large buffers that binarizing each frame needs in a
+ * {@link BinarizerWorkspace}, so that frames of the same size allocate little besides what the
+ * detectors themselves need.</p>
+ *
+ * <p>As with {@code decodeWithState}, readers may carry state from one frame to the next, such as
+ * the rows of a stacked RSS Expanded symbol seen so far, which lets a symbol be read from frames
+ * that each show only part of it. Call {@link #reset()} when the scene changes, so that nothing
+ * from the old scene is mixed into the new one.</p>
+ *
+ * <p>This class is not thread-safe. A pipeline decoding on several threads should hold one per
+ * thread.</p>
+ *
+ * @see BinarizerWorkspace
+ */
+public final class FrameDecoder {
+
+  private final MultiFormatReader reader;
+  private final BinarizerWorkspace workspace;
+
+  public FrameDecoder() {
+    this(null);
+  }
+
+  /**
+   * @param hints hints to use for every frame, or null
+   */
+  public FrameDecoder(Map<DecodeHintType,?> hints) {
+    reader = new MultiFormatReader();
+    reader.setHints(hints);
+    workspace = new BinarizerWorkspace();
+  }
+
+  /**
+   * Decodes one frame, binarized with a {@link HybridBinarizer}.
+   *
+   * @param frame luminance data of the frame
+   * @return the barcode found in the frame
+   * @throws NotFoundException if none is found
+   */
+  public Result decode(LuminanceSource frame) throws NotFoundException {
+    return reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(frame, workspace)));
+  }
+
+  /**
+   * Forgets what readers have kept from earlier frames, such as when the camera moves to another
+   * scene. Buffers are kept.
+   */
+  public void reset() {
+    reader.reset();
+  }
+
+}
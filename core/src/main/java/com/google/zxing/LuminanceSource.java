@@ -59,6 +59,14 @@ public abstract class LuminanceSource {
    */
   public abstract byte[] getMatrix();
 
+  /**
+   * @return Whether getMatrix() returns the array this object holds its data in, rather than a
+   *         copy, so that calling it costs nothing.
+   */
+  public boolean isMatrixShared() {
+    return false;
+  }
+
   /**
    * @return The width of the bitmap.
    */
@@ -39,6 +39,7 @@ public final class MultiFormatReader implements Reader {
 
   private Map<DecodeHintType,?> hints;
   private Reader[] readers;
+  private ReaderStatistics statistics;
 
   /**
    * This version of decode honors the intent of Reader.decode(BinaryBitmap) in that it
@@ -94,7 +95,16 @@ public final class MultiFormatReader implements Reader {
    */
   public void setHints(Map<DecodeHintType,?> hints) {
     this.hints = hints;
+    this.readers = createReaders(hints);
+  }
 
+  /**
+   * Builds the set of readers that the given hints call for, in the order they should be tried.
+   *
+   * @param hints decode hints, or null for the default set of readers
+   * @return readers to try, in order
+   */
+  static Reader[] createReaders(Map<DecodeHintType,?> hints) {
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     @SuppressWarnings("unchecked")
     Collection<BarcodeFormat> formats =
@@ -152,7 +162,19 @@ public final class MultiFormatReader implements Reader {
         readers.add(new MultiFormatOneDReader(hints));
       }
     }
-    this.readers = readers.toArray(new Reader[readers.size()]);
+    return readers.toArray(new Reader[readers.size()]);
+  }
+
+  /**
+   * Makes this try readers in the order that statistics, gathered from this and any other readers
+   * sharing them, suggest will find a barcode soonest, instead of in a fixed order. Also records the
+   * outcome of each attempt in the statistics.
+   *
+   * @param statistics statistics to use and update, or null to return to the fixed order
+   * @see ReaderStatistics
+   */
+  public void setStatistics(ReaderStatistics statistics) {
+    this.statistics = statistics;
   }
 
   @Override
@@ -166,11 +188,33 @@ public final class MultiFormatReader implements Reader {
 
   private Result decodeInternal(BinaryBitmap image) throws NotFoundException {
     if (readers != null) {
+      if (statistics != null) {
+        statistics.order(readers);
+      }
+      FormatPreClassifier classification = null;
+      if (hints != null && hints.containsKey(DecodeHintType.PRE_CLASSIFY)) {
+        classification = FormatPreClassifier.classify(image, hints, readers);
+      }
+      Deadline deadline = Deadline.fromHints(hints);
       for (Reader reader : readers) {
+        if (classification != null && !classification.mayMatch(reader)) {
+          continue;
+        }
+        deadline.check();
+        long start = statistics == null ? 0L : System.nanoTime();
         try {
-          return reader.decode(image, hints);
+          Result result = reader.decode(image, hints);
+          if (statistics != null) {
+            statistics.record(reader, System.nanoTime() - start, true);
+          }
+          if (classification != null) {
+            result.putMetadata(ResultMetadataType.PRE_CLASSIFICATION, classification);
+          }
+          return result;
         } catch (ReaderException re) {
-          // continue
+          if (statistics != null) {
+            statistics.record(reader, System.nanoTime() - start, false);
+          }
         }
       }
     }
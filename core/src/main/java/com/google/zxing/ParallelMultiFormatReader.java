@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>A variant of {@link MultiFormatReader} which tries all of its readers at the same time,
+ * on a caller-supplied {@link ExecutorService}, rather than one after the other. The first
+ * reader to return a result wins. The attempts still running are then stopped, through a
+ * {@link Deadline} of their own, and waited for, so no reader is still at work on the image when
+ * a decode returns; readers which don't check the deadline run to the end.</p>
+ *
+ * <p>The same hints select the same readers as in {@link MultiFormatReader}, but since they run
+ * concurrently, the order in which they are listed no longer matters; if an image contains more
+ * than one kind of barcode, which one is returned is not defined.</p>
+ *
+ * <p>This only pays off when there are idle threads to run on. The executor is not shut down by
+ * this class. Like {@link MultiFormatReader}, an instance should not be used to decode more than
+ * one image at a time.</p>
+ *
+ * @see MultiFormatReader
+ */
+public final class ParallelMultiFormatReader implements Reader {
+
+  private final ExecutorService executor;
+  private Map<DecodeHintType,?> hints;
+  private Reader[] readers;
+
+  /**
+   * @param executor executor on which readers are run; not shut down by this class
+   */
+  public ParallelMultiFormatReader(ExecutorService executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor must be non-null.");
+    }
+    this.executor = executor;
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image) throws NotFoundException {
+    setHints(null);
+    return decodeInternal(image);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    setHints(hints);
+    return decodeInternal(image);
+  }
+
+  /**
+   * Decode an image using the state set up by calling setHints() previously.
+   *
+   * @param image The pixel data to decode
+   * @return The contents of the image
+   * @throws NotFoundException Any errors which occurred
+   * @see MultiFormatReader#decodeWithState(BinaryBitmap)
+   */
+  public Result decodeWithState(BinaryBitmap image) throws NotFoundException {
+    // Make sure to set up the default state so we don't crash
+    if (readers == null) {
+      setHints(null);
+    }
+    return decodeInternal(image);
+  }
+
+  /**
+   * @param hints The set of hints to use for subsequent calls to decodeWithState(image)
+   * @see MultiFormatReader#setHints(Map)
+   */
+  public void setHints(Map<DecodeHintType,?> hints) {
+    this.hints = hints;
+    this.readers = MultiFormatReader.createReaders(hints);
+  }
+
+  @Override
+  public void reset() {
+    if (readers != null) {
+      for (Reader reader : readers) {
+        reader.reset();
+      }
+    }
+  }
+
+  private Result decodeInternal(final BinaryBitmap image) throws NotFoundException {
+    if (readers == null || readers.length == 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    if (readers.length == 1) {
+      return decodeSerially(image);
+    }
+
+    // Binarizers keep per-instance scratch buffers and are not safe to call from several threads,
+    // so compute the matrix that the 2D readers share up front; BinaryBitmap then caches it, and
+    // the only remaining concurrent binarizer access is from the single 1D reader.
+    try {
+      image.getBlackMatrix();
+    } catch (NotFoundException nfe) {
+      // Retrying this from each 2D reader would race with the 1D reader, so just fall back
+      return decodeSerially(image);
+    }
+
+    // Losing readers are stopped through their own deadline, and waited for, so that none is still
+    // using the image or its reader when the next decode starts
+    Deadline deadline = Deadline.fromHints(hints).newChild();
+    final Map<DecodeHintType,Object> currentHints = new EnumMap<>(DecodeHintType.class);
+    if (hints != null) {
+      currentHints.putAll(hints);
+    }
+    currentHints.put(DecodeHintType.DEADLINE, deadline);
+    CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+    int submitted = 0;
+    Result result = null;
+    RuntimeException exception = null;
+    Error error = null;
+    boolean interrupted = false;
+    try {
+      for (final Reader reader : readers) {
+        completionService.submit(new Callable<Result>() {
+          @Override
+          public Result call() throws ReaderException {
+            return reader.decode(image, currentHints);
+          }
+        });
+        submitted++;
+      }
+    } finally {
+      // Even if a submission failed, wait for the readers already running
+      if (submitted < readers.length) {
+        deadline.cancel();
+      }
+      for (int i = 0; i < submitted; i++) {
+        Future<Result> future;
+        try {
+          future = completionService.take();
+        } catch (InterruptedException ie) {
+          interrupted = true;
+          deadline.cancel();
+          i--;
+          continue;
+        }
+        try {
+          Result readerResult = getDone(future);
+          if (result == null) {
+            result = readerResult;
+            deadline.cancel();
+          }
+        } catch (ExecutionException ee) {
+          Throwable cause = ee.getCause();
+          if (cause instanceof DeadlineExceededException && deadline.isCancelled() &&
+              (result != null || exception != null || error != null || interrupted)) {
+            // Stopped by this method; not a failure
+            continue;
+          }
+          if (cause instanceof RuntimeException) {
+            if (exception == null) {
+              exception = (RuntimeException) cause;
+              deadline.cancel();
+            }
+          } else if (cause instanceof Error) {
+            if (error == null) {
+              error = (Error) cause;
+              deadline.cancel();
+            }
+          }
+          // Otherwise a ReaderException; wait for the next reader
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (result != null) {
+      return result;
+    }
+    if (error != null) {
+      throw error;
+    }
+    if (exception != null) {
+      throw exception;
+    }
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  /**
+   * @return result of a future which has completed, without waiting or reacting to interrupts
+   */
+  private static Result getDone(Future<Result> future) throws ExecutionException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private Result decodeSerially(BinaryBitmap image) throws NotFoundException {
+    for (Reader reader : readers) {
+      try {
+        return reader.decode(image, hints);
+      } catch (ReaderException re) {
+        // continue
+      }
+    }
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+}
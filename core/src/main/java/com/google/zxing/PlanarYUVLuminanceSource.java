@@ -104,6 +104,11 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
     return matrix;
   }
 
+  @Override
+  public boolean isMatrixShared() {
+    return getWidth() == dataWidth && getHeight() == dataHeight;
+  }
+
   @Override
   public boolean isCropSupported() {
     return true;
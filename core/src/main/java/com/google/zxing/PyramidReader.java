@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.detector.BlackRegionFinder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Decodes large images by first trying smaller versions of them. Barcodes in big photos are
+ * often big too, and can be found and decoded in an image a quarter or half the size, which costs a
+ * sixteenth or a quarter as much to binarize and search. This tries, in order:</p>
+ *
+ * <ol>
+ * <li>the image at 1/4, then 1/2, of its size, shrunk with {@link DownscaledLuminanceSource};</li>
+ * <li>at full size, crops around each cluster of black found in the smallest version, so that full
+ * resolution is only used where there's something to see;</li>
+ * <li>the whole image at full size, so that nothing the delegate would find is lost.</li>
+ * </ol>
+ *
+ * <p>Levels smaller than {@link #MIN_DIMENSION} pixels are skipped, so small images go straight to
+ * the last step. At most {@link #MAX_REGIONS} crops are tried, together no bigger than the whole
+ * image, so that a busy image with no barcode costs at most about twice as much as the last step
+ * alone. Result points are mapped back to the full size image.</p>
+ *
+ * <p>The image's binarizer is used, through
+ * {@link Binarizer#createBinarizer(LuminanceSource)}, at every level.</p>
+ *
+ * @see DownscaledLuminanceSource
+ */
+public final class PyramidReader implements Reader {
+
+  /**
+   * Smallest width or height of a shrunk image worth trying.
+   */
+  public static final int MIN_DIMENSION = 200;
+
+  /**
+   * Most crops around clusters of black tried at full size.
+   */
+  public static final int MAX_REGIONS = 8;
+
+  private static final int MAX_LEVEL = 2;
+  // In pixels of the smallest level; with it a quarter size, 32 pixels of the full size image
+  private static final int CELL_SIZE = 8;
+  private static final int MIN_REGION_CELLS = 2;
+
+  private final Reader delegate;
+
+  public PyramidReader(Reader delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image) throws NotFoundException, ChecksumException, FormatException {
+    return decode(image, null);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    Binarizer binarizer = image.getBinarizer();
+    LuminanceSource source = binarizer.getLuminanceSource();
+    Deadline deadline = Deadline.fromHints(hints);
+
+    BitMatrix smallest = null;
+    int smallestFactor = 1;
+    for (int level = MAX_LEVEL; level > 0; level--) {
+      int factor = 1 << level;
+      if (Math.min(source.getWidth(), source.getHeight()) / factor < MIN_DIMENSION) {
+        continue;
+      }
+      deadline.check();
+      BinaryBitmap scaled =
+          new BinaryBitmap(binarizer.createBinarizer(new DownscaledLuminanceSource(source, factor)));
+      try {
+        return scaleResultPoints(delegate.decode(scaled, hints), factor);
+      } catch (ReaderException re) {
+        // continue
+      } finally {
+        delegate.reset();
+      }
+      if (smallest == null) {
+        try {
+          smallest = scaled.getBlackMatrix();
+          smallestFactor = factor;
+        } catch (NotFoundException nfe) {
+          // continue
+        }
+      }
+    }
+
+    if (smallest != null && image.isCropSupported()) {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      List<int[]> regions = BlackRegionFinder.findRegions(smallest, CELL_SIZE, MIN_REGION_CELLS);
+      int tried = 0;
+      // Crops together may cover no more than the whole image
+      long areaLeft = (long) width * height;
+      for (int[] region : regions) {
+        if (tried == MAX_REGIONS) {
+          break;
+        }
+        deadline.check();
+        // Leave some quiet zone around the region, at full size
+        int marginX = Math.max(CELL_SIZE, (region[2] - region[0]) / 4) * smallestFactor;
+        int marginY = Math.max(CELL_SIZE, (region[3] - region[1]) / 4) * smallestFactor;
+        int left = Math.max(0, region[0] * smallestFactor - marginX);
+        int top = Math.max(0, region[1] * smallestFactor - marginY);
+        int right = Math.min(width, region[2] * smallestFactor + marginX);
+        int bottom = Math.min(height, region[3] * smallestFactor + marginY);
+        long area = (long) (right - left) * (bottom - top);
+        if (area * 2 > (long) width * height) {
+          // Nearly as big as the whole image, which is tried next anyway
+          continue;
+        }
+        if (area > areaLeft) {
+          continue;
+        }
+        tried++;
+        areaLeft -= area;
+        try {
+          return translateResultPoints(delegate.decode(image.crop(left, top, right - left, bottom - top), hints),
+                                       left, top);
+        } catch (ReaderException re) {
+          // continue
+        } finally {
+          delegate.reset();
+        }
+      }
+    }
+
+    deadline.check();
+    return delegate.decode(image, hints);
+  }
+
+  @Override
+  public void reset() {
+    delegate.reset();
+  }
+
+  /**
+   * Maps points found in a shrunk image to the centers of the pixels they came from.
+   */
+  private static Result scaleResultPoints(Result result, int factor) {
+    ResultPoint[] oldResultPoints = result.getResultPoints();
+    if (oldResultPoints == null) {
+      return result;
+    }
+    float offset = (factor - 1) / 2.0f;
+    ResultPoint[] newResultPoints = new ResultPoint[oldResultPoints.length];
+    for (int i = 0; i < oldResultPoints.length; i++) {
+      ResultPoint oldPoint = oldResultPoints[i];
+      if (oldPoint != null) {
+        newResultPoints[i] = new ResultPoint(oldPoint.getX() * factor + offset, oldPoint.getY() * factor + offset);
+      }
+    }
+    return withResultPoints(result, newResultPoints);
+  }
+
+  private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
+    ResultPoint[] oldResultPoints = result.getResultPoints();
+    if (oldResultPoints == null) {
+      return result;
+    }
+    ResultPoint[] newResultPoints = new ResultPoint[oldResultPoints.length];
+    for (int i = 0; i < oldResultPoints.length; i++) {
+      ResultPoint oldPoint = oldResultPoints[i];
+      if (oldPoint != null) {
+        newResultPoints[i] = new ResultPoint(oldPoint.getX() + xOffset, oldPoint.getY() + yOffset);
+      }
+    }
+    return withResultPoints(result, newResultPoints);
+  }
+
+  private static Result withResultPoints(Result result, ResultPoint[] resultPoints) {
+    Result newResult = new Result(result.getText(),
+                                  result.getRawBytes(),
+                                  resultPoints,
+                                  result.getBarcodeFormat(),
+                                  result.getTimestamp());
+    newResult.putAllMetadata(result.getResultMetadata());
+    return newResult;
+  }
+
+}
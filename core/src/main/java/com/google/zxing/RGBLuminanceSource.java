@@ -117,6 +117,11 @@ public final class RGBLuminanceSource extends LuminanceSource {
     return matrix;
   }
   
+  @Override
+  public boolean isMatrixShared() {
+    return getWidth() == dataWidth && getHeight() == dataHeight;
+  }
+
   @Override
   public boolean isCropSupported() {
     return true;
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Tracks how often, and at what cost, each kind of {@link Reader} finds a barcode, so that
+ * {@link MultiFormatReader} can try first the reader expected to find one soonest. Set it with
+ * {@link MultiFormatReader#setStatistics(ReaderStatistics)}.</p>
+ *
+ * <p>Readers are ordered by their average time per attempt divided by their rate of success, which
+ * minimizes the expected time until some reader succeeds. A reader not yet tried sorts first, so
+ * every reader gets measured. Readers still run until one succeeds, so no format is lost, but if an
+ * image holds barcodes of several formats, which one is returned may change as the order does.</p>
+ *
+ * <p>Old observations are decayed, counting half as much after every {@code halfLife} images, so
+ * that the order follows changes in what is being scanned.</p>
+ *
+ * <p>This class is thread-safe; one instance may be shared by readers on many threads, which then
+ * learn from each other's images.</p>
+ */
+public final class ReaderStatistics {
+
+  private static final int DEFAULT_HALF_LIFE = 200;
+  // Priors for the rate of success, which keep a few early failures from sinking a reader for good
+  private static final double PRIOR_SUCCESSES = 1.0;
+  private static final double PRIOR_ATTEMPTS = 2.0;
+
+  private final int halfLife;
+  private final Map<Class<? extends Reader>,Observations> observations;
+  private int imagesSinceDecay;
+
+  public ReaderStatistics() {
+    this(DEFAULT_HALF_LIFE);
+  }
+
+  /**
+   * @param halfLife number of images after which observations count half as much
+   */
+  public ReaderStatistics(int halfLife) {
+    if (halfLife <= 0) {
+      throw new IllegalArgumentException("Half-life must be positive.");
+    }
+    this.halfLife = halfLife;
+    observations = new HashMap<>();
+  }
+
+  /**
+   * Records one attempt by a reader on an image.
+   *
+   * @param reader reader which made the attempt
+   * @param nanos time the attempt took, in nanoseconds
+   * @param found true if it found a barcode
+   */
+  synchronized void record(Reader reader, long nanos, boolean found) {
+    Observations observed = observations.get(reader.getClass());
+    if (observed == null) {
+      observed = new Observations();
+      observations.put(reader.getClass(), observed);
+    }
+    observed.attempts++;
+    observed.nanos += nanos;
+    if (found) {
+      observed.successes++;
+    }
+  }
+
+  /**
+   * Sorts readers so that the one expected to find a barcode soonest comes first, and counts one
+   * more image towards decaying observations. Readers which compare equal keep their order.
+   *
+   * @param readers readers to sort, in place
+   */
+  synchronized void order(Reader[] readers) {
+    if (++imagesSinceDecay >= halfLife) {
+      imagesSinceDecay = 0;
+      for (Observations observed : observations.values()) {
+        observed.attempts /= 2.0;
+        observed.successes /= 2.0;
+        observed.nanos /= 2.0;
+      }
+    }
+    double[] costs = new double[readers.length];
+    for (int i = 0; i < readers.length; i++) {
+      costs[i] = expectedCost(observations.get(readers[i].getClass()));
+    }
+    // Insertion sort; there are only a handful of readers, and it is stable
+    for (int i = 1; i < readers.length; i++) {
+      Reader reader = readers[i];
+      double cost = costs[i];
+      int j = i - 1;
+      while (j >= 0 && costs[j] > cost) {
+        readers[j + 1] = readers[j];
+        costs[j + 1] = costs[j];
+        j--;
+      }
+      readers[j + 1] = reader;
+      costs[j + 1] = cost;
+    }
+  }
+
+  private static double expectedCost(Observations observed) {
+    if (observed == null || observed.attempts == 0.0) {
+      return 0.0;
+    }
+    double meanNanos = observed.nanos / observed.attempts;
+    double successRate = (observed.successes + PRIOR_SUCCESSES) / (observed.attempts + PRIOR_ATTEMPTS);
+    return meanNanos / successRate;
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder result = new StringBuilder();
+    for (Map.Entry<Class<? extends Reader>,Observations> entry : observations.entrySet()) {
+      Observations observed = entry.getValue();
+      result.append(entry.getKey().getSimpleName()).append(": ")
+          .append(String.format("%.1f/%.1f found, %.0f ns/attempt\n",
+                                observed.successes,
+                                observed.attempts,
+                                observed.attempts == 0.0 ? 0.0 : observed.nanos / observed.attempts));
+    }
+    return result.toString();
+  }
+
+  private static final class Observations {
+    double attempts;
+    double successes;
+    double nanos;
+  }
+
+}
@@ -93,5 +93,11 @@ public enum ResultMetadataType {
    * parity is given with it.
    */
   STRUCTURED_APPEND_PARITY,
+
+  /**
+   * If {@link DecodeHintType#PRE_CLASSIFY} was set, the {@link FormatPreClassifier} which decided
+   * which readers to run.
+   */
+  PRE_CLASSIFICATION,
   
 }
@@ -40,6 +40,8 @@ import java.util.Map;
  */
 public final class AztecReader implements Reader {
 
+  private final Decoder decoder = new Decoder();
+
   /**
    * Locates and decodes a Data Matrix code in an image.
    *
@@ -64,7 +66,7 @@ public final class AztecReader implements Reader {
     try {
       AztecDetectorResult detectorResult = detector.detect(false);
       points = detectorResult.getPoints();
-      decoderResult = new Decoder().decode(detectorResult);
+      decoderResult = decoder.decode(detectorResult);
     } catch (NotFoundException e) {
       notFoundException = e;
     } catch (FormatException e) {
@@ -74,7 +76,7 @@ public final class AztecReader implements Reader {
       try {
         AztecDetectorResult detectorResult = detector.detect(true);
         points = detectorResult.getPoints();
-        decoderResult = new Decoder().decode(detectorResult);
+        decoderResult = decoder.decode(detectorResult);
       } catch (NotFoundException | FormatException e) {
         if (notFoundException != null) {
           throw notFoundException;
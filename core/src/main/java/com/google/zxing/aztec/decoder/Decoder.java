@@ -21,8 +21,8 @@ import com.google.zxing.aztec.AztecDetectorResult;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
 import com.google.zxing.common.reedsolomon.GenericGF;
-import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import com.google.zxing.common.reedsolomon.ReedSolomonWorkspaceDecoder;
 
 import java.util.Arrays;
 
@@ -30,6 +30,9 @@ import java.util.Arrays;
  * <p>The main class which implements Aztec Code decoding -- as opposed to locating and extracting
  * the Aztec Code from an image.</p>
  *
+ * <p>An instance keeps a Reed-Solomon workspace for each codeword size it has seen, and so must not
+ * be used from more than one thread at a time.</p>
+ *
  * @author David Olivier
  */
 public final class Decoder {
@@ -68,6 +71,8 @@ public final class Decoder {
       "CTRL_PS", " ", "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", ",", ".", "CTRL_UL", "CTRL_US"
   };
 
+  // One for each of 6, 8, 10 and 12 bit codewords, created when first needed
+  private final ReedSolomonWorkspaceDecoder[] rsDecoders = new ReedSolomonWorkspaceDecoder[4];
   private AztecDetectorResult ddata;
 
   public DecoderResult decode(AztecDetectorResult detectorResult) throws FormatException {
@@ -231,8 +236,11 @@ public final class Decoder {
     }
 
     try {
-      ReedSolomonDecoder rsDecoder = new ReedSolomonDecoder(gf);
-      rsDecoder.decode(dataWords, numCodewords - numDataCodewords);
+      int index = (codewordSize - 6) / 2;
+      if (rsDecoders[index] == null) {
+        rsDecoders[index] = new ReedSolomonWorkspaceDecoder(gf);
+      }
+      rsDecoders[index].decode(dataWords, numCodewords - numDataCodewords);
     } catch (ReedSolomonException ex) {
       throw FormatException.getFormatInstance(ex);
     }
@@ -36,6 +36,10 @@ import com.google.zxing.common.reedsolomon.ReedSolomonException;
  */
 public final class Detector {
 
+  // The parameter words are only 7 or 10 4-bit codewords, corrected once per detection, so there is
+  // nothing for a workspace to save; ReedSolomonDecoder keeps no state, and one is shared
+  private static final ReedSolomonDecoder PARAMETER_DECODER = new ReedSolomonDecoder(GenericGF.AZTEC_PARAM);
+
   private final BitMatrix image;
 
   private boolean compact;
@@ -210,8 +214,7 @@ public final class Detector {
       parameterData >>= 4;
     }
     try {
-      ReedSolomonDecoder rsDecoder = new ReedSolomonDecoder(GenericGF.AZTEC_PARAM);
-      rsDecoder.decode(parameterWords, numECCodewords);
+      PARAMETER_DECODER.decode(parameterWords, numECCodewords);
     } catch (ReedSolomonException ignored) {
       throw NotFoundException.getNotFoundInstance();
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * <p>Buffers which {@link GlobalHistogramBinarizer} and {@link HybridBinarizer} can reuse from one
+ * image to the next, instead of allocating them for every image: a copy of the luminance data,
+ * for sources which don't share their own, the per-block black points, the {@link BitMatrix}
+ * result, and the row and histogram buffers used for 1D rows. Buffers are kept as long as
+ * successive images have the same dimensions.</p>
+ *
+ * <p>A binarizer given a workspace returns a matrix which belongs to the workspace, and which is
+ * overwritten when the next binarizer using it computes its matrix. So only one image at a time
+ * may use a workspace, and results must be taken from that image before moving on to the next.
+ * Binarizers created from it for crops and rotations, by
+ * {@link com.google.zxing.Binarizer#createBinarizer(LuminanceSource)}, do not share it.</p>
+ *
+ * <p>This class is not thread-safe; hold one per thread.</p>
+ *
+ * @see com.google.zxing.FrameDecoder
+ */
+public final class BinarizerWorkspace {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private byte[] luminances;
+  private byte[] row;
+  private int[][] blackPoints;
+  private BitMatrix matrix;
+  private final int[] buckets;
+
+  public BinarizerWorkspace() {
+    luminances = EMPTY;
+    row = EMPTY;
+    blackPoints = new int[0][0];
+    buckets = new int[GlobalHistogramBinarizer.LUMINANCE_BUCKETS];
+  }
+
+  /**
+   * @return all of the source's luminance data: the source's own array if it shares it, or else
+   *  copied a row at a time into a reused array, which may be longer than needed
+   */
+  byte[] getLuminances(LuminanceSource source) {
+    if (source.isMatrixShared()) {
+      return source.getMatrix();
+    }
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int area = width * height;
+    if (luminances.length < area) {
+      luminances = new byte[area];
+    }
+    for (int y = 0; y < height; y++) {
+      byte[] sourceRow = source.getRow(y, getRow(width));
+      System.arraycopy(sourceRow, 0, luminances, y * width, width);
+    }
+    return luminances;
+  }
+
+  /**
+   * @return a reused array of at least the given length
+   */
+  byte[] getRow(int width) {
+    if (row.length < width) {
+      row = new byte[width];
+    }
+    return row;
+  }
+
+  /**
+   * @return a reused histogram, not cleared
+   */
+  int[] getBuckets() {
+    return buckets;
+  }
+
+  /**
+   * @return a reused array of the given size, not cleared
+   */
+  int[][] getBlackPoints(int subWidth, int subHeight) {
+    if (blackPoints.length != subHeight || subHeight > 0 && blackPoints[0].length != subWidth) {
+      blackPoints = new int[subHeight][subWidth];
+    }
+    return blackPoints;
+  }
+
+  /**
+   * @return a reused, cleared matrix of the given size
+   */
+  BitMatrix getMatrix(int width, int height) {
+    if (matrix == null || matrix.getWidth() != width || matrix.getHeight() != height) {
+      matrix = new BitMatrix(width, height);
+    } else {
+      matrix.clear();
+    }
+    return matrix;
+  }
+
+}
@@ -217,6 +217,36 @@ public final class BitMatrix implements Cloneable {
     }
   }
 
+  /**
+   * <p>Sets the bits in part of one row for which the corresponding luminance is at or below a
+   * threshold. This is the same as calling {@link #set(int, int)} for each such pixel, but builds
+   * and stores up to 32 bits at a time. Bits which are already set are left set.</p>
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param y The row to set bits in
+   * @param luminances Luminance values, as unsigned bytes
+   * @param offset Index in luminances of the value for (left, y)
+   * @param length Number of pixels to threshold
+   * @param threshold Luminance at or below which a bit is set
+   */
+  public void setBelowThreshold(int left, int y, byte[] luminances, int offset, int length, int threshold) {
+    int rowOffset = y * rowSize;
+    int right = left + length;
+    int x = left;
+    int i = offset;
+    while (x < right) {
+      int wordIndex = rowOffset + (x / 32);
+      int wordEnd = Math.min(right, (x | 0x1f) + 1);
+      int word = 0;
+      for (; x < wordEnd; x++, i++) {
+        if ((luminances[i] & 0xFF) <= threshold) {
+          word |= 1 << (x & 0x1f);
+        }
+      }
+      bits[wordIndex] |= word;
+    }
+  }
+
   /**
    * A fast method to retrieve one row of data from the matrix as a BitArray.
    *
@@ -35,16 +35,33 @@ public class GlobalHistogramBinarizer extends Binarizer {
 
   private static final int LUMINANCE_BITS = 5;
   private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
-  private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+  static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
   private static final byte[] EMPTY = new byte[0];
 
   private byte[] luminances;
   private final int[] buckets;
+  private final BinarizerWorkspace workspace;
 
   public GlobalHistogramBinarizer(LuminanceSource source) {
     super(source);
     luminances = EMPTY;
     buckets = new int[LUMINANCE_BUCKETS];
+    workspace = null;
+  }
+
+  /**
+   * @param source luminance data to binarize
+   * @param workspace buffers to use instead of allocating new ones; see {@link BinarizerWorkspace}
+   *  for the restrictions this implies
+   */
+  public GlobalHistogramBinarizer(LuminanceSource source, BinarizerWorkspace workspace) {
+    super(source);
+    if (workspace == null) {
+      throw new IllegalArgumentException("Workspace must be non-null.");
+    }
+    luminances = workspace.getRow(source.getWidth());
+    buckets = workspace.getBuckets();
+    this.workspace = workspace;
   }
 
   // Applies simple sharpening to the row data to improve performance of the 1D Readers.
@@ -95,7 +112,7 @@ public class GlobalHistogramBinarizer extends Binarizer {
     LuminanceSource source = getLuminanceSource();
     int width = source.getWidth();
     int height = source.getHeight();
-    BitMatrix matrix = new BitMatrix(width, height);
+    BitMatrix matrix = workspace == null ? new BitMatrix(width, height) : workspace.getMatrix(width, height);
 
     // Quickly calculates the histogram by sampling four rows from the image. This proved to be
     // more robust on the blackbox tests than sampling a diagonal as we used to do.
@@ -115,15 +132,10 @@ public class GlobalHistogramBinarizer extends Binarizer {
     // We delay reading the entire image luminance until the black point estimation succeeds.
     // Although we end up reading four rows twice, it is consistent with our motto of
     // "fail quickly" which is necessary for continuous scanning.
-    byte[] localLuminances = source.getMatrix();
+    byte[] localLuminances = workspace == null ? source.getMatrix() : workspace.getLuminances(source);
+    // blackPoint is at least one bucket wide, so blackPoint - 1 is a valid inclusive threshold
     for (int y = 0; y < height; y++) {
-      int offset = y * width;
-      for (int x = 0; x < width; x++) {
-        int pixel = localLuminances[offset + x] & 0xff;
-        if (pixel < blackPoint) {
-          matrix.set(x, y);
-        }
-      }
+      matrix.setBelowThreshold(0, y, localLuminances, y * width, width, blackPoint - 1);
     }
 
     return matrix;
@@ -134,6 +146,13 @@ public class GlobalHistogramBinarizer extends Binarizer {
     return new GlobalHistogramBinarizer(source);
   }
 
+  /**
+   * @return buffers this binarizer reuses, or null if it allocates its own
+   */
+  BinarizerWorkspace getWorkspace() {
+    return workspace;
+  }
+
   private void initArrays(int luminanceSize) {
     if (luminances.length < luminanceSize) {
       luminances = new byte[luminanceSize];
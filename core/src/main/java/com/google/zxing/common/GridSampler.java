@@ -16,6 +16,7 @@
 
 package com.google.zxing.common;
 
+import com.google.zxing.BinaryBitmap;
 import com.google.zxing.NotFoundException;
 
 /**
@@ -101,6 +102,53 @@ public abstract class GridSampler {
                                        int dimensionY,
                                        PerspectiveTransform transform) throws NotFoundException;
 
+  /**
+   * Like {@link #sampleGrid(BitMatrix, int, int, PerspectiveTransform)}, but first asks the bitmap
+   * to binarize only the region which the sampled points fall in.
+   *
+   * @param image image to sample
+   * @param dimensionX width of {@link BitMatrix} to sample from image
+   * @param dimensionY height of {@link BitMatrix} to sample from image
+   * @param transform transformation from the grid to the image
+   * @return {@link BitMatrix} representing a grid of points sampled from the image
+   * @throws NotFoundException if image can't be binarized or sampled
+   * @see BinaryBitmap#getBlackMatrix(int, int, int, int)
+   */
+  public BitMatrix sampleGrid(BinaryBitmap image,
+                              int dimensionX,
+                              int dimensionY,
+                              PerspectiveTransform transform) throws NotFoundException {
+    if (dimensionX <= 0 || dimensionY <= 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int left = width - 1;
+    int top = height - 1;
+    int right = 0;
+    int bottom = 0;
+    float[] points = new float[2 * dimensionX];
+    for (int y = 0; y < dimensionY; y++) {
+      float iValue = y + 0.5f;
+      for (int x = 0; x < points.length; x += 2) {
+        points[x] = (float) (x / 2) + 0.5f;
+        points[x + 1] = iValue;
+      }
+      transform.transformPoints(points);
+      for (int x = 0; x < points.length; x += 2) {
+        // Points a little outside are nudged onto the edge; those further out fail sampling anyway
+        int pointX = Math.max(0, Math.min(width - 1, (int) points[x]));
+        int pointY = Math.max(0, Math.min(height - 1, (int) points[x + 1]));
+        left = Math.min(left, pointX);
+        top = Math.min(top, pointY);
+        right = Math.max(right, pointX);
+        bottom = Math.max(bottom, pointY);
+      }
+    }
+    BitMatrix matrix = image.getBlackMatrix(left, top, right - left + 1, bottom - top + 1);
+    return sampleGrid(matrix, dimensionX, dimensionY, transform);
+  }
+
   /**
    * <p>Checks a set of points that have been transformed to sample points on an image against
    * the image's dimensions to see if the point are even within the image.</p>
@@ -41,11 +41,11 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
 
   // This class uses 5x5 blocks to compute local luminance, where each block is 8x8 pixels.
   // So this is the smallest dimension in each axis we can accept.
-  private static final int BLOCK_SIZE_POWER = 3;
-  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER; // ...0100...00
+  static final int BLOCK_SIZE_POWER = 3;
+  static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER; // ...0100...00
   private static final int BLOCK_SIZE_MASK = BLOCK_SIZE - 1;   // ...0011...11
-  private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
-  private static final int MIN_DYNAMIC_RANGE = 24;
+  static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
+  static final int MIN_DYNAMIC_RANGE = 24;
 
   private BitMatrix matrix;
 
@@ -53,6 +53,15 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     super(source);
   }
 
+  /**
+   * @param source luminance data to binarize
+   * @param workspace buffers to use instead of allocating new ones; see {@link BinarizerWorkspace}
+   *  for the restrictions this implies
+   */
+  public HybridBinarizer(LuminanceSource source, BinarizerWorkspace workspace) {
+    super(source, workspace);
+  }
+
   /**
    * Calculates the final BitMatrix once for all requests. This could be called once from the
    * constructor instead, but there are some advantages to doing it lazily, such as making
@@ -67,7 +76,8 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     int width = source.getWidth();
     int height = source.getHeight();
     if (width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
-      byte[] luminances = source.getMatrix();
+      BinarizerWorkspace workspace = getWorkspace();
+      byte[] luminances = workspace == null ? source.getMatrix() : workspace.getLuminances(source);
       int subWidth = width >> BLOCK_SIZE_POWER;
       if ((width & BLOCK_SIZE_MASK) != 0) {
         subWidth++;
@@ -76,10 +86,12 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
       if ((height & BLOCK_SIZE_MASK) != 0) {
         subHeight++;
       }
-      int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
+      int[][] blackPoints =
+          workspace == null ? new int[subHeight][subWidth] : workspace.getBlackPoints(subWidth, subHeight);
+      calculateBlackPoints(luminances, subWidth, subHeight, width, height, blackPoints);
 
-      BitMatrix newMatrix = new BitMatrix(width, height);
-      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, newMatrix);
+      BitMatrix newMatrix = workspace == null ? new BitMatrix(width, height) : workspace.getMatrix(width, height);
+      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, 0, subHeight, newMatrix);
       matrix = newMatrix;
     } else {
       // If the image is too small, fall back to the global histogram approach.
@@ -97,15 +109,18 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
    * For each block in the image, calculate the average black point using a 5x5 grid
    * of the blocks around it. Also handles the corner cases (fractional blocks are computed based
    * on the last pixels in the row/column which are also used in the previous block).
+   * Only rows of blocks from fromY (inclusive) to toY (exclusive) are thresholded.
    */
-  private static void calculateThresholdForBlock(byte[] luminances,
-                                                 int subWidth,
-                                                 int subHeight,
-                                                 int width,
-                                                 int height,
-                                                 int[][] blackPoints,
-                                                 BitMatrix matrix) {
-    for (int y = 0; y < subHeight; y++) {
+  static void calculateThresholdForBlock(byte[] luminances,
+                                         int subWidth,
+                                         int subHeight,
+                                         int width,
+                                         int height,
+                                         int[][] blackPoints,
+                                         int fromY,
+                                         int toY,
+                                         BitMatrix matrix) {
+    for (int y = fromY; y < toY; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       int maxYOffset = height - BLOCK_SIZE;
       if (yoffset > maxYOffset) {
@@ -144,12 +159,8 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
                                      int stride,
                                      BitMatrix matrix) {
     for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
-      for (int x = 0; x < BLOCK_SIZE; x++) {
-        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
-        if ((luminances[offset + x] & 0xFF) <= threshold) {
-          matrix.set(xoffset + x, yoffset + y);
-        }
-      }
+      // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
+      matrix.setBelowThreshold(xoffset, yoffset + y, luminances, offset, BLOCK_SIZE, threshold);
     }
   }
 
@@ -158,12 +169,12 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
    * See the following thread for a discussion of this algorithm:
    *  http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
    */
-  private static int[][] calculateBlackPoints(byte[] luminances,
-                                              int subWidth,
-                                              int subHeight,
-                                              int width,
-                                              int height) {
-    int[][] blackPoints = new int[subHeight][subWidth];
+  private static void calculateBlackPoints(byte[] luminances,
+                                           int subWidth,
+                                           int subHeight,
+                                           int width,
+                                           int height,
+                                           int[][] blackPoints) {
     for (int y = 0; y < subHeight; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       int maxYOffset = height - BLOCK_SIZE;
@@ -231,7 +242,6 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
         blackPoints[y][x] = average;
       }
     }
-    return blackPoints;
   }
 
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>A variant of {@link HybridBinarizer} organized for large images. It computes the same local
+ * thresholds, and with the default block size of 8 pixels the same {@link BitMatrix}, but:</p>
+ *
+ * <ul>
+ * <li>block statistics are gathered in one pass over the luminance data in row order, rather
+ * than block by block, which is friendlier to the cache on wide images</li>
+ * <li>black points live in one flat array, and the 5x5 neighborhood average for each block comes
+ * from a summed-area table over them in constant time, rather than from 25 lookups</li>
+ * <li>the luminance data is read one row at a time with {@link LuminanceSource#getRow(int, byte[])},
+ * in two passes, and never copied as a whole with {@link LuminanceSource#getMatrix()}. Sources
+ * which would have to copy data onto the heap, like
+ * {@link com.google.zxing.ByteBufferLuminanceSource}, only copy a row at a time</li>
+ * <li>the block size can be configured</li>
+ * </ul>
+ *
+ * <p>As with HybridBinarizer, 1D rows use the global histogram approach.</p>
+ *
+ * @see HybridBinarizer
+ */
+public final class IntegralImageBinarizer extends GlobalHistogramBinarizer {
+
+  private static final int DEFAULT_BLOCK_SIZE_POWER = 3;
+  private static final int MAX_BLOCK_SIZE_POWER = 8;
+  private static final int MIN_DYNAMIC_RANGE = 24;
+
+  private final int blockSizePower;
+  private BitMatrix matrix;
+
+  public IntegralImageBinarizer(LuminanceSource source) {
+    this(source, DEFAULT_BLOCK_SIZE_POWER);
+  }
+
+  /**
+   * @param source luminance data to binarize
+   * @param blockSizePower block width and height, as a power of 2, from 1 to 8
+   */
+  public IntegralImageBinarizer(LuminanceSource source, int blockSizePower) {
+    super(source);
+    if (blockSizePower < 1 || blockSizePower > MAX_BLOCK_SIZE_POWER) {
+      throw new IllegalArgumentException("Block size power must be between 1 and " + MAX_BLOCK_SIZE_POWER);
+    }
+    this.blockSizePower = blockSizePower;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (matrix != null) {
+      return matrix;
+    }
+    LuminanceSource source = getLuminanceSource();
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int blockSize = 1 << blockSizePower;
+    // Like HybridBinarizer, needs 5x5 blocks at least
+    if (width >= blockSize * 5 && height >= blockSize * 5) {
+      int subWidth = (width + blockSize - 1) >> blockSizePower;
+      int subHeight = (height + blockSize - 1) >> blockSizePower;
+      byte[] row = new byte[width];
+      int[] blackPoints = calculateBlackPoints(source, row, subWidth, subHeight, width, height);
+      int[] thresholds = calculateThresholds(blackPoints, subWidth, subHeight);
+      BitMatrix newMatrix = new BitMatrix(width, height);
+      applyThresholds(source, row, thresholds, subWidth, subHeight, width, height, newMatrix);
+      matrix = newMatrix;
+    } else {
+      // If the image is too small, fall back to the global histogram approach.
+      matrix = super.getBlackMatrix();
+    }
+    return matrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new IntegralImageBinarizer(source, blockSizePower);
+  }
+
+  /**
+   * Computes the sum, min and max of each block in one pass over the rows, then derives each
+   * block's black point exactly as {@link HybridBinarizer} does. As there, a partial last block
+   * in a row or column is instead aligned with the image edge, overlapping the one before it, so
+   * pixels near the right and bottom edges may count towards two blocks in each direction.
+   */
+  private int[] calculateBlackPoints(LuminanceSource source, byte[] row,
+                                     int subWidth, int subHeight, int width, int height) {
+    int blockSize = 1 << blockSizePower;
+    int lastBlockX = subWidth - 1;
+    int lastBlockY = subHeight - 1;
+    int lastBlockLeft = width - blockSize;
+    int lastBlockTop = height - blockSize;
+
+    int numBlocks = subWidth * subHeight;
+    int[] sums = new int[numBlocks];
+    int[] mins = new int[numBlocks];
+    int[] maxes = new int[numBlocks];
+    for (int i = 0; i < numBlocks; i++) {
+      mins[i] = 0xFF;
+    }
+    int[] rowSums = new int[subWidth];
+    int[] rowMins = new int[subWidth];
+    int[] rowMaxes = new int[subWidth];
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < subWidth; x++) {
+        rowSums[x] = 0;
+        rowMins[x] = 0xFF;
+        rowMaxes[x] = 0;
+      }
+      byte[] luminances = source.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int pixel = luminances[x] & 0xFF;
+        int blockX = x >> blockSizePower;
+        accumulate(rowSums, rowMins, rowMaxes, blockX, pixel);
+        if (x >= lastBlockLeft && blockX != lastBlockX) {
+          accumulate(rowSums, rowMins, rowMaxes, lastBlockX, pixel);
+        }
+      }
+      int blockY = y >> blockSizePower;
+      merge(sums, mins, maxes, blockY * subWidth, rowSums, rowMins, rowMaxes);
+      if (y >= lastBlockTop && blockY != lastBlockY) {
+        merge(sums, mins, maxes, lastBlockY * subWidth, rowSums, rowMins, rowMaxes);
+      }
+    }
+
+    int[] blackPoints = sums;
+    for (int y = 0; y < subHeight; y++) {
+      for (int x = 0; x < subWidth; x++) {
+        int i = y * subWidth + x;
+        int min = mins[i];
+        // The default estimate is the average of the values in the block.
+        int average = sums[i] >> (blockSizePower * 2);
+        if (maxes[i] - min <= MIN_DYNAMIC_RANGE) {
+          // Low contrast: see HybridBinarizer for the reasoning here
+          average = min / 2;
+          if (y > 0 && x > 0) {
+            int averageNeighborBlackPoint =
+                (blackPoints[i - subWidth] + (2 * blackPoints[i - 1]) + blackPoints[i - subWidth - 1]) / 4;
+            if (min < averageNeighborBlackPoint) {
+              average = averageNeighborBlackPoint;
+            }
+          }
+        }
+        // Overwrites the block's sum, which is no longer needed
+        blackPoints[i] = average;
+      }
+    }
+    return blackPoints;
+  }
+
+  private static void accumulate(int[] sums, int[] mins, int[] maxes, int i, int pixel) {
+    sums[i] += pixel;
+    if (pixel < mins[i]) {
+      mins[i] = pixel;
+    }
+    if (pixel > maxes[i]) {
+      maxes[i] = pixel;
+    }
+  }
+
+  private static void merge(int[] sums, int[] mins, int[] maxes, int offset,
+                            int[] rowSums, int[] rowMins, int[] rowMaxes) {
+    for (int x = 0; x < rowSums.length; x++) {
+      int i = offset + x;
+      sums[i] += rowSums[x];
+      if (rowMins[x] < mins[i]) {
+        mins[i] = rowMins[x];
+      }
+      if (rowMaxes[x] > maxes[i]) {
+        maxes[i] = rowMaxes[x];
+      }
+    }
+  }
+
+  /**
+   * For each block, averages the black points of the 5x5 blocks around it, moved inwards at the
+   * edges as in {@link HybridBinarizer}, using a summed-area table over the black points.
+   */
+  private static int[] calculateThresholds(int[] blackPoints, int subWidth, int subHeight) {
+    // table[(y + 1) * tableWidth + (x + 1)] holds the sum of blackPoints over [0,x] x [0,y]
+    int tableWidth = subWidth + 1;
+    int[] table = new int[tableWidth * (subHeight + 1)];
+    for (int y = 0; y < subHeight; y++) {
+      int rowSum = 0;
+      int tableOffset = (y + 1) * tableWidth;
+      for (int x = 0; x < subWidth; x++) {
+        rowSum += blackPoints[y * subWidth + x];
+        table[tableOffset + x + 1] = table[tableOffset - tableWidth + x + 1] + rowSum;
+      }
+    }
+
+    int[] thresholds = new int[subWidth * subHeight];
+    for (int y = 0; y < subHeight; y++) {
+      int top = cap(y, 2, subHeight - 3) - 2;
+      int bottom = top + 5;
+      for (int x = 0; x < subWidth; x++) {
+        int left = cap(x, 2, subWidth - 3) - 2;
+        int right = left + 5;
+        int sum = table[bottom * tableWidth + right] - table[top * tableWidth + right] -
+            table[bottom * tableWidth + left] + table[top * tableWidth + left];
+        thresholds[y * subWidth + x] = sum / 25;
+      }
+    }
+    return thresholds;
+  }
+
+  private static int cap(int value, int min, int max) {
+    return value < min ? min : value > max ? max : value;
+  }
+
+  /**
+   * Thresholds the image in row order. A pixel covered by two overlapping edge blocks is black if
+   * it is at or below the threshold of either.
+   */
+  private void applyThresholds(LuminanceSource source, byte[] row, int[] thresholds, int subWidth, int subHeight,
+                               int width, int height, BitMatrix matrix) {
+    int blockSize = 1 << blockSizePower;
+    int lastBlockY = subHeight - 1;
+    int lastBlockLeft = width - blockSize;
+    int lastBlockTop = height - blockSize;
+    int[] rowThresholds = new int[subWidth];
+
+    for (int y = 0; y < height; y++) {
+      int blockY = y >> blockSizePower;
+      System.arraycopy(thresholds, blockY * subWidth, rowThresholds, 0, subWidth);
+      if (y >= lastBlockTop && blockY != lastBlockY) {
+        int lastRowOffset = lastBlockY * subWidth;
+        for (int x = 0; x < subWidth; x++) {
+          rowThresholds[x] = Math.max(rowThresholds[x], thresholds[lastRowOffset + x]);
+        }
+      }
+      byte[] luminances = source.getRow(y, row);
+      for (int x = 0; x < subWidth; x++) {
+        // The last block overlaps the one before it when the width isn't a multiple of blockSize
+        int xoffset = Math.min(x << blockSizePower, lastBlockLeft);
+        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
+        matrix.setBelowThreshold(xoffset, y, luminances, xoffset, blockSize, rowThresholds[x]);
+      }
+    }
+  }
+
+}
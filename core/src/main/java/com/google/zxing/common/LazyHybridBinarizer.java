@@ -0,0 +1,334 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>Computes the same {@link BitMatrix} as {@link HybridBinarizer}, but only where it is asked
+ * for. {@link #getBlackMatrix(int, int, int, int)} fills in just the 32x32 pixel tiles which cover
+ * a region, and reads only the rows of luminance data those need. Detectors which work outwards
+ * from a point, like the Data Matrix {@link com.google.zxing.datamatrix.detector.Detector}, ask
+ * {@link com.google.zxing.BinaryBitmap#getBlackMatrix(int, int, int, int)} for each part of the
+ * image as they come to it, and {@link GridSampler} asks for the part a grid covers, so in an image
+ * which is mostly background, most tiles are never computed. {@link #getBlackMatrix()} fills in the
+ * rest, and returns the whole matrix as {@link HybridBinarizer} would; the QR Code detector, which
+ * looks for finder patterns across the whole image, needs that.</p>
+ *
+ * <p>Black points are likewise computed per 8x8 block only when needed. The black point of a
+ * low-contrast block depends on those of the blocks above and to its left, so computing one may
+ * mean computing a chain of others up and to the left of it; on a smooth background, that chain
+ * can reach the top left of the image. Those blocks are measured, but their tiles aren't
+ * filled in.</p>
+ *
+ * <p>The same matrix is returned every time, filled in further as needed; it should not be
+ * changed until the parts of it which will be used have been filled in. Tiles are filled one at a
+ * time, so several threads may ask for regions.</p>
+ *
+ * @see HybridBinarizer
+ */
+public final class LazyHybridBinarizer extends GlobalHistogramBinarizer {
+
+  private static final int TILE_SIZE_POWER = 5;
+
+  private BitMatrix matrix;
+  private Tiles tiles;
+
+  public LazyHybridBinarizer(LuminanceSource source) {
+    super(source);
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    LuminanceSource source = getLuminanceSource();
+    return getBlackMatrix(0, 0, source.getWidth(), source.getHeight());
+  }
+
+  @Override
+  public boolean isRegionSupported() {
+    return true;
+  }
+
+  /**
+   * @param left left edge of the region needed
+   * @param top top edge of the region needed
+   * @param width width of the region needed
+   * @param height height of the region needed
+   * @return the matrix, filled in at least within the region; bits not yet filled in are unset
+   * @throws NotFoundException if the image is too small and {@link GlobalHistogramBinarizer} finds
+   *  nothing in it
+   */
+  @Override
+  public synchronized BitMatrix getBlackMatrix(int left, int top, int width, int height) throws NotFoundException {
+    if (matrix == null) {
+      LuminanceSource source = getLuminanceSource();
+      int sourceWidth = source.getWidth();
+      int sourceHeight = source.getHeight();
+      if (sourceWidth >= HybridBinarizer.MINIMUM_DIMENSION && sourceHeight >= HybridBinarizer.MINIMUM_DIMENSION) {
+        matrix = new BitMatrix(sourceWidth, sourceHeight);
+        tiles = new Tiles(source);
+      } else {
+        // If the image is too small, fall back to the global histogram approach, all at once
+        matrix = super.getBlackMatrix();
+      }
+    }
+    if (tiles != null) {
+      if (left < 0 || top < 0 || width < 1 || height < 1 ||
+          left + width > matrix.getWidth() || top + height > matrix.getHeight()) {
+        throw new IllegalArgumentException("The region must fit inside the matrix");
+      }
+      int lastTileX = (left + width - 1) >> TILE_SIZE_POWER;
+      int lastTileY = (top + height - 1) >> TILE_SIZE_POWER;
+      for (int tileY = top >> TILE_SIZE_POWER; tileY <= lastTileY; tileY++) {
+        for (int tileX = left >> TILE_SIZE_POWER; tileX <= lastTileX; tileX++) {
+          tiles.fill(matrix, tileX, tileY);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new LazyHybridBinarizer(source);
+  }
+
+  /**
+   * Fills in tiles from black points and thresholds which are computed and remembered per block
+   * as needed, one tile at a time.
+   */
+  private static final class Tiles {
+
+    private static final int UNKNOWN = 0;
+    // Average and minimum are known; a low-contrast block may still need its neighbors
+    private static final int MEASURED = 1;
+    private static final int DONE = 2;
+
+    private final LuminanceSource source;
+    private final int width;
+    private final int height;
+    private final int subWidth;
+    private final int subHeight;
+    // Rows of luminance data, read as needed
+    private final byte[][] rows;
+    private final byte[] blackPointStates;
+    private final int[] blackPoints;
+    // Minimum luminance of each low-contrast block, or -1 for a block with enough contrast
+    private final int[] lowContrastMins;
+    // Threshold of each block, or -1 if not yet computed
+    private final int[] thresholds;
+    private final int[] pending;
+    private final int tilesWide;
+    private final boolean[] filled;
+
+    Tiles(LuminanceSource source) {
+      this.source = source;
+      width = source.getWidth();
+      height = source.getHeight();
+      rows = new byte[height][];
+      subWidth = (width + HybridBinarizer.BLOCK_SIZE - 1) >> HybridBinarizer.BLOCK_SIZE_POWER;
+      subHeight = (height + HybridBinarizer.BLOCK_SIZE - 1) >> HybridBinarizer.BLOCK_SIZE_POWER;
+      int numBlocks = subWidth * subHeight;
+      blackPointStates = new byte[numBlocks];
+      blackPoints = new int[numBlocks];
+      lowContrastMins = new int[numBlocks];
+      thresholds = new int[numBlocks];
+      for (int i = 0; i < numBlocks; i++) {
+        thresholds[i] = -1;
+      }
+      // Each block waits on one up or to the left of it, so no chain is longer than this
+      pending = new int[subWidth + subHeight];
+      tilesWide = (width + (1 << TILE_SIZE_POWER) - 1) >> TILE_SIZE_POWER;
+      filled = new boolean[tilesWide * ((height + (1 << TILE_SIZE_POWER) - 1) >> TILE_SIZE_POWER)];
+    }
+
+    /**
+     * Sets the bits of one tile of the matrix which should be set, unless it has been filled in
+     * already.
+     */
+    void fill(BitMatrix matrix, int tileX, int tileY) {
+      int tile = tileY * tilesWide + tileX;
+      if (filled[tile]) {
+        return;
+      }
+      filled[tile] = true;
+      int left = tileX << TILE_SIZE_POWER;
+      int top = tileY << TILE_SIZE_POWER;
+      int width = Math.min(1 << TILE_SIZE_POWER, this.width - left);
+      int height = Math.min(1 << TILE_SIZE_POWER, this.height - top);
+      int right = left + width;
+      int blockSizePower = HybridBinarizer.BLOCK_SIZE_POWER;
+      int blockSize = HybridBinarizer.BLOCK_SIZE;
+      int lastBlockX = subWidth - 1;
+      int lastBlockY = subHeight - 1;
+      int lastBlockLeft = this.width - blockSize;
+      int lastBlockTop = this.height - blockSize;
+      int firstBlockX = left >> blockSizePower;
+      int endBlockX = ((right - 1) >> blockSizePower) + 1;
+      // The last block overlaps the one before it when the width isn't a multiple of the block size,
+      // and may cover pixels of this tile even if the tile doesn't reach the last block
+      boolean extraLastBlockX = right > lastBlockLeft && endBlockX <= lastBlockX;
+      for (int y = top; y < top + height; y++) {
+        int blockY = y >> blockSizePower;
+        int extraBlockY = y >= lastBlockTop && blockY != lastBlockY ? lastBlockY : -1;
+        for (int x = firstBlockX; x < endBlockX; x++) {
+          thresholdSegment(matrix, x, blockY, extraBlockY, left, right, y);
+        }
+        if (extraLastBlockX) {
+          thresholdSegment(matrix, lastBlockX, blockY, extraBlockY, left, right, y);
+        }
+      }
+    }
+
+    /**
+     * Thresholds the part of one block's row which is inside the tile. A pixel covered by two
+     * overlapping edge blocks is black if it is at or below the threshold of either.
+     */
+    private void thresholdSegment(BitMatrix matrix, int blockX, int blockY, int extraBlockY,
+                                  int left, int right, int y) {
+      int xoffset = Math.min(blockX << HybridBinarizer.BLOCK_SIZE_POWER, width - HybridBinarizer.BLOCK_SIZE);
+      int from = Math.max(left, xoffset);
+      int to = Math.min(right, xoffset + HybridBinarizer.BLOCK_SIZE);
+      if (from >= to) {
+        return;
+      }
+      int threshold = getThreshold(blockX, blockY);
+      if (extraBlockY >= 0) {
+        threshold = Math.max(threshold, getThreshold(blockX, extraBlockY));
+      }
+      matrix.setBelowThreshold(from, y, getRow(y), from, to - from, threshold);
+    }
+
+    /**
+     * @return average of the black points of the 5x5 blocks around a block, moved inwards at the
+     *  edges, as in {@code HybridBinarizer.calculateThresholdForBlock()}
+     */
+    private int getThreshold(int x, int y) {
+      int i = y * subWidth + x;
+      int threshold = thresholds[i];
+      if (threshold < 0) {
+        int left = cap(x, 2, subWidth - 3);
+        int top = cap(y, 2, subHeight - 3);
+        int sum = 0;
+        for (int z = -2; z <= 2; z++) {
+          for (int w = -2; w <= 2; w++) {
+            sum += getBlackPoint(left + w, top + z);
+          }
+        }
+        threshold = sum / 25;
+        thresholds[i] = threshold;
+      }
+      return threshold;
+    }
+
+    private static int cap(int value, int min, int max) {
+      return value < min ? min : value > max ? max : value;
+    }
+
+    /**
+     * @return black point of a block, as in {@code HybridBinarizer.calculateBlackPoints()}. Blocks
+     *  whose black point depends on others not yet done are kept on a stack until those are.
+     */
+    private int getBlackPoint(int x, int y) {
+      int i = y * subWidth + x;
+      if (blackPointStates[i] == DONE) {
+        return blackPoints[i];
+      }
+      int numPending = 0;
+      pending[numPending++] = i;
+      while (numPending > 0) {
+        int j = pending[numPending - 1];
+        if (blackPointStates[j] == UNKNOWN) {
+          measure(j);
+        }
+        int min = lowContrastMins[j];
+        if (min < 0) {
+          blackPointStates[j] = DONE;
+          numPending--;
+          continue;
+        }
+        int average = min / 2;
+        if (j >= subWidth && j % subWidth > 0) {
+          int waitingOn = firstNotDone(j - subWidth, j - 1, j - subWidth - 1);
+          if (waitingOn >= 0) {
+            pending[numPending++] = waitingOn;
+            continue;
+          }
+          int averageNeighborBlackPoint =
+              (blackPoints[j - subWidth] + (2 * blackPoints[j - 1]) + blackPoints[j - subWidth - 1]) / 4;
+          if (min < averageNeighborBlackPoint) {
+            average = averageNeighborBlackPoint;
+          }
+        }
+        blackPoints[j] = average;
+        blackPointStates[j] = DONE;
+        numPending--;
+      }
+      return blackPoints[i];
+    }
+
+    private int firstNotDone(int up, int left, int upLeft) {
+      if (blackPointStates[up] != DONE) {
+        return up;
+      }
+      if (blackPointStates[left] != DONE) {
+        return left;
+      }
+      return blackPointStates[upLeft] != DONE ? upLeft : -1;
+    }
+
+    /**
+     * Computes the average, minimum and maximum luminance of one block.
+     */
+    private void measure(int i) {
+      int blockSize = HybridBinarizer.BLOCK_SIZE;
+      int yoffset = Math.min((i / subWidth) << HybridBinarizer.BLOCK_SIZE_POWER, height - blockSize);
+      int xoffset = Math.min((i % subWidth) << HybridBinarizer.BLOCK_SIZE_POWER, width - blockSize);
+      int sum = 0;
+      int min = 0xFF;
+      int max = 0;
+      for (int yy = 0; yy < blockSize; yy++) {
+        byte[] row = getRow(yoffset + yy);
+        for (int xx = 0; xx < blockSize; xx++) {
+          int pixel = row[xoffset + xx] & 0xFF;
+          sum += pixel;
+          if (pixel < min) {
+            min = pixel;
+          }
+          if (pixel > max) {
+            max = pixel;
+          }
+        }
+      }
+      blackPoints[i] = sum >> (HybridBinarizer.BLOCK_SIZE_POWER * 2);
+      lowContrastMins[i] = max - min <= HybridBinarizer.MIN_DYNAMIC_RANGE ? min : -1;
+      blackPointStates[i] = MEASURED;
+    }
+
+    private byte[] getRow(int y) {
+      byte[] row = rows[y];
+      if (row == null) {
+        row = source.getRow(y, null);
+        rows[y] = row;
+      }
+      return row;
+    }
+  }
+
+}
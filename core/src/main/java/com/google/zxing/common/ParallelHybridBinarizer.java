@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>Computes exactly the same {@link BitMatrix} as {@link HybridBinarizer}, but splits the work
+ * across the threads of a {@link ForkJoinPool}. This is worthwhile for very large images, of tens
+ * of megapixels; for ordinary camera frames the overhead of splitting the work isn't.</p>
+ *
+ * <p>The image is divided into horizontal strips of whole 8-pixel blocks, and binarized in three
+ * steps:</p>
+ *
+ * <ol>
+ * <li>In parallel, each strip computes the average, minimum and maximum luminance of its
+ * blocks.</li>
+ * <li>On the calling thread, black points are finalized. HybridBinarizer estimates the black
+ * point of a low-contrast block from its already-computed neighbors above and to the left, which
+ * is inherently sequential, but this step only touches one value per block.</li>
+ * <li>In parallel, each strip thresholds its blocks, reading black points from two block rows
+ * above and below the strip as a halo, and writes its own rows of the matrix.</li>
+ * </ol>
+ *
+ * <p>The pool is not shut down by this class.</p>
+ *
+ * @see HybridBinarizer
+ */
+public final class ParallelHybridBinarizer extends GlobalHistogramBinarizer {
+
+  // Fewer rows of blocks than this are not worth handing to another thread
+  private static final int MIN_BLOCK_ROWS_PER_TASK = 8;
+
+  private final ForkJoinPool pool;
+  private BitMatrix matrix;
+
+  /**
+   * @param source luminance data to binarize
+   * @param pool pool on which to run; not shut down by this class
+   */
+  public ParallelHybridBinarizer(LuminanceSource source, ForkJoinPool pool) {
+    super(source);
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool must be non-null.");
+    }
+    this.pool = pool;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (matrix != null) {
+      return matrix;
+    }
+    LuminanceSource source = getLuminanceSource();
+    int width = source.getWidth();
+    int height = source.getHeight();
+    if (width >= HybridBinarizer.MINIMUM_DIMENSION && height >= HybridBinarizer.MINIMUM_DIMENSION) {
+      byte[] luminances = source.getMatrix();
+      int subWidth = (width + HybridBinarizer.BLOCK_SIZE - 1) >> HybridBinarizer.BLOCK_SIZE_POWER;
+      int subHeight = (height + HybridBinarizer.BLOCK_SIZE - 1) >> HybridBinarizer.BLOCK_SIZE_POWER;
+      Blocks blocks = new Blocks(luminances, subWidth, subHeight, width, height);
+      pool.invoke(new StatisticsTask(blocks, 0, subHeight));
+      blocks.finishBlackPoints();
+      BitMatrix newMatrix = new BitMatrix(width, height);
+      pool.invoke(new ThresholdTask(blocks, 0, subHeight, newMatrix));
+      matrix = newMatrix;
+    } else {
+      // If the image is too small, fall back to the global histogram approach.
+      matrix = super.getBlackMatrix();
+    }
+    return matrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new ParallelHybridBinarizer(source, pool);
+  }
+
+  /**
+   * Image data and per-block results shared by all tasks. Each task only writes the rows of
+   * blocks it was given.
+   */
+  private static final class Blocks {
+
+    private final byte[] luminances;
+    private final int subWidth;
+    private final int subHeight;
+    private final int width;
+    private final int height;
+    private final int[][] blackPoints;
+    // Minimum luminance of each low-contrast block, or -1 for a block with enough contrast
+    private final int[][] lowContrastMins;
+
+    Blocks(byte[] luminances, int subWidth, int subHeight, int width, int height) {
+      this.luminances = luminances;
+      this.subWidth = subWidth;
+      this.subHeight = subHeight;
+      this.width = width;
+      this.height = height;
+      blackPoints = new int[subHeight][subWidth];
+      lowContrastMins = new int[subHeight][subWidth];
+    }
+
+    /**
+     * Same as the first part of {@code HybridBinarizer.calculateBlackPoints()}, up to the point
+     * where neighboring black points are needed.
+     */
+    void calculateStatistics(int fromY, int toY) {
+      int blockSize = HybridBinarizer.BLOCK_SIZE;
+      for (int y = fromY; y < toY; y++) {
+        int yoffset = Math.min(y << HybridBinarizer.BLOCK_SIZE_POWER, height - blockSize);
+        for (int x = 0; x < subWidth; x++) {
+          int xoffset = Math.min(x << HybridBinarizer.BLOCK_SIZE_POWER, width - blockSize);
+          int sum = 0;
+          int min = 0xFF;
+          int max = 0;
+          for (int yy = 0, offset = yoffset * width + xoffset; yy < blockSize; yy++, offset += width) {
+            for (int xx = 0; xx < blockSize; xx++) {
+              int pixel = luminances[offset + xx] & 0xFF;
+              sum += pixel;
+              if (pixel < min) {
+                min = pixel;
+              }
+              if (pixel > max) {
+                max = pixel;
+              }
+            }
+          }
+          blackPoints[y][x] = sum >> (HybridBinarizer.BLOCK_SIZE_POWER * 2);
+          lowContrastMins[y][x] = max - min <= HybridBinarizer.MIN_DYNAMIC_RANGE ? min : -1;
+        }
+      }
+    }
+
+    /**
+     * Replaces the black points of low-contrast blocks, in order, as in
+     * {@code HybridBinarizer.calculateBlackPoints()}.
+     */
+    void finishBlackPoints() {
+      for (int y = 0; y < subHeight; y++) {
+        for (int x = 0; x < subWidth; x++) {
+          int min = lowContrastMins[y][x];
+          if (min >= 0) {
+            int average = min / 2;
+            if (y > 0 && x > 0) {
+              int averageNeighborBlackPoint =
+                  (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+              if (min < averageNeighborBlackPoint) {
+                average = averageNeighborBlackPoint;
+              }
+            }
+            blackPoints[y][x] = average;
+          }
+        }
+      }
+    }
+
+    void threshold(int fromY, int toY, BitMatrix matrix) {
+      HybridBinarizer.calculateThresholdForBlock(
+          luminances, subWidth, subHeight, width, height, blackPoints, fromY, toY, matrix);
+    }
+
+    /**
+     * @return where to split a range of block rows between two tasks. The last row of blocks is
+     *  moved up to overlap the one before it when the height isn't a multiple of the block size,
+     *  so those two are kept together; otherwise both tasks would write the same matrix rows.
+     */
+    int split(int fromY, int toY) {
+      int mid = (fromY + toY) >>> 1;
+      if (mid == subHeight - 1) {
+        mid--;
+      }
+      return mid;
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static final class StatisticsTask extends RecursiveAction {
+
+    private final Blocks blocks;
+    private final int fromY;
+    private final int toY;
+
+    StatisticsTask(Blocks blocks, int fromY, int toY) {
+      this.blocks = blocks;
+      this.fromY = fromY;
+      this.toY = toY;
+    }
+
+    @Override
+    protected void compute() {
+      if (toY - fromY <= MIN_BLOCK_ROWS_PER_TASK) {
+        blocks.calculateStatistics(fromY, toY);
+      } else {
+        int mid = blocks.split(fromY, toY);
+        invokeAll(new StatisticsTask(blocks, fromY, mid), new StatisticsTask(blocks, mid, toY));
+      }
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static final class ThresholdTask extends RecursiveAction {
+
+    private final Blocks blocks;
+    private final int fromY;
+    private final int toY;
+    private final BitMatrix matrix;
+
+    ThresholdTask(Blocks blocks, int fromY, int toY, BitMatrix matrix) {
+      this.blocks = blocks;
+      this.fromY = fromY;
+      this.toY = toY;
+      this.matrix = matrix;
+    }
+
+    @Override
+    protected void compute() {
+      if (toY - fromY <= MIN_BLOCK_ROWS_PER_TASK) {
+        blocks.threshold(fromY, toY, matrix);
+      } else {
+        int mid = blocks.split(fromY, toY);
+        invokeAll(new ThresholdTask(blocks, fromY, mid, matrix), new ThresholdTask(blocks, mid, toY, matrix));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.detector;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Finds regions of an image which might hold a barcode, as clusters of black. The matrix is
+ * divided into square cells, and cells with any black in them which touch, or nearly touch, are
+ * grouped. This is cheap, and useful to decide where slower detectors, which only look for one
+ * symbol near the middle of what they are given, should look.</p>
+ */
+public final class BlackRegionFinder {
+
+  private BlackRegionFinder() {
+  }
+
+  /**
+   * Finds clusters of black in the matrix.
+   *
+   * @param matrix matrix to search
+   * @param cellSize size in pixels of the square cells the matrix is divided into
+   * @param minRegionCells fewest cells wide and high a region must be to be returned
+   * @return bounding boxes of clusters, as left, top, right (exclusive) and bottom (exclusive), in
+   *  pixels; never the whole matrix
+   */
+  public static List<int[]> findRegions(BitMatrix matrix, int cellSize, int minRegionCells) {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    int cellsWide = (width + cellSize - 1) / cellSize;
+    int cellsHigh = (height + cellSize - 1) / cellSize;
+    boolean[] black = new boolean[cellsWide * cellsHigh];
+    BitArray row = new BitArray(width);
+    for (int y = 0; y < height; y++) {
+      row = matrix.getRow(y, row);
+      int offset = (y / cellSize) * cellsWide;
+      for (int x = row.getNextSet(0); x < width; x = row.getNextSet(x + 1)) {
+        black[offset + x / cellSize] = true;
+      }
+    }
+
+    // Flood fill 8-connected cells, in cell units
+    List<int[]> regions = new ArrayList<>();
+    boolean[] seen = new boolean[black.length];
+    int[] stack = new int[black.length];
+    for (int start = 0; start < black.length; start++) {
+      if (!black[start] || seen[start]) {
+        continue;
+      }
+      int[] region = {start % cellsWide, start / cellsWide, start % cellsWide, start / cellsWide};
+      int size = 0;
+      stack[size++] = start;
+      seen[start] = true;
+      while (size > 0) {
+        int cell = stack[--size];
+        int cellX = cell % cellsWide;
+        int cellY = cell / cellsWide;
+        region[0] = Math.min(region[0], cellX);
+        region[1] = Math.min(region[1], cellY);
+        region[2] = Math.max(region[2], cellX);
+        region[3] = Math.max(region[3], cellY);
+        for (int y = Math.max(0, cellY - 1); y <= Math.min(cellsHigh - 1, cellY + 1); y++) {
+          for (int x = Math.max(0, cellX - 1); x <= Math.min(cellsWide - 1, cellX + 1); x++) {
+            int neighbor = y * cellsWide + x;
+            if (black[neighbor] && !seen[neighbor]) {
+              seen[neighbor] = true;
+              stack[size++] = neighbor;
+            }
+          }
+        }
+      }
+      regions.add(region);
+    }
+
+    // A symbol with large white areas may have come apart; merge regions within a cell of each other
+    boolean merged = true;
+    while (merged) {
+      merged = false;
+      for (int i = 0; i < regions.size() && !merged; i++) {
+        int[] a = regions.get(i);
+        for (int j = i + 1; j < regions.size(); j++) {
+          int[] b = regions.get(j);
+          if (a[0] <= b[2] + 2 && b[0] <= a[2] + 2 && a[1] <= b[3] + 2 && b[1] <= a[3] + 2) {
+            a[0] = Math.min(a[0], b[0]);
+            a[1] = Math.min(a[1], b[1]);
+            a[2] = Math.max(a[2], b[2]);
+            a[3] = Math.max(a[3], b[3]);
+            regions.remove(j);
+            merged = true;
+            break;
+          }
+        }
+      }
+    }
+
+    List<int[]> candidates = new ArrayList<>();
+    for (int[] region : regions) {
+      // Too small to hold a symbol's modules, or else the whole image, which callers can try as it is
+      int regionWidth = region[2] - region[0] + 1;
+      int regionHeight = region[3] - region[1] + 1;
+      if (regionWidth < minRegionCells || regionHeight < minRegionCells ||
+          (regionWidth == cellsWide && regionHeight == cellsHigh)) {
+        continue;
+      }
+      candidates.add(new int[] {
+          region[0] * cellSize,
+          region[1] * cellSize,
+          Math.min(width, (region[2] + 1) * cellSize),
+          Math.min(height, (region[3] + 1) * cellSize)});
+    }
+    return candidates;
+  }
+
+}
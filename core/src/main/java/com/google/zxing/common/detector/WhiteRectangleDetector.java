@@ -16,6 +16,7 @@
 
 package com.google.zxing.common.detector;
 
+import com.google.zxing.BinaryBitmap;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
@@ -28,6 +29,12 @@ import com.google.zxing.common.BitMatrix;
  * last black points it encountered, it determines the corners of the barcode.
  * </p>
  *
+ * <p>
+ * Given a {@link BinaryBitmap}, it asks for each part of the image to be binarized
+ * as it comes to it, so that a binarizer which can convert part of the image at a
+ * time never converts more than the region found and the white border around it.
+ * </p>
+ *
  * @author David Olivier
  */
 public final class WhiteRectangleDetector {
@@ -35,6 +42,7 @@ public final class WhiteRectangleDetector {
   private static final int INIT_SIZE = 10;
   private static final int CORR = 1;
 
+  private final BinaryBitmap bitmap;
   private final BitMatrix image;
   private final int height;
   private final int width;
@@ -55,9 +63,30 @@ public final class WhiteRectangleDetector {
    * @throws NotFoundException if image is too small to accommodate {@code initSize}
    */
   public WhiteRectangleDetector(BitMatrix image, int initSize, int x, int y) throws NotFoundException {
-    this.image = image;
-    height = image.getHeight();
-    width = image.getWidth();
+    this(null, image, image.getWidth(), image.getHeight(), initSize, x, y);
+  }
+
+  public WhiteRectangleDetector(BinaryBitmap image) throws NotFoundException {
+    this(image, INIT_SIZE, image.getWidth() / 2, image.getHeight() / 2);
+  }
+
+  /**
+   * @param image barcode image to find a rectangle in, binarized as needed
+   * @param initSize initial size of search area around center
+   * @param x x position of search center
+   * @param y y position of search center
+   * @throws NotFoundException if image is too small to accommodate {@code initSize}, or can't be
+   *  binarized
+   */
+  public WhiteRectangleDetector(BinaryBitmap image, int initSize, int x, int y) throws NotFoundException {
+    this(image, null, image.getWidth(), image.getHeight(), initSize, x, y);
+  }
+
+  private WhiteRectangleDetector(BinaryBitmap bitmap, BitMatrix image, int width, int height,
+                                 int initSize, int x, int y) throws NotFoundException {
+    this.bitmap = bitmap;
+    this.height = height;
+    this.width = width;
     int halfsize = initSize / 2;
     leftInit = x - halfsize;
     rightInit = x + halfsize;
@@ -66,6 +95,9 @@ public final class WhiteRectangleDetector {
     if (upInit < 0 || leftInit < 0 || downInit >= height || rightInit >= width) {
       throw NotFoundException.getNotFoundInstance();
     }
+    // The borders of the search area are looked at as it grows, but the starting area is in it too
+    this.image = image != null ? image :
+        bitmap.getBlackMatrix(leftInit, upInit, rightInit - leftInit + 1, downInit - upInit + 1);
   }
 
   /**
@@ -307,8 +339,17 @@ public final class WhiteRectangleDetector {
    * @param fixed      value of fixed coordinate
    * @param horizontal set to true if scan must be horizontal, false if vertical
    * @return true if a black point has been found, else false.
+   * @throws NotFoundException if the segment can't be binarized
    */
-  private boolean containsBlackPoint(int a, int b, int fixed, boolean horizontal) {
+  private boolean containsBlackPoint(int a, int b, int fixed, boolean horizontal) throws NotFoundException {
+
+    if (bitmap != null) {
+      if (horizontal) {
+        bitmap.getBlackMatrix(a, fixed, b - a + 1, 1);
+      } else {
+        bitmap.getBlackMatrix(fixed, a, 1, b - a + 1);
+      }
+    }
 
     if (horizontal) {
       for (int x = a; x <= b; x++) {
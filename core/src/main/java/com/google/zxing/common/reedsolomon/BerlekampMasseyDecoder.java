@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import java.util.Arrays;
+
+/**
+ * <p>Implements Reed-Solomon decoding with the Berlekamp-Massey algorithm and Forney's formula,
+ * as an alternative to the Euclidean algorithm used by {@link ReedSolomonDecoder}. Unlike that
+ * class, it can also be told the positions of codewords which are known to be unreliable,
+ * called erasures. Since the location of an erasure need not be found, each one costs only one
+ * error-correction codeword rather than two: a block with e erasures and v other errors can be
+ * corrected as long as {@code 2v + e <= twoS}.</p>
+ *
+ * <p>The error locator is found in O(n&middot;t) time, and like {@link ReedSolomonWorkspaceDecoder}
+ * all work is done in a reusable workspace of {@code int} arrays, so an instance must not be used
+ * from more than one thread at a time.</p>
+ *
+ * <p>Polynomials in the workspace are stored with the constant term first.</p>
+ *
+ * @see ReedSolomonDecoder
+ */
+public final class BerlekampMasseyDecoder {
+
+  private static final int[] NO_ERASURES = {};
+
+  private final GenericGF field;
+
+  private int capacity;
+  private int[] syndromes;
+  private int[] lambda;
+  private int[] previous;
+  private int[] temp;
+  private int[] omega;
+  private int[] errorPositions;
+
+  public BerlekampMasseyDecoder(GenericGF field) {
+    this.field = field;
+  }
+
+  /**
+   * Decodes given set of received codewords, correcting errors in place, without any information
+   * about erasures. This is equivalent to {@link ReedSolomonDecoder#decode(int[], int)}.
+   *
+   * @param received data and error-correction codewords
+   * @param twoS number of error-correction codewords available
+   * @throws ReedSolomonException if decoding fails for any reason
+   */
+  public void decode(int[] received, int twoS) throws ReedSolomonException {
+    decode(received, twoS, NO_ERASURES);
+  }
+
+  /**
+   * Decodes given set of received codewords, correcting errors and erasures in place.
+   *
+   * @param received data and error-correction codewords
+   * @param twoS number of error-correction codewords available
+   * @param erasures distinct indices into {@code received} of codewords which are known or
+   *  suspected to be wrong, for example because they were read from low-confidence modules
+   * @throws ReedSolomonException if decoding fails for any reason
+   */
+  public void decode(int[] received, int twoS, int[] erasures) throws ReedSolomonException {
+    int numErasures = erasures.length;
+    if (numErasures > twoS) {
+      throw new ReedSolomonException("Too many erasures");
+    }
+    ensureCapacity(twoS);
+    int n = received.length;
+
+    int[] syndromes = this.syndromes;
+    boolean noError = true;
+    for (int i = 0; i < twoS; i++) {
+      int eval = evaluateAt(received, field.exp(i + field.getGeneratorBase()));
+      syndromes[i] = eval;
+      if (eval != 0) {
+        noError = false;
+      }
+    }
+    if (noError) {
+      return;
+    }
+
+    // Start from the erasure locator, the product of (1 - X_k x) over erased positions
+    int[] lambda = this.lambda;
+    Arrays.fill(lambda, 0, twoS + 1, 0);
+    lambda[0] = 1;
+    for (int k = 0; k < numErasures; k++) {
+      int position = erasures[k];
+      if (position < 0 || position >= n) {
+        throw new IllegalArgumentException("Erasure outside of received codewords: " + position);
+      }
+      int location = field.exp(n - 1 - position);
+      for (int i = k + 1; i > 0; i--) {
+        lambda[i] = GenericGF.addOrSubtract(lambda[i], field.multiply(location, lambda[i - 1]));
+      }
+    }
+
+    int numLocations = runBerlekampMassey(twoS, numErasures);
+    int numErrors = numLocations - numErasures;
+    if (2 * numErrors + numErasures > twoS) {
+      throw new ReedSolomonException("Too many errors");
+    }
+    findErrorPositions(n, twoS, numLocations);
+    computeErrorEvaluator(twoS, numLocations);
+    correctErrors(received, twoS, numLocations);
+  }
+
+  private void ensureCapacity(int twoS) {
+    if (twoS + 1 > capacity) {
+      capacity = twoS + 1;
+      syndromes = new int[capacity];
+      lambda = new int[capacity];
+      previous = new int[capacity];
+      temp = new int[capacity];
+      omega = new int[capacity];
+      errorPositions = new int[capacity];
+    }
+  }
+
+  /**
+   * Extends the error locator in {@link #lambda}, which on entry is the erasure locator, until it
+   * accounts for all syndromes.
+   *
+   * @return linear complexity L of the error locator, which is its degree if decoding succeeds
+   */
+  private int runBerlekampMassey(int twoS, int numErasures) {
+    int[] lambda = this.lambda;
+    int[] previous = this.previous;
+    int[] temp = this.temp;
+    int[] syndromes = this.syndromes;
+    System.arraycopy(lambda, 0, previous, 0, twoS + 1);
+
+    int l = numErasures;
+    int shift = 1;
+    int previousDiscrepancy = 1;
+    for (int k = numErasures; k < twoS; k++) {
+      int discrepancy = syndromes[k];
+      for (int i = 1; i <= l && i <= k; i++) {
+        discrepancy = GenericGF.addOrSubtract(discrepancy, field.multiply(lambda[i], syndromes[k - i]));
+      }
+      if (discrepancy == 0) {
+        shift++;
+        continue;
+      }
+      int scale = field.multiply(discrepancy, field.inverse(previousDiscrepancy));
+      boolean lengthChange = 2 * l <= k + numErasures;
+      if (lengthChange) {
+        System.arraycopy(lambda, 0, temp, 0, twoS + 1);
+      }
+      // lambda = lambda - scale * x^shift * previous
+      for (int i = shift; i <= twoS; i++) {
+        int term = previous[i - shift];
+        if (term != 0) {
+          lambda[i] = GenericGF.addOrSubtract(lambda[i], field.multiply(scale, term));
+        }
+      }
+      if (lengthChange) {
+        l = k + 1 + numErasures - l;
+        int[] swap = previous;
+        previous = temp;
+        temp = swap;
+        previousDiscrepancy = discrepancy;
+        shift = 1;
+      } else {
+        shift++;
+      }
+    }
+    this.previous = previous;
+    this.temp = temp;
+    return l;
+  }
+
+  /**
+   * Chien search, restricted to positions inside the block: finds the positions whose
+   * locator's inverse is a root of {@link #lambda}.
+   */
+  private void findErrorPositions(int n, int twoS, int numLocations) throws ReedSolomonException {
+    int[] lambda = this.lambda;
+    int degree = twoS;
+    while (degree > 0 && lambda[degree] == 0) {
+      degree--;
+    }
+    if (degree != numLocations) {
+      throw new ReedSolomonException("Error locator degree does not match number of errors");
+    }
+    int found = 0;
+    for (int j = 0; j < n && found < numLocations; j++) {
+      // X^-1 for the codeword at position n - 1 - j
+      int xInverse = field.inverse(field.exp(j));
+      if (evaluateAt(lambda, numLocations, xInverse) == 0) {
+        errorPositions[found] = n - 1 - j;
+        found++;
+      }
+    }
+    if (found != numLocations) {
+      throw new ReedSolomonException("Error locator degree does not match number of roots");
+    }
+  }
+
+  /**
+   * Computes omega = S * lambda mod x^twoS.
+   */
+  private void computeErrorEvaluator(int twoS, int numLocations) {
+    int[] omega = this.omega;
+    for (int i = 0; i < twoS; i++) {
+      int sum = 0;
+      for (int j = 0; j <= i && j <= numLocations; j++) {
+        sum = GenericGF.addOrSubtract(sum, field.multiply(lambda[j], syndromes[i - j]));
+      }
+      omega[i] = sum;
+    }
+  }
+
+  private void correctErrors(int[] received, int twoS, int numLocations) throws ReedSolomonException {
+    // This is directly applying Forney's Formula: Y = X^(1-b) * omega(X^-1) / lambda'(X^-1)
+    int n = received.length;
+    int omegaDegree = twoS - 1;
+    int generatorBase = field.getGeneratorBase();
+    for (int k = 0; k < numLocations; k++) {
+      int position = errorPositions[k];
+      int power = n - 1 - position;
+      int xInverse = field.inverse(field.exp(power));
+      // The formal derivative of lambda only keeps the odd-degree terms
+      int denominator = 0;
+      for (int i = 1; i <= numLocations; i += 2) {
+        denominator = GenericGF.addOrSubtract(denominator,
+            field.multiply(lambda[i], power(xInverse, i - 1)));
+      }
+      if (denominator == 0) {
+        throw new ReedSolomonException("Error locator has a repeated root");
+      }
+      int magnitude = field.multiply(evaluateAt(omega, omegaDegree, xInverse), field.inverse(denominator));
+      magnitude = field.multiply(magnitude, power(xInverse, generatorBase - 1));
+      received[position] = GenericGF.addOrSubtract(received[position], magnitude);
+    }
+  }
+
+  /**
+   * @return a^e in GF(size), where a is non-zero and e may be negative
+   */
+  private int power(int a, int e) {
+    int order = field.getSize() - 1;
+    int exponent = (int) (((long) field.log(a) * e) % order);
+    if (exponent < 0) {
+      exponent += order;
+    }
+    return field.exp(exponent);
+  }
+
+  /**
+   * @return evaluation at a of the polynomial whose coefficients are given most significant first
+   */
+  private int evaluateAt(int[] coefficients, int a) {
+    int result = 0;
+    for (int coefficient : coefficients) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), coefficient);
+    }
+    return result;
+  }
+
+  /**
+   * @return evaluation at a of a workspace polynomial, given least significant first
+   */
+  private int evaluateAt(int[] coefficients, int degree, int a) {
+    int result = coefficients[degree];
+    for (int i = degree - 1; i >= 0; i--) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), coefficients[i]);
+    }
+    return result;
+  }
+
+}
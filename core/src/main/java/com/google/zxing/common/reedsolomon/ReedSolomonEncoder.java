@@ -17,36 +17,41 @@
 package com.google.zxing.common.reedsolomon;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>Implements Reed-Solomon enbcoding, as the name implies.</p>
  *
+ * <p>Generator polynomials depend only on the field and the number of error correction
+ * codewords, so for the fields predefined in {@link GenericGF} they are built once and shared by
+ * all encoders. An encoder over any other field builds its own, which go when it does. Instances
+ * are thread-safe.</p>
+ *
  * @author Sean Owen
  * @author William Rucklidge
  */
 public final class ReedSolomonEncoder {
 
+  // Only for the predefined fields, so that it never grows; never changed after this
+  private static final Map<GenericGF,Generators> SHARED_GENERATORS = new IdentityHashMap<>();
+  static {
+    for (GenericGF field : new GenericGF[] {
+        GenericGF.AZTEC_DATA_12, GenericGF.AZTEC_DATA_10, GenericGF.AZTEC_DATA_6, GenericGF.AZTEC_PARAM,
+        GenericGF.QR_CODE_FIELD_256, GenericGF.DATA_MATRIX_FIELD_256}) {
+      SHARED_GENERATORS.put(field, new Generators(field));
+    }
+  }
+
   private final GenericGF field;
-  private final List<GenericGFPoly> cachedGenerators;
+  private final Generators generators;
 
   public ReedSolomonEncoder(GenericGF field) {
     this.field = field;
-    this.cachedGenerators = new ArrayList<>();
-    cachedGenerators.add(new GenericGFPoly(field, new int[]{1}));
-  }
-
-  private GenericGFPoly buildGenerator(int degree) {
-    if (degree >= cachedGenerators.size()) {
-      GenericGFPoly lastGenerator = cachedGenerators.get(cachedGenerators.size() - 1);
-      for (int d = cachedGenerators.size(); d <= degree; d++) {
-        GenericGFPoly nextGenerator = lastGenerator.multiply(
-            new GenericGFPoly(field, new int[] { 1, field.exp(d - 1 + field.getGeneratorBase()) }));
-        cachedGenerators.add(nextGenerator);
-        lastGenerator = nextGenerator;
-      }
-    }
-    return cachedGenerators.get(degree);
+    Generators shared = SHARED_GENERATORS.get(field);
+    this.generators = shared == null ? new Generators(field) : shared;
   }
 
   public void encode(int[] toEncode, int ecBytes) {
@@ -57,18 +62,83 @@ public final class ReedSolomonEncoder {
     if (dataBytes <= 0) {
       throw new IllegalArgumentException("No data bytes provided");
     }
-    GenericGFPoly generator = buildGenerator(ecBytes);
-    int[] infoCoefficients = new int[dataBytes];
-    System.arraycopy(toEncode, 0, infoCoefficients, 0, dataBytes);
-    GenericGFPoly info = new GenericGFPoly(field, infoCoefficients);
-    info = info.multiplyByMonomial(ecBytes, 1);
-    GenericGFPoly remainder = info.divide(generator)[1];
-    int[] coefficients = remainder.getCoefficients();
-    int numZeroCoefficients = ecBytes - coefficients.length;
-    for (int i = 0; i < numZeroCoefficients; i++) {
-      toEncode[dataBytes + i] = 0;
+    int[] generatorLogs = generators.getLogCoefficients(ecBytes);
+    int order = field.getSize() - 1;
+    // Divide by the generator as a shift register, leaving the remainder in place after the data
+    Arrays.fill(toEncode, dataBytes, toEncode.length, 0);
+    int last = toEncode.length - 1;
+    for (int i = 0; i < dataBytes; i++) {
+      int factor = toEncode[i] ^ toEncode[dataBytes];
+      System.arraycopy(toEncode, dataBytes + 1, toEncode, dataBytes, ecBytes - 1);
+      toEncode[last] = 0;
+      if (factor != 0) {
+        int logFactor = field.log(factor);
+        for (int j = 0; j < ecBytes; j++) {
+          int logCoefficient = generatorLogs[j];
+          if (logCoefficient >= 0) {
+            int logProduct = logCoefficient + logFactor;
+            if (logProduct >= order) {
+              logProduct -= order;
+            }
+            toEncode[dataBytes + j] ^= field.exp(logProduct);
+          }
+        }
+      }
     }
-    System.arraycopy(coefficients, 0, toEncode, dataBytes + numZeroCoefficients, coefficients.length);
+  }
+
+  /**
+   * Generator polynomials over one field, built as needed.
+   */
+  private static final class Generators {
+
+    private final GenericGF field;
+    // Guarded by this
+    private final List<GenericGFPoly> polynomials;
+    // Logs of the coefficients of each generator below its leading 1, or -1 for 0; entries are
+    // never changed once set, and the array is replaced, not changed, when it grows
+    private volatile int[][] logCoefficients;
+
+    Generators(GenericGF field) {
+      this.field = field;
+      this.polynomials = new ArrayList<>();
+      polynomials.add(new GenericGFPoly(field, new int[]{1}));
+      this.logCoefficients = new int[0][];
+    }
+
+    int[] getLogCoefficients(int degree) {
+      int[][] current = logCoefficients;
+      if (degree < current.length && current[degree] != null) {
+        return current[degree];
+      }
+      return build(degree);
+    }
+
+    private synchronized int[] build(int degree) {
+      int[][] current = logCoefficients;
+      if (degree < current.length && current[degree] != null) {
+        return current[degree];
+      }
+      GenericGFPoly lastGenerator = polynomials.get(polynomials.size() - 1);
+      for (int d = polynomials.size(); d <= degree; d++) {
+        GenericGFPoly nextGenerator = lastGenerator.multiply(
+            new GenericGFPoly(field, new int[] { 1, field.exp(d - 1 + field.getGeneratorBase()) }));
+        polynomials.add(nextGenerator);
+        lastGenerator = nextGenerator;
+      }
+      // Coefficients run from the highest degree, whose coefficient is 1, down
+      int[] coefficients = polynomials.get(degree).getCoefficients();
+      int[] logs = new int[degree];
+      for (int i = 0; i < degree; i++) {
+        int coefficient = coefficients[i + 1];
+        logs[i] = coefficient == 0 ? -1 : field.log(coefficient);
+      }
+      int[][] grown = Arrays.copyOf(current, Math.max(degree + 1, current.length));
+      grown[degree] = logs;
+      logCoefficients = grown;
+      return logs;
+    }
+
   }
 
 }
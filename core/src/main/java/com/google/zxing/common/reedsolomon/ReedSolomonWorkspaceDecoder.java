@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import java.util.Arrays;
+
+/**
+ * <p>Implements the same Reed-Solomon decoding as {@link ReedSolomonDecoder}, with the same
+ * results, but without creating any {@link GenericGFPoly} objects or coefficient arrays per call.
+ * Polynomials are kept in a workspace of plain {@code int} arrays owned by this instance, which
+ * are sized for the largest block seen so far and reused for every subsequent decode.</p>
+ *
+ * <p>Polynomials in the workspace are stored with the constant term first: index {@code i} holds
+ * the coefficient of x^i, and every entry above the polynomial's degree is zero.</p>
+ *
+ * <p>Because of the shared workspace, an instance must not be used from more than one thread at
+ * a time. Hold one per reader, or per thread.</p>
+ *
+ * @author Sean Owen
+ * @author William Rucklidge
+ * @see ReedSolomonDecoder
+ */
+public final class ReedSolomonWorkspaceDecoder {
+
+  private final GenericGF field;
+
+  private int capacity;
+  private int[] syndrome;
+  private int[] rLast;
+  private int[] r;
+  private int[] tLast;
+  private int[] t;
+  private int[] q;
+  private int[] errorLocations;
+  private int[] errorMagnitudes;
+  private int omegaDegree;
+
+  public ReedSolomonWorkspaceDecoder(GenericGF field) {
+    this.field = field;
+  }
+
+  /**
+   * <p>Decodes given set of received codewords, which include both data and error-correction
+   * codewords. Really, this means it uses Reed-Solomon to detect and correct errors, in-place,
+   * in the input.</p>
+   *
+   * @param received data and error-correction codewords
+   * @param twoS number of error-correction codewords available
+   * @throws ReedSolomonException if decoding fails for any reason
+   * @see ReedSolomonDecoder#decode(int[], int)
+   */
+  public void decode(int[] received, int twoS) throws ReedSolomonException {
+    ensureCapacity(twoS);
+    int[] syndrome = this.syndrome;
+    boolean noError = true;
+    for (int i = 0; i < twoS; i++) {
+      int eval = evaluateAt(received, field.exp(i + field.getGeneratorBase()));
+      syndrome[i] = eval;
+      if (eval != 0) {
+        noError = false;
+      }
+    }
+    if (noError) {
+      return;
+    }
+    int numErrors = runEuclideanAlgorithm(twoS);
+    findErrorLocations(numErrors);
+    findErrorMagnitudes(numErrors);
+    for (int i = 0; i < numErrors; i++) {
+      int position = received.length - 1 - field.log(errorLocations[i]);
+      if (position < 0) {
+        throw new ReedSolomonException("Bad error location");
+      }
+      received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
+    }
+  }
+
+  private void ensureCapacity(int twoS) {
+    if (twoS + 1 > capacity) {
+      capacity = twoS + 1;
+      syndrome = new int[capacity];
+      rLast = new int[capacity];
+      r = new int[capacity];
+      tLast = new int[capacity];
+      t = new int[capacity];
+      q = new int[capacity];
+      errorLocations = new int[capacity];
+      errorMagnitudes = new int[capacity];
+    }
+  }
+
+  /**
+   * Runs the Euclidean algorithm on x^twoS and the syndrome. Afterwards {@link #t} holds sigma,
+   * the error locator, and {@link #r} holds omega, the error evaluator.
+   *
+   * @return degree of sigma, which is the number of errors
+   */
+  private int runEuclideanAlgorithm(int twoS) throws ReedSolomonException {
+    int[] rLast = this.rLast;
+    int[] r = this.r;
+    int[] tLast = this.tLast;
+    int[] t = this.t;
+    int[] q = this.q;
+    Arrays.fill(rLast, 0, twoS + 1, 0);
+    Arrays.fill(tLast, 0, twoS + 1, 0);
+    Arrays.fill(t, 0, twoS + 1, 0);
+    Arrays.fill(q, 0, twoS + 1, 0);
+
+    // rLast = x^twoS, r = syndrome, tLast = 0, t = 1
+    rLast[twoS] = 1;
+    int rLastDegree = twoS;
+    System.arraycopy(syndrome, 0, r, 0, twoS);
+    r[twoS] = 0;
+    int rDegree = degree(r, twoS - 1);
+    int tLastDegree = 0;
+    t[0] = 1;
+    int tDegree = 0;
+
+    // Run Euclidean algorithm until r's degree is less than R/2
+    while (rDegree >= twoS / 2) {
+      // rLastLast takes r's place and is reduced in place; likewise tLastLast becomes the new t
+      int[] temp = rLast;
+      rLast = r;
+      r = temp;
+      int tempDegree = rLastDegree;
+      rLastDegree = rDegree;
+      rDegree = tempDegree;
+      temp = tLast;
+      tLast = t;
+      t = temp;
+      tempDegree = tLastDegree;
+      tLastDegree = tDegree;
+      tDegree = tempDegree;
+
+      // Divide rLastLast by rLast, with quotient in q and remainder in r
+      if (isZero(rLast, rLastDegree)) {
+        // Oops, Euclidean algorithm already terminated?
+        throw new ReedSolomonException("r_{i-1} was zero");
+      }
+      int qDegree = 0;
+      int denominatorLeadingTerm = rLast[rLastDegree];
+      int dltInverse = field.inverse(denominatorLeadingTerm);
+      while (rDegree >= rLastDegree && !isZero(r, rDegree)) {
+        int degreeDiff = rDegree - rLastDegree;
+        int scale = field.multiply(r[rDegree], dltInverse);
+        q[degreeDiff] = GenericGF.addOrSubtract(q[degreeDiff], scale);
+        if (degreeDiff > qDegree) {
+          qDegree = degreeDiff;
+        }
+        for (int i = 0; i <= rLastDegree; i++) {
+          r[i + degreeDiff] = GenericGF.addOrSubtract(r[i + degreeDiff], field.multiply(rLast[i], scale));
+        }
+        rDegree = degree(r, rDegree);
+      }
+
+      // t = q * tLast + tLastLast
+      if (!isZero(q, qDegree) && !isZero(tLast, tLastDegree)) {
+        for (int i = 0; i <= qDegree; i++) {
+          int qCoefficient = q[i];
+          if (qCoefficient != 0) {
+            for (int j = 0; j <= tLastDegree; j++) {
+              t[i + j] = GenericGF.addOrSubtract(t[i + j], field.multiply(qCoefficient, tLast[j]));
+            }
+          }
+        }
+        tDegree = degree(t, Math.max(tDegree, qDegree + tLastDegree));
+      }
+      Arrays.fill(q, 0, qDegree + 1, 0);
+
+      if (rDegree >= rLastDegree) {
+        throw new IllegalStateException("Division algorithm failed to reduce polynomial?");
+      }
+    }
+
+    int sigmaTildeAtZero = t[0];
+    if (sigmaTildeAtZero == 0) {
+      throw new ReedSolomonException("sigmaTilde(0) was zero");
+    }
+
+    int inverse = field.inverse(sigmaTildeAtZero);
+    for (int i = 0; i <= tDegree; i++) {
+      t[i] = field.multiply(t[i], inverse);
+    }
+    for (int i = 0; i <= rDegree; i++) {
+      r[i] = field.multiply(r[i], inverse);
+    }
+
+    // Keep whichever arrays ended up holding each polynomial
+    this.rLast = rLast;
+    this.r = r;
+    this.tLast = tLast;
+    this.t = t;
+    omegaDegree = rDegree;
+    return tDegree;
+  }
+
+  private void findErrorLocations(int numErrors) throws ReedSolomonException {
+    // This is a direct application of Chien's search
+    int[] sigma = t;
+    if (numErrors == 1) { // shortcut
+      errorLocations[0] = sigma[1];
+      return;
+    }
+    int e = 0;
+    for (int i = 1; i < field.getSize() && e < numErrors; i++) {
+      if (evaluateAt(sigma, numErrors, i) == 0) {
+        errorLocations[e] = field.inverse(i);
+        e++;
+      }
+    }
+    if (e != numErrors) {
+      throw new ReedSolomonException("Error locator degree does not match number of roots");
+    }
+  }
+
+  private void findErrorMagnitudes(int numErrors) {
+    // This is directly applying Forney's Formula
+    int[] omega = r;
+    for (int i = 0; i < numErrors; i++) {
+      int xiInverse = field.inverse(errorLocations[i]);
+      int denominator = 1;
+      for (int j = 0; j < numErrors; j++) {
+        if (i != j) {
+          // Same workaround for a Hotspot bug as in ReedSolomonDecoder
+          int term = field.multiply(errorLocations[j], xiInverse);
+          int termPlus1 = (term & 0x1) == 0 ? term | 1 : term & ~1;
+          denominator = field.multiply(denominator, termPlus1);
+        }
+      }
+      int magnitude = field.multiply(evaluateAt(omega, omegaDegree, xiInverse),
+          field.inverse(denominator));
+      if (field.getGeneratorBase() != 0) {
+        magnitude = field.multiply(magnitude, xiInverse);
+      }
+      errorMagnitudes[i] = magnitude;
+    }
+  }
+
+  /**
+   * @return evaluation at a of the polynomial whose coefficients are given most significant first
+   */
+  private int evaluateAt(int[] coefficients, int a) {
+    int result = 0;
+    if (a == 1) {
+      // Just the sum of the coefficients
+      for (int coefficient : coefficients) {
+        result = GenericGF.addOrSubtract(result, coefficient);
+      }
+      return result;
+    }
+    for (int coefficient : coefficients) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), coefficient);
+    }
+    return result;
+  }
+
+  /**
+   * @return evaluation at a of a workspace polynomial, given least significant first
+   */
+  private int evaluateAt(int[] coefficients, int degree, int a) {
+    if (a == 0) {
+      return coefficients[0];
+    }
+    int result = coefficients[degree];
+    for (int i = degree - 1; i >= 0; i--) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), coefficients[i]);
+    }
+    return result;
+  }
+
+  /**
+   * @return degree of a workspace polynomial whose degree is at most maxDegree
+   */
+  private static int degree(int[] coefficients, int maxDegree) {
+    int degree = maxDegree;
+    while (degree > 0 && coefficients[degree] == 0) {
+      degree--;
+    }
+    return degree;
+  }
+
+  private static boolean isZero(int[] coefficients, int degree) {
+    return degree == 0 && coefficients[0] == 0;
+  }
+
+}
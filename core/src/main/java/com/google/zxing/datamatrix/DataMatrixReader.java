@@ -69,7 +69,9 @@ public final class DataMatrixReader implements Reader {
       decoderResult = decoder.decode(bits);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect();
+      // Binarizes only the part of the image around the code, if it can
+      Detector detector = image.isRegionSupported() ? new Detector(image) : new Detector(image.getBlackMatrix());
+      DetectorResult detectorResult = detector.detect();
       decoderResult = decoder.decode(detectorResult.getBits());
       points = detectorResult.getPoints();
     }
@@ -20,22 +20,41 @@ import com.google.zxing.ChecksumException;
 import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
+import com.google.zxing.common.reedsolomon.BerlekampMasseyDecoder;
 import com.google.zxing.common.reedsolomon.GenericGF;
-import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import com.google.zxing.common.reedsolomon.ReedSolomonWorkspaceDecoder;
 
 /**
  * <p>The main class which implements Data Matrix Code decoding -- as opposed to locating and extracting
  * the Data Matrix Code from an image.</p>
  *
+ * <p>An instance keeps a Reed-Solomon workspace which is reused from one decode to the next, and
+ * so must not be used from more than one thread at a time. Readers hold one each.</p>
+ *
  * @author bbrown@google.com (Brian Brown)
  */
 public final class Decoder {
 
-  private final ReedSolomonDecoder rsDecoder;
+  private final ReedSolomonWorkspaceDecoder rsDecoder;
+  private final BerlekampMasseyDecoder bmDecoder;
 
   public Decoder() {
-    rsDecoder = new ReedSolomonDecoder(GenericGF.DATA_MATRIX_FIELD_256);
+    this(false);
+  }
+
+  /**
+   * @param useBerlekampMassey if true, correct errors with {@link BerlekampMasseyDecoder} rather
+   *  than the Euclidean algorithm of {@link ReedSolomonWorkspaceDecoder}, which is the default
+   */
+  public Decoder(boolean useBerlekampMassey) {
+    if (useBerlekampMassey) {
+      rsDecoder = null;
+      bmDecoder = new BerlekampMasseyDecoder(GenericGF.DATA_MATRIX_FIELD_256);
+    } else {
+      rsDecoder = new ReedSolomonWorkspaceDecoder(GenericGF.DATA_MATRIX_FIELD_256);
+      bmDecoder = null;
+    }
   }
 
   /**
@@ -120,7 +139,12 @@ public final class Decoder {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
     try {
-      rsDecoder.decode(codewordsInts, codewordBytes.length - numDataCodewords);
+      int numECCodewords = codewordBytes.length - numDataCodewords;
+      if (bmDecoder != null) {
+        bmDecoder.decode(codewordsInts, numECCodewords);
+      } else {
+        rsDecoder.decode(codewordsInts, numECCodewords);
+      }
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -16,11 +16,13 @@
 
 package com.google.zxing.datamatrix.detector;
 
+import com.google.zxing.BinaryBitmap;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DetectorResult;
 import com.google.zxing.common.GridSampler;
+import com.google.zxing.common.PerspectiveTransform;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.common.detector.WhiteRectangleDetector;
 
@@ -40,14 +42,30 @@ import java.util.Map;
  */
 public final class Detector {
 
+  private final BinaryBitmap bitmap;
   private final BitMatrix image;
   private final WhiteRectangleDetector rectangleDetector;
 
   public Detector(BitMatrix image) throws NotFoundException {
+    bitmap = null;
     this.image = image;
     rectangleDetector = new WhiteRectangleDetector(image);
   }
 
+  /**
+   * Asks the bitmap to binarize only the parts of the image looked at, which for a binarizer that
+   * can convert part of the image at a time are around the code, working outwards from the center.
+   *
+   * @param image image to detect a code in
+   * @throws NotFoundException if the image is too small, or can't be binarized
+   */
+  public Detector(BinaryBitmap image) throws NotFoundException {
+    bitmap = image;
+    rectangleDetector = new WhiteRectangleDetector(image);
+    // The same matrix, filled in further as the detector asks for more of it
+    this.image = image.getBlackMatrix(image.getWidth() / 2, image.getHeight() / 2, 1, 1);
+  }
+
   /**
    * <p>Detects a Data Matrix Code in an image.</p>
    *
@@ -181,7 +199,7 @@ public final class Detector {
         dimensionRight++;
       }
 
-      bits = sampleGrid(image, topLeft, bottomLeft, bottomRight, correctedTopRight, dimensionTop, dimensionRight);
+      bits = sampleGrid(topLeft, bottomLeft, bottomRight, correctedTopRight, dimensionTop, dimensionRight);
           
     } else {
       // The matrix is square
@@ -201,8 +219,7 @@ public final class Detector {
         dimensionCorrected++;
       }
 
-      bits = sampleGrid(image,
-                        topLeft,
+      bits = sampleGrid(topLeft,
                         bottomLeft,
                         bottomRight,
                         correctedTopRight,
@@ -222,7 +239,7 @@ public final class Detector {
                                                  ResultPoint topLeft,
                                                  ResultPoint topRight,
                                                  int dimensionTop,
-                                                 int dimensionRight) {
+                                                 int dimensionRight) throws NotFoundException {
 
     float corr = distance(bottomLeft, bottomRight) / (float) dimensionTop;
     int norm = distance(topLeft, topRight);
@@ -268,7 +285,7 @@ public final class Detector {
                                       ResultPoint bottomRight,
                                       ResultPoint topLeft,
                                       ResultPoint topRight,
-                                      int dimension) {
+                                      int dimension) throws NotFoundException {
 
     float corr = distance(bottomLeft, bottomRight) / (float) dimension;
     int norm = distance(topLeft, topRight);
@@ -318,46 +335,61 @@ public final class Detector {
     table.put(key, value == null ? 1 : value + 1);
   }
 
-  private static BitMatrix sampleGrid(BitMatrix image,
-                                      ResultPoint topLeft,
-                                      ResultPoint bottomLeft,
-                                      ResultPoint bottomRight,
-                                      ResultPoint topRight,
-                                      int dimensionX,
-                                      int dimensionY) throws NotFoundException {
+  private BitMatrix sampleGrid(ResultPoint topLeft,
+                               ResultPoint bottomLeft,
+                               ResultPoint bottomRight,
+                               ResultPoint topRight,
+                               int dimensionX,
+                               int dimensionY) throws NotFoundException {
 
     GridSampler sampler = GridSampler.getInstance();
 
-    return sampler.sampleGrid(image,
-                              dimensionX,
-                              dimensionY,
-                              0.5f,
-                              0.5f,
-                              dimensionX - 0.5f,
-                              0.5f,
-                              dimensionX - 0.5f,
-                              dimensionY - 0.5f,
-                              0.5f,
-                              dimensionY - 0.5f,
-                              topLeft.getX(),
-                              topLeft.getY(),
-                              topRight.getX(),
-                              topRight.getY(),
-                              bottomRight.getX(),
-                              bottomRight.getY(),
-                              bottomLeft.getX(),
-                              bottomLeft.getY());
+    if (bitmap == null) {
+      return sampler.sampleGrid(image,
+                                dimensionX,
+                                dimensionY,
+                                0.5f,
+                                0.5f,
+                                dimensionX - 0.5f,
+                                0.5f,
+                                dimensionX - 0.5f,
+                                dimensionY - 0.5f,
+                                0.5f,
+                                dimensionY - 0.5f,
+                                topLeft.getX(),
+                                topLeft.getY(),
+                                topRight.getX(),
+                                topRight.getY(),
+                                bottomRight.getX(),
+                                bottomRight.getY(),
+                                bottomLeft.getX(),
+                                bottomLeft.getY());
+    }
+    PerspectiveTransform transform = PerspectiveTransform.quadrilateralToQuadrilateral(
+        0.5f, 0.5f, dimensionX - 0.5f, 0.5f, dimensionX - 0.5f, dimensionY - 0.5f, 0.5f, dimensionY - 0.5f,
+        topLeft.getX(), topLeft.getY(), topRight.getX(), topRight.getY(),
+        bottomRight.getX(), bottomRight.getY(), bottomLeft.getX(), bottomLeft.getY());
+    return sampler.sampleGrid(bitmap, dimensionX, dimensionY, transform);
   }
 
   /**
    * Counts the number of black/white transitions between two points, using something like Bresenham's algorithm.
    */
-  private ResultPointsAndTransitions transitionsBetween(ResultPoint from, ResultPoint to) {
+  private ResultPointsAndTransitions transitionsBetween(ResultPoint from, ResultPoint to) throws NotFoundException {
     // See QR Code Detector, sizeOfBlackWhiteBlackRun()
     int fromX = (int) from.getX();
     int fromY = (int) from.getY();
     int toX = (int) to.getX();
     int toY = (int) to.getY();
+    if (bitmap != null) {
+      int left = Math.max(0, Math.min(fromX, toX));
+      int top = Math.max(0, Math.min(fromY, toY));
+      int right = Math.min(image.getWidth() - 1, Math.max(fromX, toX));
+      int bottom = Math.min(image.getHeight() - 1, Math.max(fromY, toY));
+      if (left <= right && top <= bottom) {
+        bitmap.getBlackMatrix(left, top, right - left + 1, bottom - top + 1);
+      }
+    }
     boolean steep = Math.abs(toY - fromY) > Math.abs(toX - fromX);
     if (steep) {
       int temp = fromX;
@@ -72,20 +72,34 @@ public final class ErrorCorrection {
   private static final int[] LOG;
   private static final int[] ALOG;
 
+  /**
+   * Logs of the values in FACTORS, so that each codeword costs one lookup per factor.
+   */
+  private static final int[][] FACTOR_LOGS;
+
   static {
-    //Create log and antilog table
+    //Create log and antilog table; antilogs repeat, so that a sum of two logs needs no modulo
     LOG = new int[256];
-    ALOG = new int[255];
+    ALOG = new int[2 * 255];
 
     int p = 1;
     for (int i = 0; i < 255; i++) {
       ALOG[i] = p;
+      ALOG[i + 255] = p;
       LOG[p] = i;
       p *= 2;
       if (p >= 256) {
         p ^= MODULO_VALUE;
       }
     }
+
+    FACTOR_LOGS = new int[FACTORS.length][];
+    for (int i = 0; i < FACTORS.length; i++) {
+      FACTOR_LOGS[i] = new int[FACTORS[i].length];
+      for (int k = 0; k < FACTORS[i].length; k++) {
+        FACTOR_LOGS[i][k] = FACTORS[i][k] == 0 ? -1 : LOG[FACTORS[i][k]];
+      }
+    }
   }
 
   private ErrorCorrection() {
@@ -154,25 +168,24 @@ public final class ErrorCorrection {
       throw new IllegalArgumentException(
           "Illegal number of error correction codewords specified: " + numECWords);
     }
-    int[] poly = FACTORS[table];
+    int[] polyLogs = FACTOR_LOGS[table];
     char[] ecc = new char[numECWords];
-    for (int i = 0; i < numECWords; i++) {
-      ecc[i] = 0;
-    }
     for (int i = start; i < start + len; i++) {
       int m = ecc[numECWords - 1] ^ codewords.charAt(i);
+      if (m == 0) {
+        System.arraycopy(ecc, 0, ecc, 1, numECWords - 1);
+        ecc[0] = 0;
+        continue;
+      }
+      int logM = LOG[m];
       for (int k = numECWords - 1; k > 0; k--) {
-        if (m != 0 && poly[k] != 0) {
-          ecc[k] = (char) (ecc[k - 1] ^ ALOG[(LOG[m] + LOG[poly[k]]) % 255]);
+        if (polyLogs[k] >= 0) {
+          ecc[k] = (char) (ecc[k - 1] ^ ALOG[logM + polyLogs[k]]);
         } else {
           ecc[k] = ecc[k - 1];
         }
       }
-      if (m != 0 && poly[0] != 0) {
-        ecc[0] = (char) ALOG[(LOG[m] + LOG[poly[0]]) % 255];
-      } else {
-        ecc[0] = 0;
-      }
+      ecc[0] = polyLogs[0] >= 0 ? (char) ALOG[logM + polyLogs[0]] : 0;
     }
     char[] eccReversed = new char[numECWords];
     for (int i = 0; i < numECWords; i++) {
@@ -22,8 +22,8 @@ import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
 import com.google.zxing.common.reedsolomon.GenericGF;
-import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import com.google.zxing.common.reedsolomon.ReedSolomonWorkspaceDecoder;
 
 import java.util.Map;
 
@@ -31,6 +31,9 @@ import java.util.Map;
  * <p>The main class which implements MaxiCode decoding -- as opposed to locating and extracting
  * the MaxiCode from an image.</p>
  *
+ * <p>An instance keeps a Reed-Solomon workspace which is reused from one decode to the next, and
+ * so must not be used from more than one thread at a time. Readers hold one each.</p>
+ *
  * @author Manuel Kasten
  */
 public final class Decoder {
@@ -39,10 +42,10 @@ public final class Decoder {
   private static final int EVEN = 1;
   private static final int ODD = 2;
 
-  private final ReedSolomonDecoder rsDecoder;
+  private final ReedSolomonWorkspaceDecoder rsDecoder;
 
   public Decoder() {
-    rsDecoder = new ReedSolomonDecoder(GenericGF.MAXICODE_FIELD_64);
+    rsDecoder = new ReedSolomonWorkspaceDecoder(GenericGF.MAXICODE_FIELD_64);
   }
 
   public DecoderResult decode(BitMatrix bits) throws ChecksumException, FormatException {
@@ -17,6 +17,7 @@
 package com.google.zxing.multi;
 
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Deadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -62,7 +63,7 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
   public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints)
       throws NotFoundException {
     List<Result> results = new ArrayList<>();
-    doDecodeMultiple(image, hints, results, 0, 0, 0);
+    doDecodeMultiple(image, hints, Deadline.fromHints(hints), results, 0, 0, 0);
     if (results.isEmpty()) {
       throw NotFoundException.getNotFoundInstance();
     }
@@ -71,6 +72,7 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
 
   private void doDecodeMultiple(BinaryBitmap image,
                                 Map<DecodeHintType,?> hints,
+                                Deadline deadline,
                                 List<Result> results,
                                 int xOffset,
                                 int yOffset,
@@ -78,7 +80,8 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     if (currentDepth > MAX_DEPTH) {
       return;
     }
-    
+    deadline.check();
+
     Result result;
     try {
       result = delegate.decode(image, hints);
@@ -128,34 +131,34 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     // Decode left of barcode
     if (minX > MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, 0, (int) minX, height),
-                       hints, results, 
+                       hints, deadline, results, 
                        xOffset, yOffset, 
                        currentDepth + 1);
     }
     // Decode above barcode
     if (minY > MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, 0, width, (int) minY),
-                       hints, results, 
+                       hints, deadline, results, 
                        xOffset, yOffset, 
                        currentDepth + 1);
     }
     // Decode right of barcode
     if (maxX < width - MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop((int) maxX, 0, width - (int) maxX, height),
-                       hints, results, 
+                       hints, deadline, results, 
                        xOffset + (int) maxX, yOffset, 
                        currentDepth + 1);
     }
     // Decode below barcode
     if (maxY < height - MIN_DIMENSION_TO_RECUR) {
       doDecodeMultiple(image.crop(0, (int) maxY, width, height - (int) maxY),
-                       hints, results, 
+                       hints, deadline, results, 
                        xOffset, yOffset + (int) maxY, 
                        currentDepth + 1);
     }
   }
 
-  private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
+  static Result translateResultPoints(Result result, int xOffset, int yOffset) {
     ResultPoint[] oldResultPoints = result.getResultPoints();
     if (oldResultPoints == null) {
       return result;
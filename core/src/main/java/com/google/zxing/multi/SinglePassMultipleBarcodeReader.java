@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Deadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.detector.BlackRegionFinder;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.pdf417.PDF417Reader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Finds many barcodes of different formats in one image, binarizing it only once. Unlike
+ * {@link GenericMultipleBarcodeReader}, which decodes one barcode and then recursively decodes crops
+ * around it, this makes a fixed number of passes over the image:</p>
+ *
+ * <ol>
+ * <li>QR codes and PDF417 symbols are found by their detectors' own multiple-symbol searches over
+ * the whole black matrix, via {@link QRCodeMultiReader} and {@link PDF417Reader}.</li>
+ * <li>1D barcodes are found by scanning rows across the whole image; after a barcode is found in a
+ * row, the row is scanned again to the right of it, so several barcodes side by side are found.</li>
+ * <li>Data Matrix and Aztec detectors only look for one symbol, near the middle of what they are
+ * given. They are run over the whole image, then over each cluster of black left in the black
+ * matrix once symbols found so far are blanked out. Clusters are cut from the already binarized
+ * matrix rather than re-binarized.</li>
+ * </ol>
+ *
+ * <p>As with {@link GenericMultipleBarcodeReader}, a barcode is only reported once however many
+ * times its contents are found. The {@link DecodeHintType#POSSIBLE_FORMATS} hint limits the passes
+ * made, and a {@link DecodeHintType#DEADLINE} hint is checked between rows and regions. This class
+ * is not thread-safe.</p>
+ */
+public final class SinglePassMultipleBarcodeReader implements MultipleBarcodeReader {
+
+  private static final Collection<BarcodeFormat> ONE_D_FORMATS = EnumSet.of(
+      BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8,
+      BarcodeFormat.CODABAR, BarcodeFormat.CODE_39, BarcodeFormat.CODE_93, BarcodeFormat.CODE_128,
+      BarcodeFormat.ITF, BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED);
+
+  // Size in pixels of the cells in which regions of black are found
+  private static final int CELL_SIZE = 8;
+  private static final int MIN_REGION_CELLS = 2;
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    @SuppressWarnings("unchecked")
+    Collection<BarcodeFormat> formats =
+        hints == null ? null : (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    List<Result> results = new ArrayList<>();
+
+    if (isPossible(formats, BarcodeFormat.QR_CODE)) {
+      addAll(results, new QRCodeMultiReader(), image, hints);
+    }
+    if (isPossible(formats, BarcodeFormat.PDF_417)) {
+      addAll(results, new PDF417Reader(), image, hints);
+    }
+    if (formats == null || containsAny(formats, ONE_D_FORMATS)) {
+      decodeRows(image, hints, results);
+    }
+
+    List<Reader> windowReaders = new ArrayList<>();
+    if (isPossible(formats, BarcodeFormat.DATA_MATRIX)) {
+      windowReaders.add(new DataMatrixReader());
+    }
+    if (isPossible(formats, BarcodeFormat.AZTEC)) {
+      windowReaders.add(new AztecReader());
+    }
+    if (!windowReaders.isEmpty()) {
+      decodeWindows(image, hints, windowReaders, results);
+    }
+
+    if (results.isEmpty()) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  private static boolean isPossible(Collection<BarcodeFormat> formats, BarcodeFormat format) {
+    return formats == null || formats.contains(format);
+  }
+
+  private static boolean containsAny(Collection<BarcodeFormat> formats, Collection<BarcodeFormat> some) {
+    for (BarcodeFormat format : some) {
+      if (formats.contains(format)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void addAll(List<Result> results, MultipleBarcodeReader reader,
+                             BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    try {
+      for (Result result : reader.decodeMultiple(image, hints)) {
+        addIfNew(results, result);
+      }
+    } catch (NotFoundException ignored) {
+      // continue
+    }
+  }
+
+  private static boolean addIfNew(List<Result> results, Result result) {
+    for (Result existingResult : results) {
+      if (existingResult.getText().equals(result.getText())) {
+        return false;
+      }
+    }
+    results.add(result);
+    return true;
+  }
+
+  /**
+   * Scans rows of the whole image, as {@code OneDReader} does when trying harder, forwards and then
+   * backwards for upside-down barcodes.
+   */
+  private static void decodeRows(BinaryBitmap image, Map<DecodeHintType,?> hints, List<Result> results) {
+    MultiFormatOneDReader reader = new MultiFormatOneDReader(hints);
+    int width = image.getWidth();
+    int height = image.getHeight();
+    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+    int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
+    Deadline deadline = Deadline.fromHints(hints);
+    BitArray row = new BitArray(width);
+    for (int rowNumber = rowStep >> 1; rowNumber < height; rowNumber += rowStep) {
+      deadline.check();
+      try {
+        row = image.getBlackRow(rowNumber, row);
+      } catch (NotFoundException ignored) {
+        continue;
+      }
+      BitArray reversed = row.clone();
+      reversed.reverse();
+      decodeRow(reader, rowNumber, row, false, hints, results);
+      decodeRow(reader, rowNumber, reversed, true, hints, results);
+    }
+    reader.reset();
+  }
+
+  /**
+   * Decodes barcodes in a row from left to right, blanking out each one found before looking again.
+   */
+  private static void decodeRow(MultiFormatOneDReader reader, int rowNumber, BitArray row, boolean reversed,
+                                Map<DecodeHintType,?> hints, List<Result> results) {
+    int width = row.getSize();
+    int blankedTo = 0;
+    while (blankedTo < width) {
+      Result result;
+      try {
+        result = reader.decodeRow(rowNumber, row, hints);
+      } catch (ReaderException re) {
+        return;
+      }
+      ResultPoint[] points = result.getResultPoints();
+      if (points == null || points.length < 2 || points[0] == null || points[1] == null) {
+        addIfNew(results, result);
+        return;
+      }
+      int end = Math.min(width, (int) Math.max(points[0].getX(), points[1].getX()) + 1);
+      if (end <= blankedTo) {
+        return;
+      }
+      for (int x = blankedTo; x < end; x++) {
+        if (row.get(x)) {
+          row.flip(x);
+        }
+      }
+      blankedTo = end;
+      if (reversed) {
+        result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+        points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
+        points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
+      }
+      addIfNew(results, result);
+    }
+  }
+
+  /**
+   * Runs single-symbol readers over each region of the black matrix that might hold a symbol.
+   */
+  private static void decodeWindows(BinaryBitmap image, Map<DecodeHintType,?> hints,
+                                    List<Reader> readers, List<Result> results) throws NotFoundException {
+    BitMatrix matrix = image.getBlackMatrix().clone();
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    // Symbols already found would only be found again, or get in the way of finding others
+    for (Result result : results) {
+      blankOut(matrix, result.getResultPoints());
+    }
+
+    // Try the whole image first, as the single-symbol readers would
+    List<int[]> windows = new ArrayList<>();
+    windows.add(new int[] {0, 0, width, height});
+    for (int[] region : BlackRegionFinder.findRegions(matrix, CELL_SIZE, MIN_REGION_CELLS)) {
+      // Leave the symbol a quiet zone, and the detector some room to look around it
+      int marginX = Math.max(2 * CELL_SIZE, (region[2] - region[0]) / 4);
+      int marginY = Math.max(2 * CELL_SIZE, (region[3] - region[1]) / 4);
+      int left = Math.max(0, region[0] - marginX);
+      int top = Math.max(0, region[1] - marginY);
+      int right = Math.min(width, region[2] + marginX);
+      int bottom = Math.min(height, region[3] + marginY);
+      windows.add(new int[] {left, top, right - left, bottom - top});
+    }
+
+    Deadline deadline = Deadline.fromHints(hints);
+    for (int[] window : windows) {
+      deadline.check();
+      int left = window[0];
+      int top = window[1];
+      BitMatrix region = copyRegion(matrix, left, top, window[2], window[3]);
+      if (region.getTopLeftOnBit() == null) {
+        continue;
+      }
+      BinaryBitmap windowImage = new BinaryBitmap(new MatrixBinarizer(region));
+      for (Reader reader : readers) {
+        try {
+          Result result = GenericMultipleBarcodeReader.translateResultPoints(
+              reader.decode(windowImage, hints), left, top);
+          if (addIfNew(results, result)) {
+            blankOut(matrix, result.getResultPoints());
+          }
+        } catch (ReaderException re) {
+          // continue
+        } finally {
+          reader.reset();
+        }
+      }
+    }
+  }
+
+  /**
+   * Clears the bounding box of a 2D symbol's result points, widened by a quarter on each side since
+   * result points, like the centers of QR code finder patterns, usually lie inside the symbol.
+   */
+  private static void blankOut(BitMatrix matrix, ResultPoint[] points) {
+    if (points == null || points.length < 3) {
+      return;
+    }
+    float minX = Float.MAX_VALUE;
+    float minY = Float.MAX_VALUE;
+    float maxX = -Float.MAX_VALUE;
+    float maxY = -Float.MAX_VALUE;
+    for (ResultPoint point : points) {
+      if (point != null) {
+        minX = Math.min(minX, point.getX());
+        minY = Math.min(minY, point.getY());
+        maxX = Math.max(maxX, point.getX());
+        maxY = Math.max(maxY, point.getY());
+      }
+    }
+    if (maxX < minX || maxY < minY) {
+      return;
+    }
+    float marginX = (maxX - minX) / 4;
+    float marginY = (maxY - minY) / 4;
+    int left = Math.max(0, (int) (minX - marginX));
+    int top = Math.max(0, (int) (minY - marginY));
+    int right = Math.min(matrix.getWidth(), (int) (maxX + marginX) + 1);
+    int bottom = Math.min(matrix.getHeight(), (int) (maxY + marginY) + 1);
+    for (int y = top; y < bottom; y++) {
+      for (int x = left; x < right; x++) {
+        matrix.unset(x, y);
+      }
+    }
+  }
+
+  /**
+   * @return a copy of part of a matrix, built a 32-bit word at a time
+   */
+  private static BitMatrix copyRegion(BitMatrix matrix, int left, int top, int width, int height) {
+    BitMatrix region = new BitMatrix(width, height);
+    BitArray row = new BitArray(matrix.getWidth());
+    BitArray regionRow = new BitArray(width);
+    int shift = left & 0x1f;
+    for (int y = 0; y < height; y++) {
+      row = matrix.getRow(top + y, row);
+      int[] words = row.getBitArray();
+      int[] regionWords = regionRow.getBitArray();
+      for (int i = 0, j = left >> 5; i < regionWords.length; i++, j++) {
+        int word = words[j] >>> shift;
+        if (shift != 0 && j + 1 < words.length) {
+          word |= words[j + 1] << (32 - shift);
+        }
+        regionWords[i] = word;
+      }
+      // Don't carry over bits beyond the region's width in its last word
+      int extra = regionWords.length * 32 - width;
+      if (extra > 0) {
+        regionWords[regionWords.length - 1] &= -1 >>> extra;
+      }
+      region.setRow(y, regionRow);
+    }
+    return region;
+  }
+
+  /**
+   * Serves a matrix that has already been binarized.
+   */
+  private static final class MatrixBinarizer extends Binarizer {
+
+    private final BitMatrix matrix;
+
+    MatrixBinarizer(BitMatrix matrix) {
+      super(new MatrixLuminanceSource(matrix));
+      this.matrix = matrix;
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) {
+      return matrix.getRow(y, row);
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() {
+      return matrix;
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+      return new GlobalHistogramBinarizer(source);
+    }
+  }
+
+  /**
+   * Renders a matrix as black and white luminance, for readers which want to look at the source.
+   */
+  private static final class MatrixLuminanceSource extends LuminanceSource {
+
+    private final BitMatrix matrix;
+
+    MatrixLuminanceSource(BitMatrix matrix) {
+      super(matrix.getWidth(), matrix.getHeight());
+      this.matrix = matrix;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+      int width = getWidth();
+      if (row == null || row.length < width) {
+        row = new byte[width];
+      }
+      for (int x = 0; x < width; x++) {
+        row[x] = matrix.get(x, y) ? 0 : (byte) 0xFF;
+      }
+      return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+      int width = getWidth();
+      int height = getHeight();
+      byte[] luminances = new byte[width * height];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          luminances[y * width + x] = matrix.get(x, y) ? 0 : (byte) 0xFF;
+        }
+      }
+      return luminances;
+    }
+  }
+
+}
@@ -19,6 +19,8 @@ package com.google.zxing.multi.qrcode;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.Deadline;
+import com.google.zxing.DeadlineExceededException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
@@ -29,7 +31,9 @@ import com.google.zxing.common.DetectorResult;
 import com.google.zxing.multi.MultipleBarcodeReader;
 import com.google.zxing.multi.qrcode.detector.MultiDetector;
 import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.Decoder;
 import com.google.zxing.qrcode.decoder.QRCodeDecoderMetaData;
+import com.google.zxing.qrcode.detector.FinderPatternInfo;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -38,6 +42,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This implementation can detect and decode multiple QR Codes in an image.
@@ -61,33 +70,115 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     DetectorResult[] detectorResults = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
     for (DetectorResult detectorResult : detectorResults) {
       try {
-        DecoderResult decoderResult = getDecoder().decode(detectorResult.getBits(), hints);
-        ResultPoint[] points = detectorResult.getPoints();
-        // If the code was mirrored: swap the bottom-left and the top-right points.
-        if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
-          ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
-        }
-        Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
-                                   BarcodeFormat.QR_CODE);
-        List<byte[]> byteSegments = decoderResult.getByteSegments();
-        if (byteSegments != null) {
-          result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
-        }
-        String ecLevel = decoderResult.getECLevel();
-        if (ecLevel != null) {
-          result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
-        }
-        if (decoderResult.hasStructuredAppend()) {
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
-                             decoderResult.getStructuredAppendSequenceNumber());
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
-                             decoderResult.getStructuredAppendParity());
-        }
-        results.add(result);
+        results.add(decodeDetected(getDecoder(), detectorResult, hints));
       } catch (ReaderException re) {
         // ignore and continue 
       }
     }
+    return toResultArray(results);
+  }
+
+  /**
+   * <p>Like {@link #decodeMultiple(BinaryBitmap, Map)}, but once all QR Codes' finder patterns have
+   * been found, samples and decodes the symbols in tasks on the given executor. This pays off for
+   * images with many symbols, such as sheets of labels.</p>
+   *
+   * <p>Each task takes symbols in turn and decodes them with its own {@link Decoder}. Results are
+   * returned in the same order as {@link #decodeMultiple(BinaryBitmap, Map)} would return them,
+   * whatever order tasks finish in. All tasks have finished when this returns, even if it throws.
+   * The executor is not shut down by this method.</p>
+   *
+   * @param image image to decode
+   * @param hints optional hints
+   * @param executor executor on which symbols are decoded
+   * @param threads number of tasks to decode symbols in
+   * @return results of QR Codes found and decoded
+   * @throws NotFoundException if no QR Code is found
+   * @throws DeadlineExceededException if the calling thread is interrupted, which leaves it
+   *  interrupted, or the {@link DecodeHintType#DEADLINE} passes
+   */
+  public Result[] decodeMultiple(BinaryBitmap image,
+                                 Map<DecodeHintType,?> hints,
+                                 ExecutorService executor,
+                                 int threads) throws NotFoundException {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor must be non-null.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive.");
+    }
+    MultiDetector detector = new MultiDetector(image.getBlackMatrix());
+    FinderPatternInfo[] infos = detector.findMulti(hints);
+
+    // Tasks are stopped through their own deadline, between symbols, and waited for, so that none
+    // is still running after this returns
+    Deadline deadline = Deadline.fromHints(hints).newChild();
+    SymbolDecoding decoding = new SymbolDecoding(detector, infos, hints, deadline);
+    int numTasks = Math.min(threads, infos.length);
+    List<Future<Void>> futures = new ArrayList<>(numTasks);
+    RuntimeException exception = null;
+    Error error = null;
+    boolean interrupted = false;
+    try {
+      for (int i = 0; i < numTasks; i++) {
+        futures.add(executor.submit(decoding.newTask()));
+      }
+    } finally {
+      // Even if a submission failed, wait for the tasks already running
+      if (futures.size() < numTasks) {
+        deadline.cancel();
+      }
+      for (Future<Void> future : futures) {
+        while (true) {
+          try {
+            future.get();
+          } catch (InterruptedException ie) {
+            interrupted = true;
+            deadline.cancel();
+            continue;
+          } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Error) {
+              if (error == null) {
+                error = (Error) cause;
+              }
+              deadline.cancel();
+            } else if (cause instanceof DeadlineExceededException) {
+              // Stopped by this method, or because the caller's deadline passed
+              if (exception == null) {
+                exception = (RuntimeException) cause;
+              }
+            } else if (cause instanceof RuntimeException) {
+              if (exception == null || exception instanceof DeadlineExceededException) {
+                exception = (RuntimeException) cause;
+              }
+              deadline.cancel();
+            }
+          }
+          break;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+    if (exception != null && !(exception instanceof DeadlineExceededException)) {
+      throw exception;
+    }
+    if (interrupted) {
+      // Cancelled above, so this always throws
+      deadline.check();
+    }
+    if (exception != null) {
+      throw exception;
+    }
+    return toResultArray(decoding.getResults());
+  }
+
+  private static Result[] toResultArray(List<Result> results) {
     if (results.isEmpty()) {
       return EMPTY_RESULT_ARRAY;
     } else {
@@ -96,6 +187,34 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     }
   }
 
+  private static Result decodeDetected(Decoder decoder,
+                                       DetectorResult detectorResult,
+                                       Map<DecodeHintType,?> hints) throws ReaderException {
+    DecoderResult decoderResult = decoder.decode(detectorResult.getBits(), hints);
+    ResultPoint[] points = detectorResult.getPoints();
+    // If the code was mirrored: swap the bottom-left and the top-right points.
+    if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
+      ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
+    }
+    Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
+                               BarcodeFormat.QR_CODE);
+    List<byte[]> byteSegments = decoderResult.getByteSegments();
+    if (byteSegments != null) {
+      result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
+    }
+    String ecLevel = decoderResult.getECLevel();
+    if (ecLevel != null) {
+      result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
+    }
+    if (decoderResult.hasStructuredAppend()) {
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
+                         decoderResult.getStructuredAppendSequenceNumber());
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
+                         decoderResult.getStructuredAppendParity());
+    }
+    return result;
+  }
+
   private static List<Result> processStructuredAppend(List<Result> results) {
     boolean hasSA = false;
 
@@ -163,6 +282,60 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     return newResults;
   }
 
+  /**
+   * Symbols to decode, shared between tasks, and their results.
+   */
+  private static final class SymbolDecoding {
+
+    private final MultiDetector detector;
+    private final FinderPatternInfo[] infos;
+    private final Map<DecodeHintType,?> hints;
+    private final Deadline deadline;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    // Filled in by tasks; read once they have all finished
+    private final Result[] results;
+
+    SymbolDecoding(MultiDetector detector,
+                   FinderPatternInfo[] infos,
+                   Map<DecodeHintType,?> hints,
+                   Deadline deadline) {
+      this.detector = detector;
+      this.infos = infos;
+      this.hints = hints;
+      this.deadline = deadline;
+      results = new Result[infos.length];
+    }
+
+    Callable<Void> newTask() {
+      return new Callable<Void>() {
+        @Override
+        public Void call() {
+          Decoder decoder = new Decoder();
+          int index;
+          while ((index = nextIndex.getAndIncrement()) < infos.length) {
+            deadline.check();
+            try {
+              results[index] = decodeDetected(decoder, detector.detectAt(infos[index]), hints);
+            } catch (ReaderException re) {
+              // ignore and continue
+            }
+          }
+          return null;
+        }
+      };
+    }
+
+    List<Result> getResults() {
+      List<Result> found = new ArrayList<>();
+      for (Result result : results) {
+        if (result != null) {
+          found.add(result);
+        }
+      }
+      return found;
+    }
+  }
+
   private static final class SAComparator implements Comparator<Result>, Serializable {
     @Override
     public int compare(Result a, Result b) {
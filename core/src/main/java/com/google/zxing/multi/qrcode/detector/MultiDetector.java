@@ -17,6 +17,7 @@
 package com.google.zxing.multi.qrcode.detector;
 
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ReaderException;
 import com.google.zxing.ResultPointCallback;
@@ -45,20 +46,11 @@ public final class MultiDetector extends Detector {
   }
 
   public DetectorResult[] detectMulti(Map<DecodeHintType,?> hints) throws NotFoundException {
-    BitMatrix image = getImage();
-    ResultPointCallback resultPointCallback =
-        hints == null ? null : (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
-    MultiFinderPatternFinder finder = new MultiFinderPatternFinder(image, resultPointCallback);
-    FinderPatternInfo[] infos = finder.findMulti(hints);
-
-    if (infos.length == 0) {
-      throw NotFoundException.getNotFoundInstance();
-    }
-
+    FinderPatternInfo[] infos = findMulti(hints);
     List<DetectorResult> result = new ArrayList<>();
     for (FinderPatternInfo info : infos) {
       try {
-        result.add(processFinderPatternInfo(info));
+        result.add(detectAt(info));
       } catch (ReaderException e) {
         // ignore
       }
@@ -70,4 +62,37 @@ public final class MultiDetector extends Detector {
     }
   }
 
+  /**
+   * Finds the finder patterns of every QR Code in the image, without sampling any of them. Together
+   * with {@link #detectAt(FinderPatternInfo)} this splits {@link #detectMulti(Map)} into steps,
+   * so that symbols can be sampled separately, such as on different threads.
+   *
+   * @param hints optional hints to detector
+   * @return finder patterns of each possible QR Code
+   * @throws NotFoundException if none is found
+   */
+  public FinderPatternInfo[] findMulti(Map<DecodeHintType,?> hints) throws NotFoundException {
+    ResultPointCallback resultPointCallback =
+        hints == null ? null : (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    MultiFinderPatternFinder finder = new MultiFinderPatternFinder(getImage(), resultPointCallback);
+    FinderPatternInfo[] infos = finder.findMulti(hints);
+    if (infos.length == 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return infos;
+  }
+
+  /**
+   * Samples the QR Code with the given finder patterns. This only reads the image, so may be
+   * called for several symbols at once from different threads.
+   *
+   * @param info finder patterns found by {@link #findMulti(Map)}
+   * @return sampled bits and result points of the QR Code
+   * @throws NotFoundException if no QR Code can be sampled there
+   * @throws FormatException if its version cannot be determined
+   */
+  public DetectorResult detectAt(FinderPatternInfo info) throws NotFoundException, FormatException {
+    return processFinderPatternInfo(info);
+  }
+
 }
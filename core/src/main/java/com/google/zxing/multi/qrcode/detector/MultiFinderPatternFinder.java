@@ -16,6 +16,7 @@
 
 package com.google.zxing.multi.qrcode.detector;
 
+import com.google.zxing.Deadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -27,6 +28,7 @@ import com.google.zxing.qrcode.detector.FinderPatternInfo;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -72,6 +74,16 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
    */
   private static final float DIFF_MODSIZE_CUTOFF = 0.5f;
 
+  /*
+   * Bounds on the sides of any triangle of finder patterns which passes the tests in
+   * selectMutipleBestPatterns(), with some margin. The two legs differ by less than 10%, and the
+   * diagonal is within 10% of what Pythagoras predicts from them, so no side is more than about
+   * 1.64 times as long as another. The legs add up to between 18 and 360 module sizes of the first
+   * pattern, the largest of the three, so every side is between about 8.6 and 295 of them.
+   */
+  private static final float MAX_SIDE_RATIO = 1.7f;
+  private static final float MIN_SIDE_IN_MODULES = 8.0f;
+  private static final float MAX_SIDE_IN_MODULES = 300.0f;
 
   /**
    * A comparator that orders FinderPatterns by their estimated module size.
@@ -103,7 +115,7 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
    *         size differs from the average among those patterns the least
    * @throws NotFoundException if 3 such finder patterns do not exist
    */
-  private FinderPattern[][] selectMutipleBestPatterns() throws NotFoundException {
+  private FinderPattern[][] selectMutipleBestPatterns(Deadline deadline) throws NotFoundException {
     List<FinderPattern> possibleCenters = getPossibleCenters();
     int size = possibleCenters.size();
 
@@ -140,82 +152,50 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
      * counterintuitive at first, but the performance penalty is not that big. At this point,
      * we cannot make a good quality decision whether the three finders actually represent
      * a QR code, or are just by chance layouted so it looks like there might be a QR code there.
-     * So, if the layout seems right, lets have the decoder try to decode.     
+     * So, if the layout seems right, lets have the decoder try to decode.
+     *
+     * Rather than try every triple, candidates for the second and third pattern are looked up in a
+     * spatial index, using bounds that every triple passing the tests above satisfies. Triples are
+     * still tested, and found, in the same order as a plain loop over all of them would.
      */
 
-     List<FinderPattern[]> results = new ArrayList<>(); // holder for the results
+    FinderPattern[] centers = possibleCenters.toArray(new FinderPattern[size]);
+    int[] similarSizeEnd = findSimilarSizeEnds(centers);
+    CenterIndex index = new CenterIndex(centers);
+    int[] candidates2 = new int[size];
+    int[] candidates3 = new int[size];
 
-    for (int i1 = 0; i1 < (size - 2); i1++) {
-      FinderPattern p1 = possibleCenters.get(i1);
-      if (p1 == null) {
-        continue;
-      }
+    List<FinderPattern[]> results = new ArrayList<>(); // holder for the results
 
-      for (int i2 = i1 + 1; i2 < (size - 1); i2++) {
-        FinderPattern p2 = possibleCenters.get(i2);
-        if (p2 == null) {
-          continue;
-        }
-
-        // Compare the expected module sizes; if they are really off, skip
-        float vModSize12 = (p1.getEstimatedModuleSize() - p2.getEstimatedModuleSize()) /
-            Math.min(p1.getEstimatedModuleSize(), p2.getEstimatedModuleSize());
-        float vModSize12A = Math.abs(p1.getEstimatedModuleSize() - p2.getEstimatedModuleSize());
-        if (vModSize12A > DIFF_MODSIZE_CUTOFF && vModSize12 >= DIFF_MODSIZE_CUTOFF_PERCENT) {
-          // break, since elements are ordered by the module size deviation there cannot be
-          // any more interesting elements for the given p1.
-          break;
-        }
-
-        for (int i3 = i2 + 1; i3 < size; i3++) {
-          FinderPattern p3 = possibleCenters.get(i3);
-          if (p3 == null) {
-            continue;
-          }
-
-          // Compare the expected module sizes; if they are really off, skip
-          float vModSize23 = (p2.getEstimatedModuleSize() - p3.getEstimatedModuleSize()) /
-              Math.min(p2.getEstimatedModuleSize(), p3.getEstimatedModuleSize());
-          float vModSize23A = Math.abs(p2.getEstimatedModuleSize() - p3.getEstimatedModuleSize());
-          if (vModSize23A > DIFF_MODSIZE_CUTOFF && vModSize23 >= DIFF_MODSIZE_CUTOFF_PERCENT) {
-            // break, since elements are ordered by the module size deviation there cannot be
-            // any more interesting elements for the given p1.
-            break;
-          }
-
-          FinderPattern[] test = {p1, p2, p3};
-          ResultPoint.orderBestPatterns(test);
-
-          // Calculate the distances: a = topleft-bottomleft, b=topleft-topright, c = diagonal
-          FinderPatternInfo info = new FinderPatternInfo(test);
-          float dA = ResultPoint.distance(info.getTopLeft(), info.getBottomLeft());
-          float dC = ResultPoint.distance(info.getTopRight(), info.getBottomLeft());
-          float dB = ResultPoint.distance(info.getTopLeft(), info.getTopRight());
-
-          // Check the sizes
-          float estimatedModuleCount = (dA + dB) / (p1.getEstimatedModuleSize() * 2.0f);
-          if (estimatedModuleCount > MAX_MODULE_COUNT_PER_EDGE ||
-              estimatedModuleCount < MIN_MODULE_COUNT_PER_EDGE) {
-            continue;
-          }
-
-          // Calculate the difference of the edge lengths in percent
-          float vABBC = Math.abs((dA - dB) / Math.min(dA, dB));
-          if (vABBC >= 0.1f) {
+    for (int i1 = 0; i1 < (size - 2); i1++) {
+      deadline.check();
+      FinderPattern p1 = centers[i1];
+      float moduleSize = p1.getEstimatedModuleSize();
+      float minDistance = MIN_SIDE_IN_MODULES * moduleSize;
+      float maxDistance = MAX_SIDE_IN_MODULES * moduleSize;
+      int numCandidates2 =
+          index.findNear(p1, minDistance, maxDistance, i1 + 1, Math.min(similarSizeEnd[i1], size - 1), candidates2);
+
+      for (int c2 = 0; c2 < numCandidates2; c2++) {
+        int i2 = candidates2[c2];
+        FinderPattern p2 = centers[i2];
+
+        // All sides of the triangle are about as long as this one
+        float d12 = ResultPoint.distance(p1, p2);
+        float minSide = d12 / MAX_SIDE_RATIO;
+        float maxSide = d12 * MAX_SIDE_RATIO;
+        int numCandidates3 = index.findNear(p1, minSide, maxSide, i2 + 1, similarSizeEnd[i2], candidates3);
+
+        for (int c3 = 0; c3 < numCandidates3; c3++) {
+          FinderPattern p3 = centers[candidates3[c3]];
+          float d23 = ResultPoint.distance(p2, p3);
+          if (d23 < minSide || d23 > maxSide) {
             continue;
           }
-
-          // Calculate the diagonal length by assuming a 90° angle at topleft
-          float dCpy = (float) Math.sqrt(dA * dA + dB * dB);
-          // Compare to the real distance in %
-          float vPyC = Math.abs((dC - dCpy) / Math.min(dC, dCpy));
-
-          if (vPyC >= 0.1f) {
-            continue;
+          FinderPattern[] test = testTriple(p1, p2, p3);
+          if (test != null) {
+            results.add(test);
           }
-
-          // All tests passed!
-          results.add(test);
         } // end iterate p3
       } // end iterate p2
     } // end iterate p1
@@ -228,9 +208,80 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
     throw NotFoundException.getNotFoundInstance();
   }
 
+  /**
+   * @param centers centers sorted by decreasing module size
+   * @return for each center, the index of the first later center whose module size is too
+   *  different for the two to belong to the same code. Sizes only get more different further
+   *  along, so all those in between are similar enough.
+   */
+  private static int[] findSimilarSizeEnds(FinderPattern[] centers) {
+    int size = centers.length;
+    int[] ends = new int[size];
+    int end = 0;
+    for (int i = 0; i < size; i++) {
+      if (end <= i) {
+        end = i + 1;
+      }
+      while (end < size && isSimilarModuleSize(centers[i], centers[end])) {
+        end++;
+      }
+      ends[i] = end;
+    }
+    return ends;
+  }
+
+  private static boolean isSimilarModuleSize(FinderPattern larger, FinderPattern smaller) {
+    // Compare the expected module sizes; if they are really off, skip
+    float vModSize = (larger.getEstimatedModuleSize() - smaller.getEstimatedModuleSize()) /
+        Math.min(larger.getEstimatedModuleSize(), smaller.getEstimatedModuleSize());
+    float vModSizeA = Math.abs(larger.getEstimatedModuleSize() - smaller.getEstimatedModuleSize());
+    return vModSizeA <= DIFF_MODSIZE_CUTOFF || vModSize < DIFF_MODSIZE_CUTOFF_PERCENT;
+  }
+
+  /**
+   * @return the three patterns ordered as in {@link ResultPoint#orderBestPatterns(ResultPoint[])}
+   *  if they could be the finder patterns of one code, or null otherwise
+   */
+  private static FinderPattern[] testTriple(FinderPattern p1, FinderPattern p2, FinderPattern p3) {
+    FinderPattern[] test = {p1, p2, p3};
+    ResultPoint.orderBestPatterns(test);
+
+    // Calculate the distances: a = topleft-bottomleft, b=topleft-topright, c = diagonal
+    FinderPatternInfo info = new FinderPatternInfo(test);
+    float dA = ResultPoint.distance(info.getTopLeft(), info.getBottomLeft());
+    float dC = ResultPoint.distance(info.getTopRight(), info.getBottomLeft());
+    float dB = ResultPoint.distance(info.getTopLeft(), info.getTopRight());
+
+    // Check the sizes
+    float estimatedModuleCount = (dA + dB) / (p1.getEstimatedModuleSize() * 2.0f);
+    if (estimatedModuleCount > MAX_MODULE_COUNT_PER_EDGE ||
+        estimatedModuleCount < MIN_MODULE_COUNT_PER_EDGE) {
+      return null;
+    }
+
+    // Calculate the difference of the edge lengths in percent
+    float vABBC = Math.abs((dA - dB) / Math.min(dA, dB));
+    if (vABBC >= 0.1f) {
+      return null;
+    }
+
+    // Calculate the diagonal length by assuming a 90° angle at topleft
+    float dCpy = (float) Math.sqrt(dA * dA + dB * dB);
+    // Compare to the real distance in %
+    float vPyC = Math.abs((dC - dCpy) / Math.min(dC, dCpy));
+
+    if (vPyC >= 0.1f) {
+      return null;
+    }
+
+    // All tests passed!
+    return test;
+  }
+
   public FinderPatternInfo[] findMulti(Map<DecodeHintType,?> hints) throws NotFoundException {
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     boolean pureBarcode = hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE);
+    Deadline deadline = Deadline.fromHints(hints);
     BitMatrix image = getImage();
     int maxI = image.getHeight();
     int maxJ = image.getWidth();
@@ -248,6 +299,7 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
 
     int[] stateCount = new int[5];
     for (int i = iSkip - 1; i < maxI; i += iSkip) {
+      deadline.check();
       // Get a row of black/white values
       stateCount[0] = 0;
       stateCount[1] = 0;
@@ -294,7 +346,7 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
         handlePossibleCenter(stateCount, i, maxJ, pureBarcode);
       } // end if foundPatternCross
     } // for i=iSkip-1 ...
-    FinderPattern[][] patternInfo = selectMutipleBestPatterns();
+    FinderPattern[][] patternInfo = selectMutipleBestPatterns(deadline);
     List<FinderPatternInfo> result = new ArrayList<>();
     for (FinderPattern[] pattern : patternInfo) {
       ResultPoint.orderBestPatterns(pattern);
@@ -308,4 +360,99 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
     }
   }
 
+  /**
+   * A uniform grid over the finder pattern centers, with about one center per cell, for finding
+   * those within some distance of a point.
+   */
+  private static final class CenterIndex {
+
+    private final FinderPattern[] centers;
+    private final float minX;
+    private final float minY;
+    private final float cellWidth;
+    private final float cellHeight;
+    private final int cellsPerSide;
+    // Indices of the centers in cell c are cellContents[cellStarts[c]] to cellContents[cellStarts[c + 1] - 1]
+    private final int[] cellStarts;
+    private final int[] cellContents;
+
+    CenterIndex(FinderPattern[] centers) {
+      this.centers = centers;
+      int size = centers.length;
+      float minX = Float.POSITIVE_INFINITY;
+      float minY = Float.POSITIVE_INFINITY;
+      float maxX = Float.NEGATIVE_INFINITY;
+      float maxY = Float.NEGATIVE_INFINITY;
+      for (FinderPattern center : centers) {
+        minX = Math.min(minX, center.getX());
+        minY = Math.min(minY, center.getY());
+        maxX = Math.max(maxX, center.getX());
+        maxY = Math.max(maxY, center.getY());
+      }
+      this.minX = minX;
+      this.minY = minY;
+      cellsPerSide = (int) Math.ceil(Math.sqrt(size));
+      // Slightly wider than needed, so that the maximum lands in the last cell
+      cellWidth = Math.max(1.0f, (maxX - minX) / cellsPerSide * 1.001f);
+      cellHeight = Math.max(1.0f, (maxY - minY) / cellsPerSide * 1.001f);
+
+      int numCells = cellsPerSide * cellsPerSide;
+      int[] cells = new int[size];
+      cellStarts = new int[numCells + 1];
+      for (int i = 0; i < size; i++) {
+        cells[i] = cellY(centers[i].getY()) * cellsPerSide + cellX(centers[i].getX());
+        cellStarts[cells[i] + 1]++;
+      }
+      for (int c = 0; c < numCells; c++) {
+        cellStarts[c + 1] += cellStarts[c];
+      }
+      cellContents = new int[size];
+      int[] next = Arrays.copyOf(cellStarts, numCells);
+      for (int i = 0; i < size; i++) {
+        cellContents[next[cells[i]]++] = i;
+      }
+    }
+
+    private int cellX(float x) {
+      return Math.max(0, Math.min(cellsPerSide - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    private int cellY(float y) {
+      return Math.max(0, Math.min(cellsPerSide - 1, (int) ((y - minY) / cellHeight)));
+    }
+
+    /**
+     * Finds centers with an index in [from, to) whose distance from a point is within bounds.
+     *
+     * @param found filled with the indices of the centers found, in increasing order
+     * @return number of centers found
+     */
+    int findNear(ResultPoint point, float minDistance, float maxDistance, int from, int to, int[] found) {
+      if (from >= to) {
+        return 0;
+      }
+      int numFound = 0;
+      int left = cellX(point.getX() - maxDistance);
+      int right = cellX(point.getX() + maxDistance);
+      int top = cellY(point.getY() - maxDistance);
+      int bottom = cellY(point.getY() + maxDistance);
+      for (int y = top; y <= bottom; y++) {
+        for (int x = left; x <= right; x++) {
+          int cell = y * cellsPerSide + x;
+          for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+            int center = cellContents[i];
+            if (center >= from && center < to) {
+              float distance = ResultPoint.distance(point, centers[center]);
+              if (distance >= minDistance && distance <= maxDistance) {
+                found[numFound++] = center;
+              }
+            }
+          }
+        }
+      }
+      Arrays.sort(found, 0, numFound);
+      return numFound;
+    }
+  }
+
 }
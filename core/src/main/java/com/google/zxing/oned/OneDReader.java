@@ -18,6 +18,7 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
+import com.google.zxing.Deadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
@@ -56,25 +57,7 @@ public abstract class OneDReader implements Reader {
       boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
       if (tryHarder && image.isRotateSupported()) {
         BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
-        // Record that we found it rotated 90 degrees CCW / 270 degrees CW
-        Map<ResultMetadataType,?> metadata = result.getResultMetadata();
-        int orientation = 270;
-        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
-          // But if we found it reversed in doDecode(), add in that result here:
-          orientation = (orientation +
-              (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
-        }
-        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
-        // Update result points
-        ResultPoint[] points = result.getResultPoints();
-        if (points != null) {
-          int height = rotatedImage.getHeight();
-          for (int i = 0; i < points.length; i++) {
-            points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
-          }
-        }
-        return result;
+        return rotatedBack(doDecode(rotatedImage, hints), rotatedImage.getHeight());
       } else {
         throw nfe;
       }
@@ -86,6 +69,34 @@ public abstract class OneDReader implements Reader {
     // do nothing
   }
 
+  /**
+   * Notes in a result found in an image rotated 90 degrees counterclockwise that it was, and maps
+   * its result points back to the unrotated image.
+   *
+   * @param result result found in the rotated image
+   * @param rotatedHeight height of the rotated image
+   * @return the same result
+   */
+  static Result rotatedBack(Result result, int rotatedHeight) {
+    // Record that we found it rotated 90 degrees CCW / 270 degrees CW
+    Map<ResultMetadataType,?> metadata = result.getResultMetadata();
+    int orientation = 270;
+    if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+      // But if we found it reversed in doDecode(), add in that result here:
+      orientation = (orientation +
+          (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+    }
+    result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+    // Update result points
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new ResultPoint(rotatedHeight - points[i].getY() - 1, points[i].getX());
+      }
+    }
+    return result;
+  }
+
   /**
    * We're going to examine rows from the middle outward, searching alternately above and below the
    * middle, and farther out each time. rowStep is the number of rows between each successive
@@ -95,17 +106,11 @@ public abstract class OneDReader implements Reader {
    * decided that moving up and down by about 1/16 of the image is pretty good; we try more of the
    * image if "trying harder".
    *
-   * @param image The image to decode
+   * @param height height of the image to decode
    * @param hints Any hints that were requested
-   * @return The contents of the decoded barcode
-   * @throws NotFoundException Any spontaneous errors which occur
+   * @return numbers of the rows to examine, in the order to examine them
    */
-  private Result doDecode(BinaryBitmap image,
-                          Map<DecodeHintType,?> hints) throws NotFoundException {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    BitArray row = new BitArray(width);
-
+  static int[] rowsToScan(int height, Map<DecodeHintType,?> hints) {
     int middle = height >> 1;
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
@@ -116,8 +121,9 @@ public abstract class OneDReader implements Reader {
       maxLines = 15; // 15 rows spaced 1/32 apart is roughly the middle half of the image
     }
 
+    int[] rows = new int[maxLines];
+    int numRows = 0;
     for (int x = 0; x < maxLines; x++) {
-
       // Scanning from the middle out. Determine which row we're looking at next:
       int rowStepsAboveOrBelow = (x + 1) / 2;
       boolean isAbove = (x & 0x01) == 0; // i.e. is x even?
@@ -126,6 +132,26 @@ public abstract class OneDReader implements Reader {
         // Oops, if we run off the top or bottom, stop
         break;
       }
+      rows[numRows++] = rowNumber;
+    }
+    return numRows == maxLines ? rows : Arrays.copyOf(rows, numRows);
+  }
+
+  /**
+   * @param image The image to decode
+   * @param hints Any hints that were requested
+   * @return The contents of the decoded barcode
+   * @throws NotFoundException Any spontaneous errors which occur
+   * @see #rowsToScan(int, Map)
+   */
+  private Result doDecode(BinaryBitmap image,
+                          Map<DecodeHintType,?> hints) throws NotFoundException {
+    BitArray row = new BitArray(image.getWidth());
+    Deadline deadline = Deadline.fromHints(hints);
+    Map<DecodeHintType,?> reversedHints = withoutResultPointCallback(hints);
+
+    for (int rowNumber : rowsToScan(image.getHeight(), hints)) {
+      deadline.check();
 
       // Estimate black point for this row and load it:
       try {
@@ -134,46 +160,75 @@ public abstract class OneDReader implements Reader {
         continue;
       }
 
-      // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
-      // handle decoding upside down barcodes.
-      for (int attempt = 0; attempt < 2; attempt++) {
-        if (attempt == 1) { // trying again?
-          row.reverse(); // reverse the row and continue
-          // This means we will only ever draw result points *once* in the life of this method
-          // since we want to avoid drawing the wrong points after flipping the row, and,
-          // don't want to clutter with noise from every single row scan -- just the scans
-          // that start on the center line.
-          if (hints != null && hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
-            Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
-            newHints.putAll(hints);
-            newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
-            hints = newHints;
-          }
-        }
-        try {
-          // Look for a barcode
-          Result result = decodeRow(rowNumber, row, hints);
-          // We found our barcode
-          if (attempt == 1) {
-            // But it was upside down, so note that
-            result.putMetadata(ResultMetadataType.ORIENTATION, 180);
-            // And remember to flip the result points horizontally.
-            ResultPoint[] points = result.getResultPoints();
-            if (points != null) {
-              points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
-              points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
-            }
+      try {
+        return decodeRowBothWays(rowNumber, row, hints, reversedHints);
+      } catch (NotFoundException ignored) {
+        // continue -- just couldn't decode this row
+      }
+      // This means we will only ever draw result points *once* in the life of this method
+      // since we want to avoid drawing the wrong points after flipping the row, and,
+      // don't want to clutter with noise from every single row scan -- just the scans
+      // that start on the center line.
+      hints = reversedHints;
+    }
+
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  /**
+   * Looks for a barcode in a row, then in the row reversed, to handle upside down barcodes. The
+   * row is left reversed if the first attempt fails.
+   *
+   * @param rowNumber row number from top of the row
+   * @param row the black/white pixel data of the row
+   * @param hints hints for reading the row forwards
+   * @param reversedHints hints for reading the row reversed
+   * @return the barcode found, with {@link ResultMetadataType#ORIENTATION} 180 if reversed
+   * @throws NotFoundException if no barcode is found either way
+   */
+  Result decodeRowBothWays(int rowNumber,
+                           BitArray row,
+                           Map<DecodeHintType,?> hints,
+                           Map<DecodeHintType,?> reversedHints) throws NotFoundException {
+    // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
+    // handle decoding upside down barcodes.
+    for (int attempt = 0; attempt < 2; attempt++) {
+      if (attempt == 1) { // trying again?
+        row.reverse(); // reverse the row and continue
+      }
+      try {
+        // Look for a barcode
+        Result result = decodeRow(rowNumber, row, attempt == 0 ? hints : reversedHints);
+        // We found our barcode
+        if (attempt == 1) {
+          // But it was upside down, so note that
+          result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+          // And remember to flip the result points horizontally.
+          ResultPoint[] points = result.getResultPoints();
+          if (points != null) {
+            int width = row.getSize();
+            points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
+            points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
           }
-          return result;
-        } catch (ReaderException re) {
-          // continue -- just couldn't decode this row
         }
+        return result;
+      } catch (ReaderException re) {
+        // continue -- just couldn't decode this row
       }
     }
-
     throw NotFoundException.getNotFoundInstance();
   }
 
+  static Map<DecodeHintType,?> withoutResultPointCallback(Map<DecodeHintType,?> hints) {
+    if (hints == null || !hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+      return hints;
+    }
+    Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+    newHints.putAll(hints);
+    newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    return newHints;
+  }
+
   /**
    * Records the size of successive runs of white and black pixels in a row, starting at a given point.
    * The values are recorded in the given array, and the number of runs recorded is equal to the size
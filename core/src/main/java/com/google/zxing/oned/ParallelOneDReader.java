@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Deadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Reads the same 1D formats as {@link MultiFormatOneDReader}, scanning rows on several threads
+ * at once. This helps most with {@link DecodeHintType#TRY_HARDER}, where every row of a tall image
+ * may be scanned.</p>
+ *
+ * <p>Rows are handed out in the same middle-out order as {@link OneDReader} uses, to workers which
+ * each have their own binarizer, row and readers. Once a row yields a barcode, rows further out
+ * are no longer started, and the barcode from the row nearest the start of that order wins, so
+ * the result is the one a single thread would have found.</p>
+ *
+ * <p>RSS-14 and RSS Expanded readers are different: they collect what they find across rows to
+ * assemble symbols, like stacked RSS Expanded, which no one row holds. Splitting rows between
+ * workers would split that state too, so these formats are read by one more task, which scans
+ * every row in order as {@link MultiFormatOneDReader} would. A barcode found by the row workers is
+ * preferred to one found by that task, which is then stopped.</p>
+ *
+ * <p>The image's {@link com.google.zxing.LuminanceSource} is read from several threads, and
+ * {@link com.google.zxing.ResultPointCallback}s may be called from executor threads. The executor
+ * is not shut down by this class.</p>
+ *
+ * @see MultiFormatOneDReader
+ */
+public final class ParallelOneDReader implements Reader {
+
+  private static final Set<BarcodeFormat> ROW_FORMATS = EnumSet.of(
+      BarcodeFormat.EAN_13, BarcodeFormat.UPC_A, BarcodeFormat.EAN_8, BarcodeFormat.UPC_E,
+      BarcodeFormat.CODE_39, BarcodeFormat.CODE_93, BarcodeFormat.CODE_128, BarcodeFormat.ITF,
+      BarcodeFormat.CODABAR);
+  private static final Set<BarcodeFormat> STACKED_FORMATS =
+      EnumSet.of(BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED);
+
+  private final ExecutorService executor;
+  private final int threads;
+
+  /**
+   * @param executor executor on which rows are scanned; not shut down by this class
+   * @param threads number of threads, including the calling thread, to scan rows on
+   */
+  public ParallelOneDReader(ExecutorService executor, int threads) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor must be non-null.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive.");
+    }
+    this.executor = executor;
+    this.threads = threads;
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image) throws NotFoundException {
+    return decode(image, null);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    @SuppressWarnings("unchecked")
+    Collection<BarcodeFormat> possibleFormats = hints == null ? null :
+        (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    Set<BarcodeFormat> rowFormats = EnumSet.noneOf(BarcodeFormat.class);
+    Set<BarcodeFormat> stackedFormats = EnumSet.noneOf(BarcodeFormat.class);
+    if (possibleFormats != null) {
+      for (BarcodeFormat format : possibleFormats) {
+        if (ROW_FORMATS.contains(format)) {
+          rowFormats.add(format);
+        } else if (STACKED_FORMATS.contains(format)) {
+          stackedFormats.add(format);
+        }
+      }
+    }
+    if (rowFormats.isEmpty() && stackedFormats.isEmpty()) {
+      // As in MultiFormatOneDReader, no 1D format at all means all of them
+      rowFormats.addAll(ROW_FORMATS);
+      stackedFormats.addAll(STACKED_FORMATS);
+    }
+
+    Deadline stackedDeadline = null;
+    Future<Result> stackedScan = null;
+    if (!stackedFormats.isEmpty()) {
+      stackedDeadline = Deadline.fromHints(hints).newChild();
+      final Map<DecodeHintType,Object> stackedHints = withFormats(hints, stackedFormats);
+      stackedHints.put(DecodeHintType.DEADLINE, stackedDeadline);
+      final BinaryBitmap stackedImage = image.copy();
+      stackedScan = executor.submit(new Callable<Result>() {
+        @Override
+        public Result call() throws ReaderException {
+          return new MultiFormatOneDReader(stackedHints).decode(stackedImage, stackedHints);
+        }
+      });
+    }
+
+    try {
+      if (!rowFormats.isEmpty()) {
+        Map<DecodeHintType,?> rowHints = withFormats(hints, rowFormats);
+        Result result = scanRows(image, rowHints);
+        boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+        if (result == null && tryHarder && image.isRotateSupported()) {
+          BinaryBitmap rotatedImage = image.rotateCounterClockwise();
+          result = scanRows(rotatedImage, rowHints);
+          if (result != null) {
+            result = OneDReader.rotatedBack(result, rotatedImage.getHeight());
+          }
+        }
+        if (result != null) {
+          return result;
+        }
+      }
+      if (stackedScan != null) {
+        try {
+          return stackedScan.get();
+        } catch (ExecutionException ee) {
+          rethrowUnchecked(ee);
+          // Otherwise a ReaderException
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (stackedScan != null && !stackedScan.isDone()) {
+        stackedDeadline.cancel();
+        stackedScan.cancel(false);
+      }
+    }
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  @Override
+  public void reset() {
+    // do nothing; readers are made for each decode
+  }
+
+  /**
+   * @return the barcode a single thread scanning the rows of the image in order would find first,
+   *  or null if there is none
+   */
+  private Result scanRows(BinaryBitmap image, Map<DecodeHintType,?> hints) throws InterruptedException {
+    int[] rows = OneDReader.rowsToScan(image.getHeight(), hints);
+    RowScan scan = new RowScan(rows, hints);
+    int numWorkers = Math.min(threads, rows.length);
+    List<Future<Void>> futures = new ArrayList<>(numWorkers);
+    try {
+      for (int i = 1; i < numWorkers; i++) {
+        futures.add(executor.submit(scan.newWorker(image.copy())));
+      }
+      // The calling thread is one of the workers too
+      scan.scan(image);
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ee) {
+          rethrowUnchecked(ee);
+        }
+      }
+    } finally {
+      // Stop any workers still running after an exception
+      scan.stop();
+      for (Future<Void> future : futures) {
+        future.cancel(false);
+      }
+    }
+    return scan.getResult();
+  }
+
+  private static Map<DecodeHintType,Object> withFormats(Map<DecodeHintType,?> hints,
+                                                        Collection<BarcodeFormat> formats) {
+    Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+    if (hints != null) {
+      newHints.putAll(hints);
+    }
+    newHints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+    return newHints;
+  }
+
+  private static void rethrowUnchecked(ExecutionException ee) {
+    Throwable cause = ee.getCause();
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+  }
+
+  /**
+   * Rows to scan, shared between workers, and the earliest of them to have held a barcode.
+   */
+  private static final class RowScan {
+
+    private final int[] rows;
+    private final Map<DecodeHintType,?> hints;
+    private final Map<DecodeHintType,?> reversedHints;
+    private final Deadline deadline;
+    private final Result[] results;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    // Index into rows of the first row found to hold a barcode so far
+    private final AtomicInteger foundIndex;
+
+    RowScan(int[] rows, Map<DecodeHintType,?> hints) {
+      this.rows = rows;
+      this.hints = hints;
+      this.reversedHints = OneDReader.withoutResultPointCallback(hints);
+      this.deadline = Deadline.fromHints(hints);
+      this.results = new Result[rows.length];
+      this.foundIndex = new AtomicInteger(rows.length);
+    }
+
+    Callable<Void> newWorker(final BinaryBitmap image) {
+      return new Callable<Void>() {
+        @Override
+        public Void call() {
+          scan(image);
+          return null;
+        }
+      };
+    }
+
+    void scan(BinaryBitmap image) {
+      MultiFormatOneDReader reader = new MultiFormatOneDReader(hints);
+      BitArray row = new BitArray(image.getWidth());
+      int index;
+      // Rows after one already found to hold a barcode can't change the result
+      while ((index = nextIndex.getAndIncrement()) < foundIndex.get()) {
+        deadline.check();
+        int rowNumber = rows[index];
+        try {
+          row = image.getBlackRow(rowNumber, row);
+        } catch (NotFoundException ignored) {
+          continue;
+        }
+        try {
+          // As in OneDReader, only the first row read forwards reports result points
+          results[index] =
+              reader.decodeRowBothWays(rowNumber, row, index == 0 ? hints : reversedHints, reversedHints);
+        } catch (NotFoundException ignored) {
+          continue;
+        }
+        int found;
+        do {
+          found = foundIndex.get();
+        } while (index < found && !foundIndex.compareAndSet(found, index));
+      }
+    }
+
+    void stop() {
+      nextIndex.set(rows.length);
+    }
+
+    /**
+     * Only valid once all workers have finished.
+     */
+    Result getResult() {
+      int found = foundIndex.get();
+      return found < rows.length ? results[found] : null;
+    }
+
+  }
+
+}
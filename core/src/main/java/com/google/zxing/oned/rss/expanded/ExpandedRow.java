@@ -28,11 +28,14 @@ final class ExpandedRow {
   private final int rowNumber;
   /** Did this row of the image have to be reversed (mirrored) to recognize the pairs? */
   private final boolean wasReversed;
+  /** When this row was stored, relative to others; larger is more recent */
+  private final long storedOrder;
 
-  ExpandedRow(List<ExpandedPair> pairs, int rowNumber, boolean wasReversed) {
+  ExpandedRow(List<ExpandedPair> pairs, int rowNumber, boolean wasReversed, long storedOrder) {
     this.pairs = new ArrayList<>(pairs);
     this.rowNumber = rowNumber;
     this.wasReversed = wasReversed;
+    this.storedOrder = storedOrder;
   }
   
   List<ExpandedPair> getPairs() {
@@ -46,6 +49,10 @@ final class ExpandedRow {
   boolean isReversed() {
     return this.wasReversed;
   }
+
+  long getStoredOrder() {
+    return this.storedOrder;
+  }
   
   boolean isEquivalent(List<ExpandedPair> otherPairs) {
     return this.pairs.equals(otherPairs);
@@ -41,10 +41,12 @@ import com.google.zxing.oned.rss.RSSUtils;
 import com.google.zxing.oned.rss.expanded.decoders.AbstractExpandedDecoder;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
+import java.util.Set;
 
 /**
  * @author Pablo Orduña, University of Deusto (pablo.orduna@deusto.es)
@@ -112,9 +114,12 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   };
 
   private static final int MAX_PAIRS = 11;
+  // Stacked barcode can have up to 11 rows, so 25 leaves room for partial and misread ones
+  private static final int MAX_ROWS = 25;
 
   private final List<ExpandedPair> pairs = new ArrayList<>(MAX_PAIRS);
   private final List<ExpandedRow> rows = new ArrayList<>();
+  private long rowsStored;
   private final int [] startEnd = new int[2];
   private boolean startFromEven;
 
@@ -141,6 +146,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   public void reset() {
     this.pairs.clear();
     this.rows.clear();
+    this.rowsStored = 0;
   }
 
   // Not private for testing
@@ -181,14 +187,6 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   }
 
   private List<ExpandedPair> checkRows(boolean reverse) {
-    // Limit number of rows we are checking
-    // We use recursive algorithm with pure complexity and don't want it to take forever
-    // Stacked barcode can have up to 11 rows, so 25 seems reasonable enough
-    if (this.rows.size() > 25) {
-      this.rows.clear();  // We will never have a chance to get result, so clear it
-      return null;
-    }
-
     this.pairs.clear();
     if (reverse) {
       Collections.reverse(this.rows);
@@ -196,7 +194,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
 
     List<ExpandedPair> ps = null;
     try {
-      ps = checkRows(new ArrayList<ExpandedRow>(), 0);
+      ps = checkRows(new ArrayList<ExpandedRow>(), 0, new HashSet<Long>());
     } catch (NotFoundException e) {
       // OK
     }
@@ -209,8 +207,12 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   }
 
   // Try to construct a valid rows sequence
-  // Recursion is used to implement backtracking
-  private List<ExpandedPair> checkRows(List<ExpandedRow> collectedRows, int currentRow) throws NotFoundException {
+  // Recursion is used to implement backtracking. Whether rows after currentRow can complete the
+  // pairs collected so far depends on only a few of their properties (see searchState()), and
+  // many choices of rows share them, so states which failed are remembered and not tried again.
+  private List<ExpandedPair> checkRows(List<ExpandedRow> collectedRows,
+                                       int currentRow,
+                                       Set<Long> failedStates) throws NotFoundException {
     for (int i = currentRow; i < rows.size(); i++) {
       ExpandedRow row = rows.get(i);
       this.pairs.clear();
@@ -227,12 +229,17 @@ public final class RSSExpandedReader extends AbstractRSSReader {
         return this.pairs;
       }
 
+      if (!failedStates.add(searchState(this.pairs, i + 1))) {
+        // Already tried, and failed
+        continue;
+      }
+
       List<ExpandedRow> rs = new ArrayList<>();
       rs.addAll(collectedRows);
       rs.add(row);
       try {
         // Recursion: try to add more rows
-        return checkRows(rs, i + 1);
+        return checkRows(rs, i + 1, failedStates);
       } catch (NotFoundException e) {
         // We failed, try the next candidate
       }
@@ -244,7 +251,14 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   // Whether the pairs form a valid find pattern seqience,
   // either complete or a prefix
   private static boolean isValidSequence(List<ExpandedPair> pairs) {
-    for (int[] sequence : FINDER_PATTERN_SEQUENCES) {
+    return matchingSequences(pairs) != 0;
+  }
+
+  // Bit i is set when the pairs' finder patterns are FINDER_PATTERN_SEQUENCES[i], or a prefix of it
+  private static int matchingSequences(List<ExpandedPair> pairs) {
+    int matching = 0;
+    for (int i = 0; i < FINDER_PATTERN_SEQUENCES.length; i++) {
+      int[] sequence = FINDER_PATTERN_SEQUENCES[i];
       if (pairs.size() > sequence.length) {
         continue;
       }
@@ -258,11 +272,42 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       }
 
       if (stop) {
-        return true;
+        matching |= 1 << i;
       }
     }
 
-    return false;
+    return matching;
+  }
+
+  // Packs all that decides whether rows from nextRow on can be added to the pairs to pass
+  // checkChecksum(): which finder pattern sequences the pairs can still become, how many there are,
+  // and the check character and running checksum
+  private static long searchState(List<ExpandedPair> pairs, int nextRow) {
+    ExpandedPair firstPair = pairs.get(0);
+    DataCharacter firstCharacter = firstPair.getRightChar();
+    // Zero when no checksum can ever match
+    int checkValue = firstCharacter == null ? 0 : firstPair.getLeftChar().getValue() + 1;
+    int checksum = firstCharacter == null ? 0 : firstCharacter.getChecksumPortion();
+    int s = 2;
+    for (int i = 1; i < pairs.size(); ++i) {
+      ExpandedPair currentPair = pairs.get(i);
+      checksum += currentPair.getLeftChar().getChecksumPortion();
+      s++;
+      DataCharacter currentRightChar = currentPair.getRightChar();
+      if (currentRightChar != null) {
+        checksum += currentRightChar.getChecksumPortion();
+        s++;
+      }
+    }
+    checksum %= 211;
+
+    long state = nextRow;
+    state = (state << 10) | matchingSequences(pairs);
+    state = (state << 4) | pairs.size();
+    state = (state << 5) | s;
+    state = (state << 8) | checksum;
+    state = (state << 16) | checkValue;
+    return state;
   }
 
   private void storeRow(int rowNumber, boolean wasReversed) {
@@ -292,9 +337,24 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       return;
     }
 
-    this.rows.add(insertPos, new ExpandedRow(this.pairs, rowNumber, wasReversed));
+    this.rows.add(insertPos, new ExpandedRow(this.pairs, rowNumber, wasReversed, rowsStored++));
 
     removePartialRows(this.pairs, this.rows);
+
+    if (this.rows.size() > MAX_ROWS) {
+      removeOldestRow(this.rows);
+    }
+  }
+
+  // Rows stored longest ago are the likeliest to be from another symbol, or an earlier frame
+  private static void removeOldestRow(List<ExpandedRow> rows) {
+    int oldest = 0;
+    for (int i = 1; i < rows.size(); i++) {
+      if (rows.get(i).getStoredOrder() < rows.get(oldest).getStoredOrder()) {
+        oldest = i;
+      }
+    }
+    rows.remove(oldest);
   }
 
   // Remove all the rows that contains only specified pairs 
@@ -15,7 +15,6 @@
  */
 package com.google.zxing.pdf417;
 
-import java.util.Arrays;
 import java.util.Collection;
 
 import com.google.zxing.common.detector.MathUtils;
@@ -69,11 +68,20 @@ public final class PDF417Common {
    * @return the codeword corresponding to the symbol.
    */
   public static int getCodeword(int symbol) {
-    int i = Arrays.binarySearch(SYMBOL_TABLE, symbol & 0x3FFFF);
-    if (i < 0) {
-      return -1;
+    symbol &= 0x3FFFF;
+    for (int slot = hashSlot(symbol); ; slot = (slot + 1) & (SYMBOL_HASH_SIZE - 1)) {
+      int key = SYMBOL_HASH_KEYS[slot];
+      if (key == 0) {
+        return -1;
+      }
+      if (key == symbol) {
+        return SYMBOL_HASH_CODEWORDS[slot];
+      }
     }
-    return (CODEWORD_TABLE[i] - 1) % NUMBER_OF_CODEWORDS;
+  }
+
+  private static int hashSlot(int symbol) {
+    return (symbol * 0x9E3779B1) >>> (32 - SYMBOL_HASH_BITS);
   }
 
   /**
@@ -460,4 +468,25 @@ public final class PDF417Common {
       2058, 2054, 1145, 1142, 2005, 2002, 1999, 2009, 1488, 1429, 1426, 2200, 1698, 1659, 1656, 1975, 1053, 1957, 1954,
       1001, 998, 1924, 1921, 1918, 1928, 937, 934, 931, 1879, 1876, 1873, 1870, 945, 1885, 1882, 1323, 1273, 1270,
       2105, 1202, 1199, 1196, 1211, 2061, 2057, 1576, 1543, 1540, 1484, 1481, 1478, 1491, 1700};
+
+  // An open addressing hash table from symbols to codewords, for getCodeword(). Symbols are never 0,
+  // which marks an empty slot. It is at most 70% full, so lookups rarely probe more than a slot
+  // or two.
+  private static final int SYMBOL_HASH_BITS = 12;
+  private static final int SYMBOL_HASH_SIZE = 1 << SYMBOL_HASH_BITS;
+  private static final int[] SYMBOL_HASH_KEYS = new int[SYMBOL_HASH_SIZE];
+  private static final short[] SYMBOL_HASH_CODEWORDS = new short[SYMBOL_HASH_SIZE];
+
+  static {
+    for (int i = 0; i < SYMBOL_TABLE.length; i++) {
+      int symbol = SYMBOL_TABLE[i];
+      int slot = hashSlot(symbol);
+      while (SYMBOL_HASH_KEYS[slot] != 0) {
+        slot = (slot + 1) & (SYMBOL_HASH_SIZE - 1);
+      }
+      SYMBOL_HASH_KEYS[slot] = symbol;
+      SYMBOL_HASH_CODEWORDS[slot] = (short) ((CODEWORD_TABLE[i] - 1) % NUMBER_OF_CODEWORDS);
+    }
+  }
+
 }
@@ -19,6 +19,9 @@ package com.google.zxing.pdf417.decoder;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.pdf417.PDF417Common;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * @author Guenther Grau
  * @author creatale GmbH (christoph.schulz@creatale.de)
@@ -45,6 +48,46 @@ final class PDF417CodewordDecoder {
     }
   }
 
+  // The rows of RATIOS_TABLE, sorted by their ratios. This makes a trie of them: rows which start
+  // with the same d + 1 ratios are neighbours, and RUN_ENDS[d][i] is where the run of them which
+  // includes sorted row i ends.
+  private static final int[] SORTED_ROWS = new int[RATIOS_TABLE.length];
+  private static final short[][] RUN_ENDS = new short[PDF417Common.BARS_IN_MODULE][RATIOS_TABLE.length];
+
+  static {
+    Integer[] rows = new Integer[RATIOS_TABLE.length];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = i;
+    }
+    Arrays.sort(rows, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        float[] ratiosA = RATIOS_TABLE[a];
+        float[] ratiosB = RATIOS_TABLE[b];
+        for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
+          int result = Float.compare(ratiosA[k], ratiosB[k]);
+          if (result != 0) {
+            return result;
+          }
+        }
+        return 0;
+      }
+    });
+    for (int i = 0; i < rows.length; i++) {
+      SORTED_ROWS[i] = rows[i];
+    }
+    for (int depth = 0; depth < PDF417Common.BARS_IN_MODULE; depth++) {
+      short[] runEnds = RUN_ENDS[depth];
+      int end = SORTED_ROWS.length;
+      for (int i = SORTED_ROWS.length - 1; i >= 0; i--) {
+        if (i + 1 < SORTED_ROWS.length && !samePrefix(SORTED_ROWS[i], SORTED_ROWS[i + 1], depth)) {
+          end = i + 1;
+        }
+        runEnds[i] = (short) end;
+      }
+    }
+  }
+
   private PDF417CodewordDecoder() {
   }
 
@@ -89,30 +132,87 @@ final class PDF417CodewordDecoder {
     return (int) result;
   }
 
-  private static int getClosestDecodedValue(int[] moduleBitCount) {
+  private static boolean samePrefix(int row1, int row2, int depth) {
+    for (int k = 0; k <= depth; k++) {
+      if (RATIOS_TABLE[row1][k] != RATIOS_TABLE[row2][k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the symbol whose bar width ratios are closest to those counted, by squared error. Of
+   * symbols as close as each other, the one earliest in {@link PDF417Common#SYMBOL_TABLE} wins.
+   */
+  // Not private for testing
+  static int getClosestDecodedValue(int[] moduleBitCount) {
     int bitCountSum = MathUtils.sum(moduleBitCount);
     float[] bitCountRatios = new float[PDF417Common.BARS_IN_MODULE];
     for (int i = 0; i < bitCountRatios.length; i++) {
       bitCountRatios[i] = moduleBitCount[i] / (float) bitCountSum;
     }
-    float bestMatchError = Float.MAX_VALUE;
-    int bestMatch = -1;
-    for (int j = 0; j < RATIOS_TABLE.length; j++) {
-      float error = 0.0f;
-      float[] ratioTableRow = RATIOS_TABLE[j];
-      for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
-        float diff = ratioTableRow[k] - bitCountRatios[k];
-        error += diff * diff;
-        if (error >= bestMatchError) {
-          break;
+    ClosestMatch match = new ClosestMatch(bitCountRatios);
+    match.search(0, 0, SORTED_ROWS.length, 0.0f);
+    return match.bestRow < 0 ? -1 : PDF417Common.SYMBOL_TABLE[match.bestRow];
+  }
+
+  /**
+   * A branch and bound search of the trie of {@link #RATIOS_TABLE} rows. Errors are summed bar by
+   * bar, just as a scan of all rows would, so the error of any prefix is never more than that of
+   * the rows starting with it, and prefixes already worse than the best row can be skipped.
+   */
+  private static final class ClosestMatch {
+
+    private final float[] ratios;
+    private float bestError = Float.MAX_VALUE;
+    private int bestRow = -1;
+
+    ClosestMatch(float[] ratios) {
+      this.ratios = ratios;
+    }
+
+    /**
+     * Searches sorted rows start to end, which share their first depth ratios, with the given
+     * error.
+     */
+    void search(int depth, int start, int end, float error) {
+      // Try the child closest to the ratio first, so that a good match is found early
+      int closest = start;
+      float closestDiff = Float.MAX_VALUE;
+      for (int child = start; child < end; child = RUN_ENDS[depth][child]) {
+        float diff = Math.abs(RATIOS_TABLE[SORTED_ROWS[child]][depth] - ratios[depth]);
+        if (diff < closestDiff) {
+          closestDiff = diff;
+          closest = child;
         }
       }
-      if (error < bestMatchError) {
-        bestMatchError = error;
-        bestMatch = PDF417Common.SYMBOL_TABLE[j];
+      searchChild(depth, closest, error);
+      for (int child = start; child < end; child = RUN_ENDS[depth][child]) {
+        if (child != closest) {
+          searchChild(depth, child, error);
+        }
       }
     }
-    return bestMatch;
+
+    private void searchChild(int depth, int child, float error) {
+      int row = SORTED_ROWS[child];
+      float diff = RATIOS_TABLE[row][depth] - ratios[depth];
+      error += diff * diff;
+      if (error > bestError) {
+        return;
+      }
+      if (depth == PDF417Common.BARS_IN_MODULE - 1) {
+        // A single row; no two symbols have the same ratios
+        if (error < bestError || row < bestRow) {
+          bestError = error;
+          bestRow = row;
+        }
+      } else {
+        search(depth + 1, child, RUN_ENDS[depth][child], error);
+      }
+    }
+
   }
 
 }
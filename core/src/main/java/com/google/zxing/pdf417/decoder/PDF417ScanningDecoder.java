@@ -17,6 +17,8 @@
 package com.google.zxing.pdf417.decoder;
 
 import com.google.zxing.ChecksumException;
+import com.google.zxing.Deadline;
+import com.google.zxing.DeadlineExceededException;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -56,6 +58,25 @@ public final class PDF417ScanningDecoder {
                                      ResultPoint imageBottomRight,
                                      int minCodewordWidth,
                                      int maxCodewordWidth) throws NotFoundException, FormatException, ChecksumException {
+    return decode(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight,
+        minCodewordWidth, maxCodewordWidth, Deadline.fromHints(null));
+  }
+
+  /**
+   * Like {@link #decode(BitMatrix, ResultPoint, ResultPoint, ResultPoint, ResultPoint, int, int)}, but checks the
+   * deadline before each column of codewords is read, and before each attempt to decode with different values for
+   * ambiguous codewords.
+   *
+   * @throws DeadlineExceededException if the deadline passes
+   */
+  public static DecoderResult decode(BitMatrix image,
+                                     ResultPoint imageTopLeft,
+                                     ResultPoint imageBottomLeft,
+                                     ResultPoint imageTopRight,
+                                     ResultPoint imageBottomRight,
+                                     int minCodewordWidth,
+                                     int maxCodewordWidth,
+                                     Deadline deadline) throws NotFoundException, FormatException, ChecksumException {
     BoundingBox boundingBox = new BoundingBox(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight);
     DetectionResultRowIndicatorColumn leftRowIndicatorColumn = null;
     DetectionResultRowIndicatorColumn rightRowIndicatorColumn = null;
@@ -88,6 +109,7 @@ public final class PDF417ScanningDecoder {
 
     boolean leftToRight = leftRowIndicatorColumn != null;
     for (int barcodeColumnCount = 1; barcodeColumnCount <= maxBarcodeColumn; barcodeColumnCount++) {
+      deadline.check();
       int barcodeColumn = leftToRight ? barcodeColumnCount : maxBarcodeColumn - barcodeColumnCount;
       if (detectionResult.getDetectionResultColumn(barcodeColumn) != null) {
         // This will be the case for the opposite row indicator column, which doesn't need to be decoded again.
@@ -121,7 +143,7 @@ public final class PDF417ScanningDecoder {
         }
       }
     }
-    return createDecoderResult(detectionResult);
+    return createDecoderResult(detectionResult, deadline);
   }
 
   private static DetectionResult merge(DetectionResultRowIndicatorColumn leftRowIndicatorColumn,
@@ -248,7 +270,8 @@ public final class PDF417ScanningDecoder {
     }
   }
 
-  private static DecoderResult createDecoderResult(DetectionResult detectionResult) throws FormatException,
+  private static DecoderResult createDecoderResult(DetectionResult detectionResult,
+                                                   Deadline deadline) throws FormatException,
       ChecksumException, NotFoundException {
     BarcodeValue[][] barcodeMatrix = createBarcodeMatrix(detectionResult);
     adjustCodewordCount(detectionResult, barcodeMatrix);
@@ -275,7 +298,8 @@ public final class PDF417ScanningDecoder {
       ambiguousIndexValues[i] = ambiguousIndexValuesList.get(i);
     }
     return createDecoderResultFromAmbiguousValues(detectionResult.getBarcodeECLevel(), codewords,
-        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues);
+        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues,
+        deadline);
   }
 
   /**
@@ -290,17 +314,20 @@ public final class PDF417ScanningDecoder {
    * @param ambiguousIndexes array with the indexes that have more than one most likely value
    * @param ambiguousIndexValues two dimensional array that contains the ambiguous values. The first dimension must
    * be the same length as the ambiguousIndexes array
+   * @param deadline checked before each try
    */
   private static DecoderResult createDecoderResultFromAmbiguousValues(int ecLevel,
                                                                       int[] codewords,
                                                                       int[] erasureArray,
                                                                       int[] ambiguousIndexes,
-                                                                      int[][] ambiguousIndexValues)
+                                                                      int[][] ambiguousIndexValues,
+                                                                      Deadline deadline)
       throws FormatException, ChecksumException {
     int[] ambiguousIndexCount = new int[ambiguousIndexes.length];
 
     int tries = 100;
     while (tries-- > 0) {
+      deadline.check();
       for (int i = 0; i < ambiguousIndexCount.length; i++) {
         codewords[ambiguousIndexes[i]] = ambiguousIndexValues[i][ambiguousIndexCount[i]];
       }
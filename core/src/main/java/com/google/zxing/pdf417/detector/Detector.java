@@ -17,6 +17,7 @@
 package com.google.zxing.pdf417.detector;
 
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Deadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -76,13 +77,14 @@ public final class Detector {
     // different binarizers
     //boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
 
+    Deadline deadline = Deadline.fromHints(hints);
     BitMatrix bitMatrix = image.getBlackMatrix();
 
-    List<ResultPoint[]> barcodeCoordinates = detect(multiple, bitMatrix);
+    List<ResultPoint[]> barcodeCoordinates = detect(multiple, bitMatrix, deadline);
     if (barcodeCoordinates.isEmpty()) {
       bitMatrix = bitMatrix.clone();
       bitMatrix.rotate180();
-      barcodeCoordinates = detect(multiple, bitMatrix);
+      barcodeCoordinates = detect(multiple, bitMatrix, deadline);
     }
     return new PDF417DetectorResult(bitMatrix, barcodeCoordinates);
   }
@@ -92,14 +94,16 @@ public final class Detector {
    * @param multiple if true, then the image is searched for multiple codes. If false, then at most one code will
    * be found and returned
    * @param bitMatrix bit matrix to detect barcodes in
+   * @param deadline checked before each search for a barcode
    * @return List of ResultPoint arrays containing the coordinates of found barcodes
    */
-  private static List<ResultPoint[]> detect(boolean multiple, BitMatrix bitMatrix) {
+  private static List<ResultPoint[]> detect(boolean multiple, BitMatrix bitMatrix, Deadline deadline) {
     List<ResultPoint[]> barcodeCoordinates = new ArrayList<>();
     int row = 0;
     int column = 0;
     boolean foundBarcodeInRow = false;
     while (row < bitMatrix.getHeight()) {
+      deadline.check();
       ResultPoint[] vertices = findVertices(bitMatrix, row, column);
 
       if (vertices[0] == null && vertices[3] == null) {
@@ -21,9 +21,10 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
+import com.google.zxing.common.reedsolomon.BerlekampMasseyDecoder;
 import com.google.zxing.common.reedsolomon.GenericGF;
-import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
+import com.google.zxing.common.reedsolomon.ReedSolomonWorkspaceDecoder;
 
 import java.util.Map;
 
@@ -31,14 +32,32 @@ import java.util.Map;
  * <p>The main class which implements QR Code decoding -- as opposed to locating and extracting
  * the QR Code from an image.</p>
  *
+ * <p>An instance keeps a Reed-Solomon workspace which is reused from one decode to the next, and
+ * so must not be used from more than one thread at a time. Readers hold one each.</p>
+ *
  * @author Sean Owen
  */
 public final class Decoder {
 
-  private final ReedSolomonDecoder rsDecoder;
+  private final ReedSolomonWorkspaceDecoder rsDecoder;
+  private final BerlekampMasseyDecoder bmDecoder;
 
   public Decoder() {
-    rsDecoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
+    this(false);
+  }
+
+  /**
+   * @param useBerlekampMassey if true, correct errors with {@link BerlekampMasseyDecoder} rather
+   *  than the Euclidean algorithm of {@link ReedSolomonWorkspaceDecoder}, which is the default
+   */
+  public Decoder(boolean useBerlekampMassey) {
+    if (useBerlekampMassey) {
+      rsDecoder = null;
+      bmDecoder = new BerlekampMasseyDecoder(GenericGF.QR_CODE_FIELD_256);
+    } else {
+      rsDecoder = new ReedSolomonWorkspaceDecoder(GenericGF.QR_CODE_FIELD_256);
+      bmDecoder = null;
+    }
   }
 
   public DecoderResult decode(boolean[][] image) throws ChecksumException, FormatException {
@@ -188,7 +207,12 @@ public final class Decoder {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
     try {
-      rsDecoder.decode(codewordsInts, codewordBytes.length - numDataCodewords);
+      int numECCodewords = codewordBytes.length - numDataCodewords;
+      if (bmDecoder != null) {
+        bmDecoder.decode(codewordsInts, numECCodewords);
+      } else {
+        rsDecoder.decode(codewordsInts, numECCodewords);
+      }
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -16,6 +16,7 @@
 
 package com.google.zxing.qrcode.detector;
 
+import com.google.zxing.Deadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -76,6 +77,7 @@ public class FinderPatternFinder {
   final FinderPatternInfo find(Map<DecodeHintType,?> hints) throws NotFoundException {
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     boolean pureBarcode = hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE);
+    Deadline deadline = Deadline.fromHints(hints);
     int maxI = image.getHeight();
     int maxJ = image.getWidth();
     // We are looking for black/white/black/white/black modules in
@@ -93,6 +95,7 @@ public class FinderPatternFinder {
     boolean done = false;
     int[] stateCount = new int[5];
     for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
+      deadline.check();
       // Get a row of black/white values
       stateCount[0] = 0;
       stateCount[1] = 0;
@@ -49,16 +49,10 @@ public final class Encoder {
 
   static final String DEFAULT_BYTE_MODE_ENCODING = "ISO-8859-1";
 
-  private Encoder() {
-  }
+  // Thread-safe, and shares its generators across all blocks and codes
+  private static final ReedSolomonEncoder RS_ENCODER = new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
 
-  // The mask penalty calculation is complicated.  See Table 21 of JISX0510:2004 (p.45) for details.
-  // Basically it applies four rules and summate all penalties.
-  private static int calculateMaskPenalty(ByteMatrix matrix) {
-    return MaskUtil.applyMaskPenaltyRule1(matrix)
-        + MaskUtil.applyMaskPenaltyRule2(matrix)
-        + MaskUtil.applyMaskPenaltyRule3(matrix)
-        + MaskUtil.applyMaskPenaltyRule4(matrix);
+  private Encoder() {
   }
 
   /**
@@ -147,7 +141,8 @@ public final class Encoder {
     //  Choose the mask pattern and set to "qrCode".
     int dimension = version.getDimensionForVersion();
     ByteMatrix matrix = new ByteMatrix(dimension, dimension);
-    int maskPattern = chooseMaskPattern(finalBits, ecLevel, version, matrix);
+    // The mask penalty calculation is complicated.  See Table 21 of JISX0510:2004 (p.45) for details.
+    int maskPattern = MaskSelector.chooseMaskPattern(finalBits, ecLevel, version, matrix);
     qrCode.setMaskPattern(maskPattern);
 
     // Build the matrix and set it to "qrCode".
@@ -249,25 +244,6 @@ public final class Encoder {
     return true;
   }
 
-  private static int chooseMaskPattern(BitArray bits,
-                                       ErrorCorrectionLevel ecLevel,
-                                       Version version,
-                                       ByteMatrix matrix) throws WriterException {
-
-    int minPenalty = Integer.MAX_VALUE;  // Lower penalty is better.
-    int bestMaskPattern = -1;
-    // We try all mask patterns to choose the best one.
-    for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
-      MatrixUtil.buildMatrix(bits, ecLevel, version, maskPattern, matrix);
-      int penalty = calculateMaskPenalty(matrix);
-      if (penalty < minPenalty) {
-        minPenalty = penalty;
-        bestMaskPattern = maskPattern;
-      }
-    }
-    return bestMaskPattern;
-  }
-
   private static Version chooseVersion(int numInputBits, ErrorCorrectionLevel ecLevel) throws WriterException {
     for (int versionNum = 1; versionNum <= 40; versionNum++) {
       Version version = Version.getVersionForNumber(versionNum);
@@ -460,7 +436,7 @@ public final class Encoder {
     for (int i = 0; i < numDataBytes; i++) {
       toEncode[i] = dataBytes[i] & 0xFF;
     }
-    new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256).encode(toEncode, numEcBytesInBlock);
+    RS_ENCODER.encode(toEncode, numEcBytesInBlock);
 
     byte[] ecBytes = new byte[numEcBytesInBlock];
     for (int i = 0; i < numEcBytesInBlock; i++) {
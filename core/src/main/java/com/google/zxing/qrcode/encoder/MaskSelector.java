@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Chooses the mask pattern with the lowest penalty by {@link MaskUtil}'s rules, without
+ * building the whole matrix again for each mask.</p>
+ *
+ * <p>The matrix is built once, unmasked, and packed into rows of bits. Each mask is applied to the
+ * data modules by XORing in its own packed rows, and then all four rules are scored in one pass
+ * over the rows, 64 modules at a time: runs, blocks and finder-like patterns are found by shifting
+ * and combining words, and counted with {@link Long#bitCount(long)}. Penalties are exactly those
+ * {@link MaskUtil} gives.</p>
+ */
+final class MaskSelector {
+
+  // Penalty weights from section 6.8.2.1, as in MaskUtil
+  private static final int N1 = 3;
+  private static final int N2 = 3;
+  private static final int N3 = 40;
+  private static final int N4 = 10;
+
+  // Packed rows of each mask pattern, by version number
+  private static final AtomicReferenceArray<long[][][]> MASK_ROWS = new AtomicReferenceArray<>(41);
+
+  private MaskSelector() {
+  }
+
+  /**
+   * @return the mask pattern with the lowest penalty, the lowest numbered of any tied
+   */
+  static int chooseMaskPattern(BitArray dataBits,
+                               ErrorCorrectionLevel ecLevel,
+                               Version version,
+                               ByteMatrix matrix) throws WriterException {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+
+    // Build the matrix as MatrixUtil.buildMatrix() does, noting which cells are type information
+    // and data, the ones that depend on the mask
+    MatrixUtil.clearMatrix(matrix);
+    MatrixUtil.embedBasicPatterns(version, matrix);
+    MatrixUtil.maybeEmbedVersionInfo(version, matrix);
+    long[][] typeInfoCells = packCells(matrix, -1);
+    MatrixUtil.embedTypeInfo(ecLevel, 0, matrix);
+    long[][] dataCells = packCells(matrix, -1);
+    int numTypeInfoCells = 0;
+    for (int y = 0; y < height; y++) {
+      for (int i = 0; i < typeInfoCells[y].length; i++) {
+        typeInfoCells[y][i] &= ~dataCells[y][i];
+        numTypeInfoCells += Long.bitCount(typeInfoCells[y][i]);
+      }
+    }
+    int[] typeInfoX = new int[numTypeInfoCells];
+    int[] typeInfoY = new int[numTypeInfoCells];
+    int cell = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if ((typeInfoCells[y][x >> 6] & (1L << (x & 0x3F))) != 0) {
+          typeInfoX[cell] = x;
+          typeInfoY[cell] = y;
+          cell++;
+        }
+      }
+    }
+    boolean[][] typeInfoBits = new boolean[QRCode.NUM_MASK_PATTERNS][numTypeInfoCells];
+    for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+      MatrixUtil.embedTypeInfo(ecLevel, maskPattern, matrix);
+      for (int i = 0; i < numTypeInfoCells; i++) {
+        typeInfoBits[maskPattern][i] = matrix.get(typeInfoX[i], typeInfoY[i]) == 1;
+      }
+    }
+    MatrixUtil.embedDataBits(dataBits, -1, matrix);
+    long[][] unmasked = packCells(matrix, 1);
+
+    long[][][] maskRows = getMaskRows(version, width, height);
+    int words = unmasked[0].length;
+    long[][] masked = new long[height][words];
+    int minPenalty = Integer.MAX_VALUE;  // Lower penalty is better.
+    int bestMaskPattern = -1;
+    for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+      long[][] patternRows = maskRows[maskPattern];
+      for (int y = 0; y < height; y++) {
+        for (int i = 0; i < words; i++) {
+          masked[y][i] = (unmasked[y][i] & ~typeInfoCells[y][i]) ^ (patternRows[y][i] & dataCells[y][i]);
+        }
+      }
+      for (int i = 0; i < numTypeInfoCells; i++) {
+        if (typeInfoBits[maskPattern][i]) {
+          masked[typeInfoY[i]][typeInfoX[i] >> 6] |= 1L << (typeInfoX[i] & 0x3F);
+        }
+      }
+      int penalty = calculatePenalty(masked, width);
+      if (penalty < minPenalty) {
+        minPenalty = penalty;
+        bestMaskPattern = maskPattern;
+      }
+    }
+    return bestMaskPattern;
+  }
+
+  /**
+   * Scores a matrix by all four of {@link MaskUtil}'s rules, in one pass.
+   *
+   * @param rows packed rows of the matrix: bit x % 64 of word x / 64 of a row is set for a dark
+   *  cell at x, and bits past the width are clear
+   * @param width width of the matrix
+   * @return the sum of the penalties of {@link MaskUtil}'s four rules
+   */
+  static int calculatePenalty(long[][] rows, int width) {
+    int height = rows.length;
+    int words = rows[0].length;
+    // Cells in the row, and cells which have a cell to their right
+    long[] rowCells = new long[words];
+    long[] pairCells = new long[words];
+    for (int x = 0; x < width; x++) {
+      rowCells[x >> 6] |= 1L << (x & 0x3F);
+      if (x < width - 1) {
+        pairCells[x >> 6] |= 1L << (x & 0x3F);
+      }
+    }
+
+    int numRunCells = 0;
+    int numRuns = 0;
+    int numBlocks = 0;
+    int numFinderPatterns = 0;
+    int numDarkCells = 0;
+    for (int y = 0; y < height; y++) {
+      long[] row = rows[y];
+      long[] nextRow = y + 1 < height ? rows[y + 1] : null;
+      for (int i = 0; i < words; i++) {
+        long cells = row[i];
+        numDarkCells += Long.bitCount(cells);
+
+        // Rule 1, across. A run of n >= 5 costs N1 + (n - 5): 1 for each of the n - 4 cells which
+        // start 5 of the same color, and N1 - 1 more for the run, counted at its first cell
+        long right1 = shifted(row, i, 1);
+        long right2 = shifted(row, i, 2);
+        long right3 = shifted(row, i, 3);
+        long right4 = shifted(row, i, 4);
+        long left1 = shifted(row, i, -1);
+        long five = ~(cells ^ right1) & ~(right1 ^ right2) & ~(right2 ^ right3) & ~(right3 ^ right4) &
+            shifted(pairCells, i, 3);
+        long firstCells = i == 0 ? 1L : 0L;
+        long runStarts = five & ((cells ^ left1) | firstCells);
+        numRunCells += Long.bitCount(five);
+        numRuns += Long.bitCount(runStarts);
+
+        // Rule 3, across: 1011101 with 4 light cells, or the edge, before or after it. The last
+        // dark cell of the pattern must be in the row, so the pattern is too.
+        long right5 = shifted(row, i, 5);
+        long right6 = shifted(row, i, 6);
+        long darkBefore = left1 | shifted(row, i, -2) | shifted(row, i, -3) | shifted(row, i, -4);
+        long darkAfter = shifted(row, i, 7) | shifted(row, i, 8) | shifted(row, i, 9) | shifted(row, i, 10);
+        numFinderPatterns += Long.bitCount(
+            finderPatterns(cells, right1, right2, right3, right4, right5, right6, darkBefore, darkAfter));
+
+        if (nextRow != null) {
+          // Rule 2: 2x2 blocks of one color
+          long next = nextRow[i];
+          numBlocks += Long.bitCount(~(cells ^ right1) & ~(cells ^ next) & ~(right1 ^ shifted(nextRow, i, 1)) &
+                                     pairCells[i]);
+        }
+
+        if (y + 4 < height) {
+          // Rule 1, down, counted in the same way
+          long fiveDown = ~(cells ^ rows[y + 1][i]) & ~(rows[y + 1][i] ^ rows[y + 2][i]) &
+              ~(rows[y + 2][i] ^ rows[y + 3][i]) & ~(rows[y + 3][i] ^ rows[y + 4][i]) & rowCells[i];
+          long runStartsDown = y == 0 ? fiveDown : fiveDown & (cells ^ rows[y - 1][i]);
+          numRunCells += Long.bitCount(fiveDown);
+          numRuns += Long.bitCount(runStartsDown);
+        }
+
+        if (y + 6 < height) {
+          // Rule 3, down
+          long darkAbove = rowWord(rows, y - 1, i) | rowWord(rows, y - 2, i) | rowWord(rows, y - 3, i) |
+              rowWord(rows, y - 4, i);
+          long darkBelow = rowWord(rows, y + 7, i) | rowWord(rows, y + 8, i) | rowWord(rows, y + 9, i) |
+              rowWord(rows, y + 10, i);
+          numFinderPatterns += Long.bitCount(finderPatterns(
+              cells, rows[y + 1][i], rows[y + 2][i], rows[y + 3][i], rows[y + 4][i], rows[y + 5][i],
+              rows[y + 6][i], darkAbove, darkBelow));
+        }
+      }
+    }
+
+    // Rule 4: distance of the proportion of dark cells from 50%, in steps of 5%
+    int numTotalCells = height * width;
+    int fivePercentVariances = Math.abs(numDarkCells * 2 - numTotalCells) * 10 / numTotalCells;
+
+    return numRunCells + (N1 - 1) * numRuns + N2 * numBlocks + N3 * numFinderPatterns +
+        N4 * fivePercentVariances;
+  }
+
+  /**
+   * @return bits set where the cells form 1011101, dark first, with all light cells before or after
+   */
+  private static long finderPatterns(long c0, long c1, long c2, long c3, long c4, long c5, long c6,
+                                     long darkBefore, long darkAfter) {
+    return c0 & ~c1 & c2 & c3 & c4 & ~c5 & c6 & ~(darkBefore & darkAfter);
+  }
+
+  /**
+   * @return cells x + offset of a packed row, for the 64 x of word i, with cells off the row clear
+   */
+  private static long shifted(long[] row, int i, int offset) {
+    int start = (i << 6) + offset;
+    int word = start >> 6;
+    int shift = start & 0x3F;
+    long low = word >= 0 && word < row.length ? row[word] : 0L;
+    if (shift == 0) {
+      return low;
+    }
+    long high = word + 1 >= 0 && word + 1 < row.length ? row[word + 1] : 0L;
+    return (low >>> shift) | (high << (64 - shift));
+  }
+
+  private static long rowWord(long[][] rows, int y, int i) {
+    return y >= 0 && y < rows.length ? rows[y][i] : 0L;
+  }
+
+  /**
+   * @return packed rows with bits set where the matrix holds the given value
+   */
+  static long[][] packCells(ByteMatrix matrix, int value) {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    byte[][] array = matrix.getArray();
+    long[][] rows = new long[height][(width + 63) >> 6];
+    for (int y = 0; y < height; y++) {
+      byte[] arrayY = array[y];
+      long[] row = rows[y];
+      for (int x = 0; x < width; x++) {
+        if (arrayY[x] == value) {
+          row[x >> 6] |= 1L << (x & 0x3F);
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static long[][][] getMaskRows(Version version, int width, int height) {
+    int versionNumber = version.getVersionNumber();
+    long[][][] maskRows = MASK_ROWS.get(versionNumber);
+    if (maskRows == null) {
+      // Built the same by any thread, so it doesn't matter whose is kept
+      maskRows = new long[QRCode.NUM_MASK_PATTERNS][height][(width + 63) >> 6];
+      for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+        for (int y = 0; y < height; y++) {
+          for (int x = 0; x < width; x++) {
+            if (MaskUtil.getDataMaskBit(maskPattern, x, y)) {
+              maskRows[maskPattern][y][x >> 6] |= 1L << (x & 0x3F);
+            }
+          }
+        }
+      }
+      MASK_ROWS.set(versionNumber, maskRows);
+    }
+    return maskRows;
+  }
+
+}
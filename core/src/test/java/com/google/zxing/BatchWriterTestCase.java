@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests {@link BatchWriter}.
+ */
+public final class BatchWriterTestCase extends Assert {
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSameAsSerial() throws Exception {
+    List<String> contents = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      StringBuilder label = new StringBuilder("LABEL-").append(i);
+      for (int j = 0; j < i; j++) {
+        label.append((char) ('A' + j % 26));
+      }
+      contents.add(label.toString());
+    }
+    Map<EncodeHintType,Object> hints = new EnumMap<>(EncodeHintType.class);
+    hints.put(EncodeHintType.MARGIN, 2);
+    BatchWriter writer = new BatchWriter(executor, 4);
+    for (BarcodeFormat format : Arrays.asList(BarcodeFormat.QR_CODE,
+                                              BarcodeFormat.DATA_MATRIX,
+                                              BarcodeFormat.PDF_417,
+                                              BarcodeFormat.AZTEC)) {
+      List<BitMatrix> matrices = writer.encode(contents, format, 0, 0, hints);
+      assertEquals(contents.size(), matrices.size());
+      for (int i = 0; i < contents.size(); i++) {
+        assertEquals(format + " " + i,
+                     new MultiFormatWriter().encode(contents.get(i), format, 0, 0, hints), matrices.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testCallbackOrder() throws Exception {
+    final List<String> seen = new ArrayList<>();
+    List<String> contents = Arrays.asList("1", "22", "333", "4444", "55555", "666666", "7777777", "88888888",
+                                          "999999999", "10101010101");
+    new BatchWriter(executor, 3).encode(contents.iterator(), BarcodeFormat.QR_CODE, 100, 100, null,
+        new BatchWriter.Callback() {
+          @Override
+          public void encoded(int index, String text, BitMatrix matrix) {
+            assertEquals(seen.size(), index);
+            assertEquals(100, matrix.getWidth());
+            seen.add(text);
+          }
+        });
+    assertEquals(contents, seen);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadContents() throws Exception {
+    // Too many digits for EAN-13
+    new BatchWriter(executor, 2).encode(Arrays.asList("5901234123457", "59012341234570"),
+                                        BarcodeFormat.EAN_13, 100, 50, null);
+  }
+
+}
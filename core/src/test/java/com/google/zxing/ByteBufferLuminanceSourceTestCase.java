@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests {@link ByteBufferLuminanceSource}.
+ */
+public final class ByteBufferLuminanceSourceTestCase extends Assert {
+
+  private static final int COLS = 7;
+  private static final int ROWS = 5;
+  // Rows are padded to this length, and the data starts at this position in the buffer
+  private static final int STRIDE = 10;
+  private static final int POSITION = 3;
+
+  @Test
+  public void testNoCrop() {
+    LuminanceSource source = new ByteBufferLuminanceSource(createBuffer(), STRIDE, COLS, ROWS, 0, 0, COLS, ROWS);
+    assertSameAs(expectedPixels(), source);
+  }
+
+  @Test
+  public void testCrop() {
+    LuminanceSource source = new ByteBufferLuminanceSource(createBuffer(), STRIDE, COLS, ROWS, 1, 2, 5, 3);
+    assertSameAs(crop(expectedPixels(), 1, 2, 5, 3), source);
+    assertSameAs(crop(expectedPixels(), 2, 3, 3, 1), source.crop(1, 1, 3, 1));
+  }
+
+  @Test
+  public void testRotate() {
+    LuminanceSource source = new ByteBufferLuminanceSource(createBuffer(), STRIDE, COLS, ROWS, 1, 0, 6, 4);
+    int[][] expected = crop(expectedPixels(), 1, 0, 6, 4);
+    for (int turns = 1; turns <= 4; turns++) {
+      source = source.rotateCounterClockwise();
+      expected = rotateCounterClockwise(expected);
+      assertSameAs(expected, source);
+      // Cropping a rotated view crops what it shows
+      assertSameAs(crop(expected, 1, 2, 2, 1), source.crop(1, 2, 2, 1));
+    }
+  }
+
+  @Test
+  public void testRotate45() {
+    LuminanceSource source = new ByteBufferLuminanceSource(createBuffer(), STRIDE, COLS, ROWS, 1, 0, 5, 5);
+    int[][] pixels = crop(expectedPixels(), 1, 0, 5, 5);
+    LuminanceSource rotated = source.rotateCounterClockwise45();
+    assertEquals(5, rotated.getWidth());
+    assertEquals(5, rotated.getHeight());
+    byte[] matrix = rotated.getMatrix();
+    // The center stays put, what was down and to the right is now to the right, and so on
+    assertEquals(pixels[2][2], matrix[2 * 5 + 2]);
+    assertEquals(pixels[3][3], matrix[2 * 5 + 3]);
+    assertEquals(pixels[1][3], matrix[5 + 2]);
+    assertEquals(pixels[1][1], matrix[2 * 5 + 1]);
+    assertEquals(pixels[3][1], matrix[3 * 5 + 2]);
+    // Corners of the square come from outside the view
+    assertEquals(0, matrix[0]);
+    assertEquals(0, matrix[5 * 5 - 1]);
+  }
+
+  @Test
+  public void testDirectBuffer() {
+    ByteBuffer heap = createBuffer();
+    ByteBuffer direct = ByteBuffer.allocateDirect(heap.capacity());
+    heap.rewind();
+    direct.put(heap);
+    direct.position(POSITION);
+    LuminanceSource source = new ByteBufferLuminanceSource(direct, STRIDE, COLS, ROWS, 0, 0, COLS, ROWS);
+    // The source keeps its own position
+    direct.position(0);
+    assertSameAs(expectedPixels(), source);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBufferTooSmall() {
+    new ByteBufferLuminanceSource(ByteBuffer.allocate(STRIDE * (ROWS - 1)), STRIDE, COLS, ROWS, 0, 0, COLS, ROWS);
+  }
+
+  /**
+   * @return a buffer whose pixels, starting at POSITION, are numbered in order, with padding of -1
+   */
+  private static ByteBuffer createBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocate(POSITION + STRIDE * ROWS);
+    for (int i = 0; i < buffer.capacity(); i++) {
+      buffer.put(i, (byte) -1);
+    }
+    for (int y = 0; y < ROWS; y++) {
+      for (int x = 0; x < COLS; x++) {
+        buffer.put(POSITION + y * STRIDE + x, (byte) (y * COLS + x));
+      }
+    }
+    buffer.position(POSITION);
+    return buffer;
+  }
+
+  private static int[][] expectedPixels() {
+    int[][] pixels = new int[ROWS][COLS];
+    for (int y = 0; y < ROWS; y++) {
+      for (int x = 0; x < COLS; x++) {
+        pixels[y][x] = y * COLS + x;
+      }
+    }
+    return pixels;
+  }
+
+  private static int[][] crop(int[][] pixels, int left, int top, int width, int height) {
+    int[][] cropped = new int[height][width];
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(pixels[top + y], left, cropped[y], 0, width);
+    }
+    return cropped;
+  }
+
+  private static int[][] rotateCounterClockwise(int[][] pixels) {
+    int height = pixels.length;
+    int width = pixels[0].length;
+    int[][] rotated = new int[width][height];
+    for (int y = 0; y < width; y++) {
+      for (int x = 0; x < height; x++) {
+        rotated[y][x] = pixels[x][width - 1 - y];
+      }
+    }
+    return rotated;
+  }
+
+  private static void assertSameAs(int[][] expected, LuminanceSource source) {
+    int height = expected.length;
+    int width = expected[0].length;
+    assertEquals(width, source.getWidth());
+    assertEquals(height, source.getHeight());
+    byte[] matrix = source.getMatrix();
+    for (int y = 0; y < height; y++) {
+      byte[] row = source.getRow(y, null);
+      for (int x = 0; x < width; x++) {
+        assertEquals(expected[y][x], row[x]);
+        assertEquals(expected[y][x], matrix[y * width + x]);
+      }
+    }
+  }
+
+}
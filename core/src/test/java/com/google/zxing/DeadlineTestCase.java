@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.oned.Code128Reader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link Deadline} and {@link DecodeHintType#DEADLINE}.
+ */
+public final class DeadlineTestCase extends Assert {
+
+  @Test
+  public void testNotExpired() throws Exception {
+    Result result = new MultiFormatReader().decode(qrCodeImage(), hints(Deadline.after(1, TimeUnit.HOURS)));
+    assertEquals("deadline", result.getText());
+    assertFalse(Deadline.fromHints(null).isExpired());
+  }
+
+  @Test
+  public void testExpired() throws Exception {
+    Deadline deadline = Deadline.after(0, TimeUnit.NANOSECONDS);
+    assertTrue(deadline.isExpired());
+    assertFalse(deadline.isCancelled());
+    BinaryBitmap image = qrCodeImage();
+    Reader[] readers = {
+        new MultiFormatReader(),
+        new QRCodeReader(),
+        new Code128Reader(),
+        new PDF417Reader(),
+        new GenericMultipleBarcodeReaderAdapter(),
+    };
+    for (Reader reader : readers) {
+      try {
+        reader.decode(image, hints(deadline));
+        fail("Expected deadline to pass in " + reader);
+      } catch (DeadlineExceededException dee) {
+        assertFalse(dee.isCancelled());
+      }
+    }
+  }
+
+  @Test
+  public void testCancelled() throws Exception {
+    Deadline deadline = Deadline.cancellable();
+    assertFalse(deadline.isExpired());
+    deadline.cancel();
+    assertTrue(deadline.isExpired());
+    try {
+      new MultiFormatReader().decode(qrCodeImage(), hints(deadline));
+      fail();
+    } catch (DeadlineExceededException dee) {
+      assertTrue(dee.isCancelled());
+    }
+  }
+
+  private static Map<DecodeHintType,Object> hints(Deadline deadline) {
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.DEADLINE, deadline);
+    hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    return hints;
+  }
+
+  private static BinaryBitmap qrCodeImage() throws WriterException {
+    BitMatrix matrix = new QRCodeWriter().encode("deadline", BarcodeFormat.QR_CODE, 200, 200);
+    int[] pixels = new int[200 * 200];
+    for (int y = 0; y < 200; y++) {
+      for (int x = 0; x < 200; x++) {
+        pixels[y * 200 + x] = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+      }
+    }
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(200, 200, pixels)));
+  }
+
+  /**
+   * Exposes {@link GenericMultipleBarcodeReader} as a {@link Reader}, to test it alongside the others.
+   */
+  private static final class GenericMultipleBarcodeReaderAdapter implements Reader {
+    @Override
+    public Result decode(BinaryBitmap image) throws NotFoundException {
+      return decode(image, null);
+    }
+    @Override
+    public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+      return new GenericMultipleBarcodeReader(new QRCodeReader()).decodeMultiple(image, hints)[0];
+    }
+    @Override
+    public void reset() {
+      // do nothing
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.AbstractBlackBoxTestCase;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.oned.EAN13Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link FormatPreClassifier}.
+ */
+public final class FormatPreClassifierTestCase extends Assert {
+
+  private static final String[] DIRECTORIES = {
+      "qrcode-1", "qrcode-2", "datamatrix-1", "aztec-1", "aztec-2", "pdf417-1", "pdf417-2", "ean13-1", "code128-1", "upce-1",
+  };
+
+  @Test
+  public void testFindsWhatReadersFind() throws IOException {
+    // Pruning readers must never lose a barcode that would otherwise have been found
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    Map<DecodeHintType,Object> classifyingHints = new EnumMap<>(DecodeHintType.class);
+    classifyingHints.put(DecodeHintType.PRE_CLASSIFY, Boolean.TRUE);
+    for (boolean tryHarder : new boolean[] {false, true}) {
+      if (tryHarder) {
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        classifyingHints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+      }
+      for (Path path : AbstractBlackBoxTestCase.getBlackBoxImageFiles(DIRECTORIES)) {
+        LuminanceSource source = new BufferedImageLuminanceSource(ImageIO.read(path.toFile()));
+        Result expected;
+        try {
+          expected = new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+        } catch (NotFoundException nfe) {
+          continue;
+        }
+        try {
+          Result result =
+              new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source)), classifyingHints);
+          assertEquals(path.toString(), expected.getText(), result.getText());
+          assertTrue(result.getResultMetadata().get(ResultMetadataType.PRE_CLASSIFICATION)
+                         instanceof FormatPreClassifier);
+        } catch (NotFoundException nfe) {
+          fail(path + " not found after " +
+               FormatPreClassifier.classify(new BinaryBitmap(new HybridBinarizer(source)), classifyingHints));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRulesOutBlankAndNoise() {
+    int width = 320;
+    int height = 240;
+    int[] pixels = new int[width * height];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    BinaryBitmap blank = new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+    assertTrue(FormatPreClassifier.classify(blank, null).getPossibleFormats().isEmpty());
+
+    // Smooth shading, as on a plain surface, has no structure either
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int gray = (x + y) * 255 / (width + height);
+        pixels[y * width + x] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+      }
+    }
+    BinaryBitmap shaded = new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+    assertTrue(FormatPreClassifier.classify(shaded, null).getPossibleFormats().isEmpty());
+
+    // Coarse blobs have no fine structure for any format but Data Matrix
+    Random random = new Random(0x5EED);
+    for (int y = 0; y < height; y += 40) {
+      for (int x = 0; x < width; x += 40) {
+        int color = random.nextBoolean() ? 0xFF000000 : 0xFFFFFFFF;
+        for (int dy = 0; dy < 40; dy++) {
+          Arrays.fill(pixels, (y + dy) * width + x, (y + dy) * width + x + 40, color);
+        }
+      }
+    }
+    BinaryBitmap blobs = new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+    FormatPreClassifier classification = FormatPreClassifier.classify(blobs, null);
+    assertEquals(0, classification.getOneDRows());
+    assertEquals(0, classification.getPDF417PatternHits());
+  }
+
+  @Test
+  public void testLooksOnlyForPossibleFormats() throws WriterException {
+    BinaryBitmap qrCode = toBitmap(new QRCodeWriter().encode("only", BarcodeFormat.QR_CODE, 200, 200), false);
+    BinaryBitmap ean13 = toBitmap(new EAN13Writer().encode("5901234123457", BarcodeFormat.EAN_13, 300, 100), false);
+    assertTrue(FormatPreClassifier.classify(qrCode, null).getFinderPatternHits() > 0);
+    assertTrue(FormatPreClassifier.classify(ean13, null).getOneDRows() > 0);
+
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singleton(BarcodeFormat.EAN_13));
+    FormatPreClassifier classification = FormatPreClassifier.classify(qrCode, hints);
+    assertEquals(0, classification.getFinderPatternHits());
+    assertEquals(0, classification.getTexturedRows());
+    assertTrue(FormatPreClassifier.classify(ean13, hints).getOneDRows() > 0);
+
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singleton(BarcodeFormat.QR_CODE));
+    assertTrue(FormatPreClassifier.classify(qrCode, hints).getFinderPatternHits() > 0);
+    assertEquals(0, FormatPreClassifier.classify(ean13, hints).getOneDRows());
+  }
+
+  @Test
+  public void testRotatedOneDWhenTryingHarder() throws WriterException {
+    BitMatrix symbol = new EAN13Writer().encode("5901234123457", BarcodeFormat.EAN_13, 300, 100);
+    BinaryBitmap rotated = toBitmap(symbol, true);
+    assertEquals(0, FormatPreClassifier.classify(rotated, null).getOneDRows());
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    FormatPreClassifier classification = FormatPreClassifier.classify(rotated, hints);
+    assertTrue(classification.getOneDRows() > 0);
+    assertTrue(classification.getPossibleFormats().contains(BarcodeFormat.EAN_13));
+  }
+
+  /**
+   * @return the matrix in the middle of a white image twice its size, optionally turned a quarter
+   */
+  private static BinaryBitmap toBitmap(BitMatrix matrix, boolean rotate) {
+    int matrixWidth = rotate ? matrix.getHeight() : matrix.getWidth();
+    int matrixHeight = rotate ? matrix.getWidth() : matrix.getHeight();
+    int width = 2 * matrixWidth;
+    int height = 2 * matrixHeight;
+    int[] pixels = new int[width * height];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    for (int y = 0; y < matrixHeight; y++) {
+      for (int x = 0; x < matrixWidth; x++) {
+        if (rotate ? matrix.get(y, x) : matrix.get(x, y)) {
+          pixels[(matrixHeight / 2 + y) * width + matrixWidth / 2 + x] = 0xFF000000;
+        }
+      }
+    }
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+  }
+
+}
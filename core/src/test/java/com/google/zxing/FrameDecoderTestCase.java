@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests {@link FrameDecoder}.
+ */
+public final class FrameDecoderTestCase extends Assert {
+
+  @Test
+  public void testSuccessiveFrames() throws Exception {
+    FrameDecoder decoder = new FrameDecoder();
+    String[] contents = {"first", "second", "third"};
+    for (String content : contents) {
+      Result result = decoder.decode(toLuminanceSource(encode(content, 200)));
+      assertEquals(content, result.getText());
+      assertEquals(BarcodeFormat.QR_CODE, result.getBarcodeFormat());
+    }
+  }
+
+  @Test
+  public void testFrameSizeChanges() throws Exception {
+    FrameDecoder decoder = new FrameDecoder();
+    assertEquals("small", decoder.decode(toLuminanceSource(encode("small", 150))).getText());
+    assertEquals("large", decoder.decode(toLuminanceSource(encode("large", 300))).getText());
+    assertEquals("small", decoder.decode(toLuminanceSource(encode("small", 150))).getText());
+  }
+
+  @Test
+  public void testEmptyFrameDoesNotAffectNext() throws Exception {
+    FrameDecoder decoder = new FrameDecoder();
+    try {
+      decoder.decode(toLuminanceSource(new BitMatrix(200, 200)));
+      fail("Should not find anything in an empty frame");
+    } catch (NotFoundException nfe) {
+      // continue
+    }
+    assertEquals("after", decoder.decode(toLuminanceSource(encode("after", 200))).getText());
+  }
+
+  @Test
+  public void testSymbolAcrossFrames() throws Exception {
+    LuminanceSource[] halves = stackedHalves();
+    FrameDecoder decoder = new FrameDecoder();
+    try {
+      decoder.decode(halves[0]);
+      fail("Should not decode the top rows alone");
+    } catch (NotFoundException nfe) {
+      // continue
+    }
+    // Rows seen in the first frame are kept, and complete the symbol
+    assertEquals("(01)91234567980129(3103)012233(15)991231", decoder.decode(halves[1]).getText());
+  }
+
+  @Test
+  public void testReset() throws Exception {
+    LuminanceSource[] halves = stackedHalves();
+    FrameDecoder decoder = new FrameDecoder();
+    try {
+      decoder.decode(halves[0]);
+      fail("Should not decode the top rows alone");
+    } catch (NotFoundException nfe) {
+      // continue
+    }
+    decoder.reset();
+    try {
+      decoder.decode(halves[1]);
+      fail("Should not decode the bottom rows alone after a reset");
+    } catch (NotFoundException nfe) {
+      // continue
+    }
+  }
+
+  /**
+   * @return top and bottom halves of a stacked RSS Expanded symbol, neither decodable alone
+   */
+  private static LuminanceSource[] stackedHalves() throws Exception {
+    Path path = Paths.get("src/test/resources/blackbox/rssexpandedstacked-1/2.png");
+    BufferedImage image = ImageIO.read(path.toFile());
+    LuminanceSource source = new BufferedImageLuminanceSource(image);
+    int width = image.getWidth();
+    int split = image.getHeight() / 2;
+    return new LuminanceSource[] {
+        source.crop(0, 0, width, split),
+        source.crop(0, split, width, image.getHeight() - split)
+    };
+  }
+
+  private static BitMatrix encode(String contents, int size) throws WriterException {
+    return new QRCodeWriter().encode(contents, BarcodeFormat.QR_CODE, size, size);
+  }
+
+  private static LuminanceSource toLuminanceSource(BitMatrix matrix) {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y * width + x] = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+      }
+    }
+    return new RGBLuminanceSource(width, height, pixels);
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests {@link ParallelMultiFormatReader}.
+ */
+public final class ParallelMultiFormatReaderTestCase extends Assert {
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testDecode() throws Exception {
+    BitMatrix matrix = new QRCodeWriter().encode("parallel", BarcodeFormat.QR_CODE, 200, 200);
+    ParallelMultiFormatReader reader = new ParallelMultiFormatReader(executor);
+    Result result = reader.decode(toBinaryBitmap(matrix));
+    assertEquals("parallel", result.getText());
+    assertEquals(BarcodeFormat.QR_CODE, result.getBarcodeFormat());
+    // Again, reusing state
+    result = reader.decodeWithState(toBinaryBitmap(matrix));
+    assertEquals("parallel", result.getText());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testNotFound() throws Exception {
+    new ParallelMultiFormatReader(executor).decode(toBinaryBitmap(new BitMatrix(200, 200)));
+  }
+
+  @Test
+  public void testBackToBackDecodes() throws Exception {
+    // Stacked RSS Expanded readers, and the 2D decoders, keep state between calls, so no reader
+    // may still be running on one image when the next decode starts
+    Path blackbox = Paths.get("src/test/resources/blackbox");
+    String[] images = {
+        "rssexpandedstacked-1/1.png", "qrcode-1/1.png", "ean13-1/1.png", "rssexpandedstacked-1/10.png",
+        "datamatrix-1/0123456789.png", "qrcode-1/10.png", "rssexpandedstacked-1/2.png", "ean13-1/10.png",
+    };
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    CountingExecutor countingExecutor = new CountingExecutor(4);
+    try {
+      ParallelMultiFormatReader reader = new ParallelMultiFormatReader(countingExecutor);
+      reader.setHints(hints);
+      // Stacked rows are kept from image to image, as by a reader used serially
+      MultiFormatReader serialReader = new MultiFormatReader();
+      serialReader.setHints(hints);
+      for (int round = 0; round < 3; round++) {
+        for (String image : images) {
+          LuminanceSource source = new BufferedImageLuminanceSource(ImageIO.read(blackbox.resolve(image).toFile()));
+          String expected;
+          try {
+            expected = serialReader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source))).getText();
+          } catch (ReaderException re) {
+            expected = null;
+          }
+          String actual;
+          try {
+            actual = reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source))).getText();
+          } catch (NotFoundException nfe) {
+            actual = null;
+          }
+          assertEquals(image, expected, actual);
+          assertEquals(image, 0, countingExecutor.running.get());
+        }
+      }
+    } finally {
+      countingExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Counts tasks whose work hasn't finished; a task's count drops before its future completes.
+   */
+  private static final class CountingExecutor extends ThreadPoolExecutor {
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    CountingExecutor(int threads) {
+      super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+      running.incrementAndGet();
+      return new FutureTask<>(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          try {
+            return callable.call();
+          } finally {
+            running.decrementAndGet();
+          }
+        }
+      });
+    }
+
+  }
+
+  private static BinaryBitmap toBinaryBitmap(BitMatrix matrix) {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y * width + x] = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+      }
+    }
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+  }
+
+}
@@ -44,6 +44,8 @@ public final class PlanarYUVLuminanceSourceTestCase extends Assert {
     for (int r = 0; r < ROWS; r++) {
       assertEquals(Y, r * COLS, source.getRow(r, null), 0, COLS);
     }
+    assertTrue(source.isMatrixShared());
+    assertSame(YUV, source.getMatrix());
   }
 
   @Test
@@ -53,6 +55,7 @@ public final class PlanarYUVLuminanceSourceTestCase extends Assert {
     for (int r = 0; r < ROWS-2; r++) {
       assertEquals(Y, (r + 1) * COLS + 1, source.getRow(r, null), 0, COLS-2);
     }
+    assertFalse(source.isMatrixShared());
   }
 
   private static void assertEquals(byte[] expected, int expectedFrom,
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests {@link PyramidReader} and {@link DownscaledLuminanceSource}.
+ */
+public final class PyramidReaderTestCase extends Assert {
+
+  private static final int WIDTH = 1600;
+  private static final int HEIGHT = 1200;
+
+  @Test
+  public void testDownscaledMeans() {
+    byte[] pixels = new byte[7 * 5];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte) (i * 7);
+    }
+    LuminanceSource source = new PlanarYUVLuminanceSource(pixels, 7, 5, 0, 0, 7, 5, false);
+    DownscaledLuminanceSource downscaled = new DownscaledLuminanceSource(source, 2);
+    assertEquals(3, downscaled.getWidth());
+    assertEquals(2, downscaled.getHeight());
+    byte[] matrix = downscaled.getMatrix();
+    for (int y = 0; y < 2; y++) {
+      byte[] row = downscaled.getRow(y, null);
+      for (int x = 0; x < 3; x++) {
+        int sum = 0;
+        for (int dy = 0; dy < 2; dy++) {
+          for (int dx = 0; dx < 2; dx++) {
+            sum += pixels[(y * 2 + dy) * 7 + x * 2 + dx] & 0xFF;
+          }
+        }
+        assertEquals(sum / 4, row[x] & 0xFF);
+        assertEquals(sum / 4, matrix[y * 3 + x] & 0xFF);
+      }
+    }
+
+    LuminanceSource cropped = downscaled.crop(1, 1, 2, 1);
+    assertEquals(2, cropped.getWidth());
+    assertEquals(1, cropped.getHeight());
+    assertArrayEquals(Arrays.copyOfRange(matrix, 4, 6), cropped.getMatrix());
+  }
+
+  @Test
+  public void testDownscaledRotate() {
+    BufferedImage bufferedImage = new BufferedImage(9, 6, BufferedImage.TYPE_BYTE_GRAY);
+    for (int y = 0; y < 6; y++) {
+      for (int x = 0; x < 9; x++) {
+        int gray = ((y * 9 + x) * 37) & 0xFF;
+        bufferedImage.setRGB(x, y, 0xFF000000 | (gray << 16) | (gray << 8) | gray);
+      }
+    }
+    LuminanceSource source = new BufferedImageLuminanceSource(bufferedImage);
+    DownscaledLuminanceSource downscaled = new DownscaledLuminanceSource(source, 2);
+    assertTrue(downscaled.isRotateSupported());
+    // Shrinking, then rotating, gives the same as rotating what's kept of the source, then shrinking
+    LuminanceSource expected = new DownscaledLuminanceSource(source.crop(0, 0, 8, 6).rotateCounterClockwise(), 2);
+    LuminanceSource rotated = downscaled.rotateCounterClockwise();
+    assertEquals(3, rotated.getWidth());
+    assertEquals(4, rotated.getHeight());
+    assertArrayEquals(expected.getMatrix(), rotated.getMatrix());
+
+    byte[] pixels = source.getMatrix();
+    assertFalse(new DownscaledLuminanceSource(
+        new PlanarYUVLuminanceSource(pixels, 9, 6, 0, 0, 9, 6, false), 2).isRotateSupported());
+  }
+
+  @Test
+  public void testLargeSymbolAtCoarsestLevel() throws Exception {
+    int[] pixels = blank();
+    paste(pixels, new QRCodeWriter().encode("pyramid", BarcodeFormat.QR_CODE, 0, 0), 24, 300, 200);
+    BinaryBitmap image = toBitmap(pixels);
+    RecordingReader recording = new RecordingReader(new QRCodeReader());
+    Result result = new PyramidReader(recording).decode(image);
+    assertEquals("pyramid", result.getText());
+    assertEquals(Arrays.asList(WIDTH / 4), recording.widths);
+
+    // Points are where the full size image has them
+    Result expected = new QRCodeReader().decode(toBitmap(pixels));
+    ResultPoint[] points = result.getResultPoints();
+    ResultPoint[] expectedPoints = expected.getResultPoints();
+    assertEquals(expectedPoints.length, points.length);
+    for (int i = 0; i < points.length; i++) {
+      assertEquals(expectedPoints[i].getX(), points[i].getX(), 4.0f);
+      assertEquals(expectedPoints[i].getY(), points[i].getY(), 4.0f);
+    }
+  }
+
+  @Test
+  public void testSmallSymbolInRegion() throws Exception {
+    int[] pixels = blank();
+    BitMatrix symbol = new QRCodeWriter().encode("small", BarcodeFormat.QR_CODE, 0, 0);
+    paste(pixels, symbol, 3, 1100, 800);
+    RecordingReader recording = new RecordingReader(new QRCodeReader());
+    Result result = new PyramidReader(recording).decode(toBitmap(pixels));
+    assertEquals("small", result.getText());
+    // Found in a crop at full size, not by reading the whole image
+    int last = recording.widths.get(recording.widths.size() - 1);
+    assertTrue(last < WIDTH / 2);
+    for (ResultPoint point : result.getResultPoints()) {
+      assertTrue(point.getX() > 1100 && point.getX() < 1100 + symbol.getWidth() * 3);
+      assertTrue(point.getY() > 800 && point.getY() < 800 + symbol.getHeight() * 3);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadFactor() {
+    new DownscaledLuminanceSource(new PlanarYUVLuminanceSource(new byte[16], 4, 4, 0, 0, 4, 4, false), 0);
+  }
+
+  @Test
+  public void testBoundedWorkWithoutSymbol() throws Exception {
+    // Many separate clusters of black, none of them a symbol
+    int[] pixels = blank();
+    for (int top = 40; top + 48 < HEIGHT; top += 160) {
+      for (int left = 40; left + 48 < WIDTH; left += 160) {
+        for (int y = top; y < top + 48; y++) {
+          Arrays.fill(pixels, y * WIDTH + left, y * WIDTH + left + 48, 0xFF000000);
+        }
+      }
+    }
+    RecordingReader recording = new RecordingReader(new QRCodeReader());
+    try {
+      new PyramidReader(recording).decode(toBitmap(pixels));
+      fail("Should not find a symbol");
+    } catch (NotFoundException nfe) {
+      // good
+    }
+    // Two shrunk levels, the crops, then the whole image
+    assertTrue(recording.widths.size() <= 2 + PyramidReader.MAX_REGIONS + 1);
+    long cropArea = 0;
+    for (int i = 2; i < recording.areas.size() - 1; i++) {
+      cropArea += recording.areas.get(i);
+    }
+    assertTrue(cropArea > 0);
+    assertTrue(cropArea <= (long) WIDTH * HEIGHT);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testNothingFound() throws Exception {
+    new PyramidReader(new QRCodeReader()).decode(toBitmap(blank()));
+  }
+
+  private static int[] blank() {
+    int[] pixels = new int[WIDTH * HEIGHT];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    return pixels;
+  }
+
+  private static BinaryBitmap toBitmap(int[] pixels) {
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(WIDTH, HEIGHT, pixels)));
+  }
+
+  private static void paste(int[] pixels, BitMatrix symbol, int scale, int left, int top) {
+    for (int y = 0; y < symbol.getHeight() * scale; y++) {
+      for (int x = 0; x < symbol.getWidth() * scale; x++) {
+        if (symbol.get(x / scale, y / scale)) {
+          pixels[(top + y) * WIDTH + left + x] = 0xFF000000;
+        }
+      }
+    }
+  }
+
+  /**
+   * Notes the size of each image the delegate is asked to decode.
+   */
+  private static final class RecordingReader implements Reader {
+
+    private final Reader delegate;
+    private final List<Integer> widths = new ArrayList<>();
+    private final List<Long> areas = new ArrayList<>();
+
+    RecordingReader(Reader delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image) throws NotFoundException, ChecksumException, FormatException {
+      return decode(image, null);
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
+        throws NotFoundException, ChecksumException, FormatException {
+      widths.add(image.getWidth());
+      areas.add((long) image.getWidth() * image.getHeight());
+      return delegate.decode(image, hints);
+    }
+
+    @Override
+    public void reset() {
+      delegate.reset();
+    }
+
+  }
+
+}
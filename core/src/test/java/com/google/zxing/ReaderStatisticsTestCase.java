@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.datamatrix.DataMatrixWriter;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ReaderStatistics}.
+ */
+public final class ReaderStatisticsTestCase extends Assert {
+
+  @Test
+  public void testOrder() {
+    ReaderStatistics statistics = new ReaderStatistics();
+    Reader qrCode = new QRCodeReader();
+    Reader dataMatrix = new DataMatrixReader();
+    Reader aztec = new AztecReader();
+    Reader[] readers = {qrCode, dataMatrix, aztec};
+
+    // Nothing known yet: keep the given order
+    statistics.order(readers);
+    assertArrayEquals(new Reader[] {qrCode, dataMatrix, aztec}, readers);
+
+    for (int i = 0; i < 10; i++) {
+      statistics.record(qrCode, 1000, false);
+      statistics.record(dataMatrix, 1500, true);
+      statistics.record(aztec, 1000, i % 2 == 0);
+    }
+    // Data Matrix is slower than Aztec, but finds twice as often, so its expected cost is lower
+    statistics.order(readers);
+    assertArrayEquals(new Reader[] {dataMatrix, aztec, qrCode}, readers);
+  }
+
+  @Test
+  public void testDecay() {
+    ReaderStatistics statistics = new ReaderStatistics(10);
+    Reader qrCode = new QRCodeReader();
+    Reader dataMatrix = new DataMatrixReader();
+    Reader[] readers = {qrCode, dataMatrix};
+    for (int i = 0; i < 100; i++) {
+      statistics.record(qrCode, 1000, true);
+      statistics.record(dataMatrix, 1000, false);
+    }
+    statistics.order(readers);
+    assertSame(qrCode, readers[0]);
+
+    // What is being scanned changes; recent images soon outweigh older ones
+    for (int i = 0; i < 50; i++) {
+      statistics.record(qrCode, 1000, false);
+      statistics.record(dataMatrix, 1000, true);
+      statistics.order(readers);
+    }
+    assertSame(dataMatrix, readers[0]);
+  }
+
+  @Test
+  public void testMultiFormatReader() throws Exception {
+    BitMatrix matrix = new DataMatrixWriter().encode("statistics", BarcodeFormat.DATA_MATRIX, 0, 0);
+    int scale = 8;
+    int size = (matrix.getWidth() + 4) * scale;
+    int[] pixels = new int[size * size];
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        int moduleX = x / scale - 2;
+        int moduleY = y / scale - 2;
+        boolean black = moduleX >= 0 && moduleX < matrix.getWidth() &&
+            moduleY >= 0 && moduleY < matrix.getHeight() && matrix.get(moduleX, moduleY);
+        pixels[y * size + x] = black ? 0xFF000000 : 0xFFFFFFFF;
+      }
+    }
+    BinaryBitmap image = new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(size, size, pixels)));
+
+    ReaderStatistics statistics = new ReaderStatistics();
+    MultiFormatReader reader = new MultiFormatReader();
+    reader.setHints(null);
+    reader.setStatistics(statistics);
+    for (int i = 0; i < 20; i++) {
+      assertEquals("statistics", reader.decodeWithState(image).getText());
+    }
+    // Only the Data Matrix reader ever succeeds, so it has moved ahead of the slower readers. The
+    // MaxiCode reader gives up so quickly that trying it first costs next to nothing.
+    Reader[] readers = MultiFormatReader.createReaders(null);
+    statistics.order(readers);
+    int i = 0;
+    while (readers[i] instanceof MaxiCodeReader) {
+      i++;
+    }
+    assertTrue(readers[i] instanceof DataMatrixReader);
+  }
+
+}
@@ -66,13 +66,7 @@ public abstract class AbstractBlackBoxTestCase extends Assert {
   protected AbstractBlackBoxTestCase(String testBasePathSuffix,
                                      Reader barcodeReader,
                                      BarcodeFormat expectedFormat) {
-    // A little workaround to prevent aggravation in my IDE
-    Path testBase = Paths.get(testBasePathSuffix);
-    if (!Files.exists(testBase)) {
-      // try starting with 'core' since the test base is often given as the project root
-      testBase = Paths.get("core").resolve(testBasePathSuffix);
-    }
-    this.testBase = testBase;
+    this.testBase = toTestBase(testBasePathSuffix);
     this.barcodeReader = barcodeReader;
     this.expectedFormat = expectedFormat;
     testResults = new ArrayList<>();
@@ -107,14 +101,42 @@ public abstract class AbstractBlackBoxTestCase extends Assert {
   }
 
   protected final List<Path> getImageFiles() throws IOException {
-    assertTrue("Please download and install test images, and run from the 'core' directory", Files.exists(testBase));
     List<Path> paths = new ArrayList<>();
+    addImageFiles(testBase, paths);
+    return paths;
+  }
+
+  /**
+   * For tests which aren't black box tests themselves, but run over the same images.
+   *
+   * @param directories names of directories under src/test/resources/blackbox, like "qrcode-1"
+   * @return images in all of those directories
+   */
+  public static List<Path> getBlackBoxImageFiles(String... directories) throws IOException {
+    List<Path> paths = new ArrayList<>();
+    for (String directory : directories) {
+      addImageFiles(toTestBase("src/test/resources/blackbox/" + directory), paths);
+    }
+    return paths;
+  }
+
+  private static Path toTestBase(String testBasePathSuffix) {
+    // A little workaround to prevent aggravation in my IDE
+    Path testBase = Paths.get(testBasePathSuffix);
+    if (!Files.exists(testBase)) {
+      // try starting with 'core' since the test base is often given as the project root
+      testBase = Paths.get("core").resolve(testBasePathSuffix);
+    }
+    return testBase;
+  }
+
+  private static void addImageFiles(Path testBase, List<Path> paths) throws IOException {
+    assertTrue("Please download and install test images, and run from the 'core' directory", Files.exists(testBase));
     try (DirectoryStream<Path> pathIt = Files.newDirectoryStream(testBase, "*.{jpg,jpeg,gif,png,JPG,JPEG,GIF,PNG}")) {
       for (Path path : pathIt) {
         paths.add(path);
       }
     }
-    return paths;
   }
 
   final Reader getReader() {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.BufferedImageLuminanceSource;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link BinarizerWorkspace}.
+ */
+public final class BinarizerWorkspaceTestCase extends Assert {
+
+  private static final Path BLACKBOX = Paths.get("src/test/resources/blackbox");
+
+  @Test
+  public void testSameAsWithoutWorkspace() throws IOException, NotFoundException {
+    BinarizerWorkspace workspace = new BinarizerWorkspace();
+    String[] images = {"qrcode-2/1.png", "qrcode-2/2.png", "datamatrix-2/01.png", "qrcode-2/1.png"};
+    for (String image : images) {
+      LuminanceSource source = loadImage(image);
+      assertEquals(image,
+                   new HybridBinarizer(source).getBlackMatrix(),
+                   new HybridBinarizer(source, workspace).getBlackMatrix());
+      assertEquals(image,
+                   new GlobalHistogramBinarizer(source).getBlackMatrix(),
+                   new GlobalHistogramBinarizer(source, workspace).getBlackMatrix());
+      assertEquals(image,
+                   new GlobalHistogramBinarizer(source).getBlackRow(10, null),
+                   new HybridBinarizer(source, workspace).getBlackRow(10, null));
+    }
+  }
+
+  @Test
+  public void testMatrixReused() throws IOException, NotFoundException {
+    BinarizerWorkspace workspace = new BinarizerWorkspace();
+    LuminanceSource source = loadImage("qrcode-2/1.png");
+    BitMatrix first = new HybridBinarizer(source, workspace).getBlackMatrix();
+    BitMatrix second = new HybridBinarizer(source.crop(0, 0, source.getWidth(), source.getHeight()), workspace)
+        .getBlackMatrix();
+    assertSame(first, second);
+  }
+
+  @Test
+  public void testSharedLuminances() throws NotFoundException {
+    int width = 40;
+    int height = 30;
+    byte[] yuvData = new byte[width * height * 3 / 2];
+    Random random = new Random(0xF00DL);
+    random.nextBytes(yuvData);
+    BinarizerWorkspace workspace = new BinarizerWorkspace();
+    // A source which shares its array isn't copied
+    LuminanceSource source = new PlanarYUVLuminanceSource(yuvData, width, height, 0, 0, width, height, false);
+    assertTrue(source.isMatrixShared());
+    assertSame(yuvData, workspace.getLuminances(source));
+    assertEquals(new GlobalHistogramBinarizer(source).getBlackMatrix(),
+                 new GlobalHistogramBinarizer(source, workspace).getBlackMatrix());
+    // A cropped one is
+    LuminanceSource cropped = source.crop(1, 2, width - 3, height - 4);
+    assertFalse(cropped.isMatrixShared());
+    byte[] luminances = workspace.getLuminances(cropped);
+    assertNotSame(yuvData, luminances);
+    assertArrayEquals(cropped.getMatrix(), Arrays.copyOf(luminances, cropped.getWidth() * cropped.getHeight()));
+  }
+
+  private static LuminanceSource loadImage(String name) throws IOException {
+    return new BufferedImageLuminanceSource(ImageIO.read(BLACKBOX.resolve(name).toFile()));
+  }
+
+}
@@ -19,6 +19,8 @@ package com.google.zxing.common;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+
 /**
  * @author Sean Owen
  * @author dswitkin@google.com (Daniel Switkin)
@@ -45,6 +47,29 @@ public final class BitMatrixTestCase extends Assert {
     }
   }
 
+  @Test
+  public void testSetBelowThreshold() {
+    Random random = new Random(0xDEADBEEF);
+    byte[] luminances = new byte[100];
+    random.nextBytes(luminances);
+    for (int left = 0; left < 40; left += 3) {
+      for (int length = 1; left + length <= 97; length += 7) {
+        BitMatrix expected = new BitMatrix(97, 2);
+        BitMatrix actual = new BitMatrix(97, 2);
+        // An already set bit stays set
+        expected.set(left, 1);
+        actual.set(left, 1);
+        for (int x = left; x < left + length; x++) {
+          if ((luminances[x + 2] & 0xFF) <= 100) {
+            expected.set(x, 1);
+          }
+        }
+        actual.setBelowThreshold(left, 1, luminances, left + 2, length, 100);
+        assertEquals(expected, actual);
+      }
+    }
+  }
+
   @Test
   public void testSetRegion() {
     BitMatrix matrix = new BitMatrix(5);
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.BufferedImageLuminanceSource;
+import com.google.zxing.ByteBufferLuminanceSource;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests {@link IntegralImageBinarizer}.
+ */
+public final class IntegralImageBinarizerTestCase extends Assert {
+
+  private static final Path BLACKBOX = Paths.get("src/test/resources/blackbox");
+
+  @Test
+  public void testSameAsHybridBinarizer() throws IOException, NotFoundException {
+    String[] images = {
+        "qrcode-2/1.png", "qrcode-3/01.png", "datamatrix-2/01.png", "aztec-2/01.png", "pdf417-2/01.png",
+    };
+    for (String image : images) {
+      LuminanceSource source = loadImage(image);
+      assertSameAsHybrid(image, source);
+      // Crop to sizes that aren't a multiple of the block size, so the edge blocks overlap
+      assertSameAsHybrid(image + " cropped",
+                         source.crop(3, 5, source.getWidth() - 12, source.getHeight() - 11));
+    }
+  }
+
+  @Test
+  public void testByteBufferSource() throws IOException, NotFoundException {
+    LuminanceSource source = loadImage("qrcode-2/1.png");
+    byte[] luminances = source.getMatrix();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(luminances.length);
+    buffer.put(luminances).flip();
+    LuminanceSource direct = new ByteBufferLuminanceSource(buffer, source.getWidth(), source.getHeight());
+    assertEquals(new HybridBinarizer(source).getBlackMatrix(), new IntegralImageBinarizer(direct).getBlackMatrix());
+  }
+
+  @Test
+  public void testBlockSize() throws IOException, NotFoundException {
+    LuminanceSource source = loadImage("qrcode-2/1.png");
+    IntegralImageBinarizer binarizer = new IntegralImageBinarizer(source, 4);
+    BitMatrix matrix = binarizer.getBlackMatrix();
+    assertEquals(source.getWidth(), matrix.getWidth());
+    assertEquals(source.getHeight(), matrix.getHeight());
+    // Block size carries over to new instances
+    assertEquals(matrix, binarizer.createBinarizer(source).getBlackMatrix());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadBlockSize() {
+    new IntegralImageBinarizer(new PlanarYUVLuminanceSource(new byte[64], 8, 8, 0, 0, 8, 8, false), 0);
+  }
+
+  private static void assertSameAsHybrid(String message, LuminanceSource source) throws NotFoundException {
+    assertEquals(message,
+                 new HybridBinarizer(source).getBlackMatrix(),
+                 new IntegralImageBinarizer(source).getBlackMatrix());
+  }
+
+  private static LuminanceSource loadImage(String name) throws IOException {
+    BufferedImage image = ImageIO.read(BLACKBOX.resolve(name).toFile());
+    return new BufferedImageLuminanceSource(image);
+  }
+
+}
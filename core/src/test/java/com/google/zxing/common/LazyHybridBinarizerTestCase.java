@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.BufferedImageLuminanceSource;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.datamatrix.DataMatrixWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link LazyHybridBinarizer}.
+ */
+public final class LazyHybridBinarizerTestCase extends Assert {
+
+  private static final Path BLACKBOX = Paths.get("src/test/resources/blackbox");
+  private static final String[] IMAGES = {
+      "qrcode-2/1.png", "qrcode-3/01.png", "datamatrix-2/01.png", "aztec-2/01.png", "pdf417-2/01.png",
+  };
+
+  @Test
+  public void testSameAsHybridBinarizer() throws IOException, NotFoundException {
+    for (String image : IMAGES) {
+      LuminanceSource source = loadImage(image);
+      assertEquals(image,
+                   new HybridBinarizer(source).getBlackMatrix(),
+                   new LazyHybridBinarizer(source).getBlackMatrix());
+      // Sizes that aren't a multiple of the block size make the edge blocks overlap
+      LuminanceSource cropped = source.crop(3, 5, source.getWidth() - 12, source.getHeight() - 11);
+      assertEquals(image + " cropped",
+                   new HybridBinarizer(cropped).getBlackMatrix(),
+                   new LazyHybridBinarizer(cropped).getBlackMatrix());
+    }
+  }
+
+  @Test
+  public void testRegions() throws IOException, NotFoundException {
+    Random random = new Random(0xDEADBEEF);
+    for (String image : IMAGES) {
+      LuminanceSource source = loadImage(image);
+      // Odd sizes, so the edge blocks overlap
+      source = source.crop(0, 0, source.getWidth() - 3, source.getHeight() - 5);
+      int width = source.getWidth();
+      int height = source.getHeight();
+      BitMatrix expected = new HybridBinarizer(source).getBlackMatrix();
+      LazyHybridBinarizer binarizer = new LazyHybridBinarizer(source);
+      // Regions in no particular order, so tiles and blocks are computed in no particular order
+      BitMatrix filledIn = new BitMatrix(width, height);
+      for (int i = 0; i < 20; i++) {
+        int left = random.nextInt(width);
+        int top = random.nextInt(height);
+        int regionWidth = 1 + random.nextInt(Math.min(100, width - left));
+        int regionHeight = 1 + random.nextInt(Math.min(100, height - top));
+        BitMatrix lazy = binarizer.getBlackMatrix(left, top, regionWidth, regionHeight);
+        for (int y = top; y < top + regionHeight; y++) {
+          for (int x = left; x < left + regionWidth; x++) {
+            assertEquals(image + " at " + x + "," + y, expected.get(x, y), lazy.get(x, y));
+          }
+        }
+        // Only the tiles around the region are filled in
+        int tileLeft = left & ~0x1f;
+        int tileTop = top & ~0x1f;
+        filledIn.setRegion(tileLeft, tileTop,
+                           Math.min(width, ((left + regionWidth + 31) & ~0x1f)) - tileLeft,
+                           Math.min(height, ((top + regionHeight + 31) & ~0x1f)) - tileTop);
+        for (int y = 0; y < height; y++) {
+          for (int x = 0; x < width; x++) {
+            if (lazy.get(x, y)) {
+              assertTrue(image + " filled in at " + x + "," + y, filledIn.get(x, y));
+            }
+          }
+        }
+      }
+      assertEquals(image, expected, binarizer.getBlackMatrix());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRegionOutside() throws IOException, NotFoundException {
+    LuminanceSource source = loadImage("qrcode-2/1.png");
+    new LazyHybridBinarizer(source).getBlackMatrix(source.getWidth() - 10, 0, 11, 10);
+  }
+
+  @Test
+  public void testDecodeLeavesBackgroundUnfilled() throws ReaderException {
+    // A small code in the middle of a large image, and black squares well away from it
+    int scale = 4;
+    BitMatrix code = new DataMatrixWriter().encode("Lazy tiles", BarcodeFormat.DATA_MATRIX, 0, 0);
+    int width = 960;
+    int height = 720;
+    int codeLeft = (width - code.getWidth() * scale) / 2;
+    int codeTop = (height - code.getHeight() * scale) / 2;
+    int codeBottom = codeTop + code.getHeight() * scale;
+    byte[] luminances = new byte[width * height];
+    Arrays.fill(luminances, (byte) 0xE0);
+    for (int y = 0; y < code.getHeight() * scale; y++) {
+      for (int x = 0; x < code.getWidth() * scale; x++) {
+        if (code.get(x / scale, y / scale)) {
+          luminances[(codeTop + y) * width + codeLeft + x] = 0x20;
+        }
+      }
+    }
+    int[][] squares = {{40, 40}, {40, height / 2}, {width - 80, height - 80}};
+    for (int[] square : squares) {
+      for (int y = square[1]; y < square[1] + 40; y++) {
+        Arrays.fill(luminances, y * width + square[0], y * width + square[0] + 40, (byte) 0x20);
+      }
+    }
+    RecordingLuminanceSource source = new RecordingLuminanceSource(width, height, luminances);
+    BinaryBitmap bitmap = new BinaryBitmap(new LazyHybridBinarizer(source));
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singleton(BarcodeFormat.DATA_MATRIX));
+    Result result = new MultiFormatReader().decode(bitmap, hints);
+    assertEquals("Lazy tiles", result.getText());
+
+    assertFalse(source.matrixRead);
+    // No rows below the code were read. Low-contrast blocks above and to the left are measured,
+    // since their black points feed into those of the blocks around the code.
+    assertTrue(source.rowsRead.length() <= codeBottom + 64);
+    // The squares, even the one level with the code, were never binarized
+    BitMatrix matrix = bitmap.getBlackMatrix(width / 2, height / 2, 1, 1);
+    for (int[] square : squares) {
+      assertFalse(matrix.get(square[0] + 20, square[1] + 20));
+    }
+    assertTrue(matrix.get(codeLeft + 1, codeBottom - 2));
+    // until the whole matrix is asked for
+    matrix = bitmap.getBlackMatrix();
+    for (int[] square : squares) {
+      assertTrue(matrix.get(square[0] + 20, square[1] + 20));
+    }
+  }
+
+  @Test
+  public void testDataMatrixSameAsHybridBinarizer() throws IOException {
+    // Detecting through the bitmap, a region at a time, finds the same codes
+    DataMatrixReader reader = new DataMatrixReader();
+    for (Path path : AbstractBlackBoxTestCase.getBlackBoxImageFiles("datamatrix-1", "datamatrix-2")) {
+      LuminanceSource source = new BufferedImageLuminanceSource(ImageIO.read(path.toFile()));
+      String expected;
+      try {
+        expected = reader.decode(new BinaryBitmap(new HybridBinarizer(source))).getText();
+      } catch (ReaderException re) {
+        expected = null;
+      }
+      String lazy;
+      try {
+        lazy = reader.decode(new BinaryBitmap(new LazyHybridBinarizer(source))).getText();
+      } catch (ReaderException re) {
+        lazy = null;
+      }
+      assertEquals(path.toString(), expected, lazy);
+    }
+  }
+
+  private static LuminanceSource loadImage(String name) throws IOException {
+    return new BufferedImageLuminanceSource(ImageIO.read(BLACKBOX.resolve(name).toFile()));
+  }
+
+  /**
+   * Remembers which parts of the image were read.
+   */
+  private static final class RecordingLuminanceSource extends LuminanceSource {
+
+    private final byte[] luminances;
+    private final BitSet rowsRead = new BitSet();
+    private boolean matrixRead;
+
+    RecordingLuminanceSource(int width, int height, byte[] luminances) {
+      super(width, height);
+      this.luminances = luminances;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+      rowsRead.set(y);
+      int width = getWidth();
+      if (row == null || row.length < width) {
+        row = new byte[width];
+      }
+      System.arraycopy(luminances, y * width, row, 0, width);
+      return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+      matrixRead = true;
+      return luminances;
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.BufferedImageLuminanceSource;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests {@link ParallelHybridBinarizer}.
+ */
+public final class ParallelHybridBinarizerTestCase extends Assert {
+
+  private static final Path BLACKBOX = Paths.get("src/test/resources/blackbox");
+
+  private ForkJoinPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void testSameAsHybridBinarizer() throws IOException, NotFoundException {
+    String[] images = {
+        "qrcode-2/1.png", "qrcode-3/01.png", "datamatrix-2/01.png", "aztec-2/01.png", "pdf417-2/01.png",
+    };
+    for (String image : images) {
+      LuminanceSource source = new BufferedImageLuminanceSource(ImageIO.read(BLACKBOX.resolve(image).toFile()));
+      assertSameAsHybrid(image, source);
+      // Sizes that aren't a multiple of the block size make the last rows of blocks overlap
+      for (int trim = 1; trim < 8; trim += 3) {
+        assertSameAsHybrid(image + " cropped by " + trim,
+                           source.crop(0, 0, source.getWidth() - trim, source.getHeight() - trim));
+      }
+    }
+  }
+
+  private void assertSameAsHybrid(String message, LuminanceSource source) throws NotFoundException {
+    assertEquals(message,
+                 new HybridBinarizer(source).getBlackMatrix(),
+                 new ParallelHybridBinarizer(source, pool).getBlackMatrix());
+  }
+
+}
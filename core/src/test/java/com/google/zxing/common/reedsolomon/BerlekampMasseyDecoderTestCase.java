@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link BerlekampMasseyDecoder}.
+ */
+public final class BerlekampMasseyDecoderTestCase extends Assert {
+
+  @Test
+  public void testErrorsOnly() throws ReedSolomonException {
+    testErrors(GenericGF.QR_CODE_FIELD_256, 68, 18);
+    testErrors(GenericGF.DATA_MATRIX_FIELD_256, 156, 62);
+    testErrors(GenericGF.AZTEC_PARAM, 2, 5);
+    testErrors(GenericGF.AZTEC_DATA_12, 600, 200);
+  }
+
+  @Test
+  public void testErasures() throws ReedSolomonException {
+    testErasures(GenericGF.QR_CODE_FIELD_256, 68, 18);
+    testErasures(GenericGF.DATA_MATRIX_FIELD_256, 156, 62);
+    testErasures(GenericGF.AZTEC_DATA_6, 20, 12);
+    testErasures(GenericGF.AZTEC_DATA_10, 200, 60);
+  }
+
+  @Test(expected = ReedSolomonException.class)
+  public void testTooManyErasures() throws ReedSolomonException {
+    new BerlekampMasseyDecoder(GenericGF.QR_CODE_FIELD_256).decode(new int[10], 2, new int[] {1, 2, 3});
+  }
+
+  private static void testErrors(GenericGF field, int dataSize, int ecSize) throws ReedSolomonException {
+    Random random = new Random(0xDEADBEEF);
+    ReedSolomonDecoder expectedDecoder = new ReedSolomonDecoder(field);
+    BerlekampMasseyDecoder decoder = new BerlekampMasseyDecoder(field);
+    for (int errors = 0; errors <= ecSize / 2; errors++) {
+      int[] original = encodeRandom(field, dataSize, ecSize, random);
+      int[] received = original.clone();
+      ReedSolomonTestCase.corrupt(received, errors, random, field.getSize());
+      int[] expected = received.clone();
+      expectedDecoder.decode(expected, ecSize);
+      assertArrayEquals(expected, original);
+      decoder.decode(received, ecSize);
+      assertArrayEquals(field + " with " + errors + " errors", original, received);
+    }
+  }
+
+  private static void testErasures(GenericGF field, int dataSize, int ecSize) throws ReedSolomonException {
+    Random random = new Random(0xDEADBEEF);
+    BerlekampMasseyDecoder decoder = new BerlekampMasseyDecoder(field);
+    for (int erasures = 1; erasures <= ecSize; erasures++) {
+      for (int errors = 0; 2 * errors + erasures <= ecSize; errors++) {
+        int[] original = encodeRandom(field, dataSize, ecSize, random);
+        int[] received = original.clone();
+        // Erase distinct positions, not all of which are necessarily wrong
+        int[] erased = new int[erasures];
+        boolean[] isErased = new boolean[received.length];
+        for (int i = 0; i < erasures; i++) {
+          int position;
+          do {
+            position = random.nextInt(received.length);
+          } while (isErased[position]);
+          isErased[position] = true;
+          erased[i] = position;
+          if (random.nextInt(4) != 0) {
+            received[position] = random.nextInt(field.getSize());
+          }
+        }
+        // Then add errors elsewhere
+        for (int i = 0; i < errors; i++) {
+          int position;
+          do {
+            position = random.nextInt(received.length);
+          } while (isErased[position] || received[position] != original[position]);
+          received[position] ^= 1 + random.nextInt(field.getSize() - 1);
+        }
+        decoder.decode(received, ecSize, erased);
+        assertArrayEquals(field + " with " + erasures + " erasures and " + errors + " errors", original, received);
+      }
+    }
+  }
+
+  private static int[] encodeRandom(GenericGF field, int dataSize, int ecSize, Random random) {
+    int[] message = new int[dataSize + ecSize];
+    for (int i = 0; i < dataSize; i++) {
+      message[i] = random.nextInt(field.getSize());
+    }
+    new ReedSolomonEncoder(field).encode(message, ecSize);
+    return message;
+  }
+
+}
@@ -77,6 +77,19 @@ public final class ReedSolomonTestCase extends Assert {
     testEncodeDecodeRandom(GenericGF.QR_CODE_FIELD_256, 220, 35);
   }
 
+  @Test
+  public void testOtherField() {
+    // Same as QR_CODE_FIELD_256, but not one of the fields whose generators are shared
+    GenericGF field = new GenericGF(0x011D, 256, 0);
+    testEncodeDecode(field, new int[] {
+        0x10, 0x20, 0x0C, 0x56, 0x61, 0x80, 0xEC, 0x11,
+        0xEC, 0x11, 0xEC, 0x11, 0xEC, 0x11, 0xEC, 0x11 },
+        new int[] {
+        0xA5, 0x24, 0xD4, 0xC1, 0xED, 0x36, 0xC7, 0x87,
+        0x2C, 0x55 });
+    testEncodeDecodeRandom(field, 128, 127);
+  }
+
   @Test
   public void testAztec() {
     // real life test cases
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks that {@link ReedSolomonWorkspaceDecoder} behaves exactly like {@link ReedSolomonDecoder},
+ * including on blocks with more errors than can be corrected.
+ */
+public final class ReedSolomonWorkspaceDecoderTestCase extends Assert {
+
+  @Test
+  public void testQRCode() {
+    compareDecoders(GenericGF.QR_CODE_FIELD_256, 68, 18);
+    compareDecoders(GenericGF.QR_CODE_FIELD_256, 15, 30);
+  }
+
+  @Test
+  public void testDataMatrix() {
+    compareDecoders(GenericGF.DATA_MATRIX_FIELD_256, 3, 5);
+    compareDecoders(GenericGF.DATA_MATRIX_FIELD_256, 156, 62);
+  }
+
+  @Test
+  public void testAztec() {
+    compareDecoders(GenericGF.AZTEC_PARAM, 2, 5);
+    compareDecoders(GenericGF.AZTEC_DATA_6, 20, 12);
+    compareDecoders(GenericGF.AZTEC_DATA_10, 300, 100);
+    compareDecoders(GenericGF.AZTEC_DATA_12, 600, 200);
+  }
+
+  @Test
+  public void testMaxiCode() {
+    compareDecoders(GenericGF.MAXICODE_FIELD_64, 10, 10);
+    compareDecoders(GenericGF.MAXICODE_FIELD_64, 20, 40);
+  }
+
+  private static void compareDecoders(GenericGF field, int dataSize, int ecSize) {
+    Random random = new Random(0xDEADBEEF);
+    ReedSolomonEncoder encoder = new ReedSolomonEncoder(field);
+    ReedSolomonDecoder expectedDecoder = new ReedSolomonDecoder(field);
+    // Shared across all iterations, so that reuse of the workspace is exercised too
+    ReedSolomonWorkspaceDecoder decoder = new ReedSolomonWorkspaceDecoder(field);
+    int[] message = new int[dataSize + ecSize];
+    for (int errors = 0; errors <= ecSize; errors++) {
+      for (int k = 0; k < dataSize; k++) {
+        message[k] = random.nextInt(field.getSize());
+      }
+      encoder.encode(message, ecSize);
+      ReedSolomonTestCase.corrupt(message, errors, random, field.getSize());
+      int[] expected = message.clone();
+      String expectedException = null;
+      try {
+        expectedDecoder.decode(expected, ecSize);
+      } catch (ReedSolomonException e) {
+        expectedException = e.getMessage();
+      }
+      int[] actual = message.clone();
+      String actualException = null;
+      try {
+        decoder.decode(actual, ecSize);
+      } catch (ReedSolomonException e) {
+        actualException = e.getMessage();
+      }
+      String context = field + " (" + dataSize + ',' + ecSize + ") with " + errors + " errors";
+      assertEquals(context, expectedException, actualException);
+      if (expectedException == null) {
+        assertArrayEquals(context, expected, actual);
+      }
+    }
+  }
+
+}
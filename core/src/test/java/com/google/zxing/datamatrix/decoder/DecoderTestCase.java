@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.datamatrix.decoder;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.datamatrix.DataMatrixWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link Decoder}.
+ */
+public final class DecoderTestCase extends Assert {
+
+  @Test
+  public void testBerlekampMassey() throws Exception {
+    BitMatrix bits = new DataMatrixWriter().encode("Hello, world", BarcodeFormat.DATA_MATRIX, 0, 0);
+    // Damage two modules inside the finder and timing patterns
+    bits.flip(2, 2);
+    bits.flip(bits.getWidth() - 3, bits.getHeight() - 3);
+    assertEquals("Hello, world", new Decoder().decode(bits).getText());
+    assertEquals("Hello, world", new Decoder(true).decode(bits).getText());
+  }
+
+}
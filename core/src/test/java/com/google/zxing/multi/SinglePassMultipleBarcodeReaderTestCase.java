@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.datamatrix.DataMatrixWriter;
+import com.google.zxing.oned.Code128Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests {@link SinglePassMultipleBarcodeReader}.
+ */
+public final class SinglePassMultipleBarcodeReaderTestCase extends Assert {
+
+  private static final int WIDTH = 640;
+  private static final int HEIGHT = 480;
+
+  @Test
+  public void testMixedFormats() throws Exception {
+    int[] pixels = new int[WIDTH * HEIGHT];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    QRCodeWriter qrCodeWriter = new QRCodeWriter();
+    paste(pixels, qrCodeWriter.encode("qr one", BarcodeFormat.QR_CODE, 150, 150), 1, 20, 20);
+    paste(pixels, qrCodeWriter.encode("qr two", BarcodeFormat.QR_CODE, 150, 150), 1, 200, 20);
+    DataMatrixWriter dataMatrixWriter = new DataMatrixWriter();
+    paste(pixels, dataMatrixWriter.encode("matrix one", BarcodeFormat.DATA_MATRIX, 0, 0), 5, 400, 40);
+    paste(pixels, dataMatrixWriter.encode("matrix two", BarcodeFormat.DATA_MATRIX, 0, 0), 5, 60, 250);
+    Code128Writer code128Writer = new Code128Writer();
+    paste(pixels, code128Writer.encode("CODE-ONE", BarcodeFormat.CODE_128, 0, 60), 2, 240, 220);
+    // Two 1D barcodes side by side, so they share rows
+    paste(pixels, code128Writer.encode("CODE-TWO", BarcodeFormat.CODE_128, 0, 50), 1, 20, 410);
+    paste(pixels, code128Writer.encode("CODE-3", BarcodeFormat.CODE_128, 0, 50), 1, 300, 410);
+
+    Map<String,BarcodeFormat> expected = new HashMap<>();
+    expected.put("qr one", BarcodeFormat.QR_CODE);
+    expected.put("qr two", BarcodeFormat.QR_CODE);
+    expected.put("matrix one", BarcodeFormat.DATA_MATRIX);
+    expected.put("matrix two", BarcodeFormat.DATA_MATRIX);
+    expected.put("CODE-ONE", BarcodeFormat.CODE_128);
+    expected.put("CODE-TWO", BarcodeFormat.CODE_128);
+    expected.put("CODE-3", BarcodeFormat.CODE_128);
+
+    Result[] results = new SinglePassMultipleBarcodeReader().decodeMultiple(toBitmap(pixels));
+    assertEquals(expected, decoded(results));
+    for (Result result : results) {
+      // Points from windows and reversed rows are translated back into the image
+      for (ResultPoint point : result.getResultPoints()) {
+        assertTrue(point.getX() >= 0.0f && point.getX() < WIDTH);
+        assertTrue(point.getY() >= 0.0f && point.getY() < HEIGHT);
+      }
+    }
+
+    // Limiting formats limits what is found
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.DATA_MATRIX));
+    Map<String,BarcodeFormat> dataMatrixOnly = new HashMap<>();
+    dataMatrixOnly.put("matrix one", BarcodeFormat.DATA_MATRIX);
+    dataMatrixOnly.put("matrix two", BarcodeFormat.DATA_MATRIX);
+    assertEquals(dataMatrixOnly,
+                 decoded(new SinglePassMultipleBarcodeReader().decodeMultiple(toBitmap(pixels), hints)));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testNothingFound() throws Exception {
+    int[] pixels = new int[WIDTH * HEIGHT];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    new SinglePassMultipleBarcodeReader().decodeMultiple(toBitmap(pixels));
+  }
+
+  private static BinaryBitmap toBitmap(int[] pixels) {
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(WIDTH, HEIGHT, pixels)));
+  }
+
+  private static Map<String,BarcodeFormat> decoded(Result[] results) {
+    Map<String,BarcodeFormat> decoded = new HashMap<>();
+    for (Result result : results) {
+      assertNull(decoded.put(result.getText(), result.getBarcodeFormat()));
+    }
+    return decoded;
+  }
+
+  private static void paste(int[] pixels, BitMatrix symbol, int scale, int left, int top) {
+    for (int y = 0; y < symbol.getHeight() * scale; y++) {
+      for (int x = 0; x < symbol.getWidth() * scale; x++) {
+        if (symbol.get(x / scale, y / scale)) {
+          pixels[(top + y) * WIDTH + left + x] = 0xFF000000;
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi.qrcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DeadlineExceededException;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests {@link QRCodeMultiReader}.
+ */
+public final class MultiQRCodeTestCase extends Assert {
+
+  private static final int SYMBOL_SIZE = 150;
+
+  @Test
+  public void testGrid() throws Exception {
+    // A grid of codes of the same size, whose finder patterns line up with each other's
+    Set<String> decoded = new HashSet<>();
+    for (Result result : new QRCodeMultiReader().decodeMultiple(gridImage(4, 3))) {
+      decoded.add(result.getText());
+    }
+    assertEquals(expectedGrid(4, 3), decoded);
+  }
+
+  @Test
+  public void testGridInParallel() throws Exception {
+    BinaryBitmap image = gridImage(4, 3);
+    Result[] serial = new QRCodeMultiReader().decodeMultiple(image, null);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int threads = 1; threads <= 5; threads++) {
+        // Same results in the same order, however tasks are scheduled
+        Result[] parallel = new QRCodeMultiReader().decodeMultiple(image, null, executor, threads);
+        assertEquals(serial.length, parallel.length);
+        for (int j = 0; j < serial.length; j++) {
+          assertEquals(serial[j].getText(), parallel[j].getText());
+          assertArrayEquals(serial[j].getResultPoints(), parallel[j].getResultPoints());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(12, serial.length);
+  }
+
+  @Test
+  public void testInterruptedInParallel() throws Exception {
+    final BinaryBitmap image = gridImage(4, 3);
+    final LatchedExecutor executor = new LatchedExecutor();
+    final AtomicReference<Throwable> thrown = new AtomicReference<>();
+    final AtomicBoolean stillInterrupted = new AtomicBoolean();
+    Thread caller = new Thread() {
+      @Override
+      public void run() {
+        try {
+          new QRCodeMultiReader().decodeMultiple(image, null, executor, 3);
+        } catch (Throwable t) {
+          thrown.set(t);
+        }
+        stillInterrupted.set(isInterrupted());
+      }
+    };
+    try {
+      caller.start();
+      // Tasks can't start until after the interrupt, so the caller is still waiting for them
+      executor.submitted.await();
+      caller.interrupt();
+      executor.start.countDown();
+      caller.join();
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(thrown.get() instanceof DeadlineExceededException);
+    assertTrue(((DeadlineExceededException) thrown.get()).isCancelled());
+    assertTrue(stillInterrupted.get());
+    // Every task was waited for, rather than cancelled and left running
+    assertEquals(3, executor.tasks.size());
+    for (Future<?> task : executor.tasks) {
+      assertTrue(task.isDone());
+      assertFalse(task.isCancelled());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoThreads() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      new QRCodeMultiReader().decodeMultiple(gridImage(1, 1), null, executor, 0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Set<String> expectedGrid(int columns, int rows) {
+    Set<String> expected = new HashSet<>();
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        expected.add("code " + row + ',' + column);
+      }
+    }
+    return expected;
+  }
+
+  private static BinaryBitmap gridImage(int columns, int rows) throws WriterException {
+    int width = columns * SYMBOL_SIZE;
+    int height = rows * SYMBOL_SIZE;
+    int[] pixels = new int[width * height];
+    Arrays.fill(pixels, 0xFFFFFFFF);
+    QRCodeWriter writer = new QRCodeWriter();
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        String contents = "code " + row + ',' + column;
+        BitMatrix symbol = writer.encode(contents, BarcodeFormat.QR_CODE, SYMBOL_SIZE, SYMBOL_SIZE);
+        for (int y = 0; y < SYMBOL_SIZE; y++) {
+          for (int x = 0; x < SYMBOL_SIZE; x++) {
+            if (symbol.get(x, y)) {
+              pixels[(row * SYMBOL_SIZE + y) * width + column * SYMBOL_SIZE + x] = 0xFF000000;
+            }
+          }
+        }
+      }
+    }
+    return new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(width, height, pixels)));
+  }
+
+  /**
+   * Runs tasks on other threads, but only once {@link #start} is counted down, and keeps them.
+   * {@link #submitted} counts down as each of the first three is submitted.
+   */
+  private static final class LatchedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate = Executors.newCachedThreadPool();
+    private final CountDownLatch submitted = new CountDownLatch(3);
+    private final CountDownLatch start = new CountDownLatch(1);
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void execute(final Runnable command) {
+      tasks.add((Future<?>) command);
+      submitted.countDown();
+      delegate.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException ie) {
+            return;
+          }
+          command.run();
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.BufferedImageLuminanceSource;
+import com.google.zxing.Deadline;
+import com.google.zxing.DeadlineExceededException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.AbstractBlackBoxTestCase;
+import com.google.zxing.common.HybridBinarizer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests {@link ParallelOneDReader}.
+ */
+public final class ParallelOneDReaderTestCase extends Assert {
+
+  private static final Path IMAGE = Paths.get("src/test/resources/blackbox/code128-1/1.png");
+  private static final String[] DIRECTORIES = {
+      "ean13-1", "code128-1", "code39-1", "itf-1", "upce-1", "rss14-1", "rssexpanded-1", "rssexpandedstacked-1",
+  };
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testFindsWhatOneThreadFinds() throws Exception {
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    for (boolean tryHarder : new boolean[] {false, true}) {
+      if (tryHarder) {
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+      }
+      for (Path path : AbstractBlackBoxTestCase.getBlackBoxImageFiles(DIRECTORIES)) {
+        LuminanceSource source = new BufferedImageLuminanceSource(ImageIO.read(path.toFile()));
+        Result expected;
+        try {
+          expected = new MultiFormatOneDReader(hints).decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+        } catch (ReaderException re) {
+          expected = null;
+        }
+        Result result;
+        try {
+          result = new ParallelOneDReader(executor, 4).decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+        } catch (NotFoundException nfe) {
+          result = null;
+        }
+        if (expected == null) {
+          assertNull(path.toString(), result);
+        } else {
+          assertNotNull(path.toString(), result);
+          assertEquals(path.toString(), expected.getText(), result.getText());
+          assertEquals(path.toString(), expected.getBarcodeFormat(), result.getBarcodeFormat());
+          assertArrayEquals(path.toString(), expected.getResultPoints(), result.getResultPoints());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPossibleFormats() throws Exception {
+    BinaryBitmap image =
+        new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(ImageIO.read(IMAGE.toFile()))));
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.CODE_128));
+    assertEquals(BarcodeFormat.CODE_128, new ParallelOneDReader(executor, 3).decode(image, hints).getBarcodeFormat());
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.EAN_13, BarcodeFormat.RSS_EXPANDED));
+    try {
+      new ParallelOneDReader(executor, 3).decode(image, hints);
+      fail();
+    } catch (NotFoundException nfe) {
+      // good
+    }
+  }
+
+  @Test(expected = DeadlineExceededException.class)
+  public void testCancelled() throws Exception {
+    BinaryBitmap image =
+        new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(ImageIO.read(IMAGE.toFile()))));
+    Deadline deadline = Deadline.cancellable();
+    deadline.cancel();
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.DEADLINE, deadline);
+    new ParallelOneDReader(executor, 2).decode(image, hints);
+  }
+
+}
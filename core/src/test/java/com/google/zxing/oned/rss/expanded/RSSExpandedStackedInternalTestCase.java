@@ -34,6 +34,7 @@ import org.junit.Test;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.common.BitArray;
 
@@ -82,5 +83,37 @@ public final class RSSExpandedStackedInternalTestCase extends Assert {
     assertEquals("(01)98898765432106(3202)012345(15)991231", result.getText());
   }
 
+  @Test
+  public void testRowStoreIsBounded() throws Exception {
+    // Rows from many labels, as when one reader is kept across frames without reset()
+    RSSExpandedReader rssExpandedReader = new RSSExpandedReader();
+    List<ExpandedRow> rows = rssExpandedReader.getRows();
+    int maxRows = 0;
+    for (String name : new String[] {"13", "23", "19", "20", "1", "22"}) {
+      BinaryBitmap binaryMap =
+          TestCaseUtil.getBinaryBitmap("src/test/resources/blackbox/rssexpandedstacked-2/" + name + ".png");
+      for (int rowNumber = 0; rowNumber < binaryMap.getHeight(); rowNumber += 2) {
+        BitArray row;
+        try {
+          row = binaryMap.getBlackRow(rowNumber, null);
+        } catch (NotFoundException nfe) {
+          continue;
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+          if (attempt == 1) {
+            row.reverse();
+          }
+          try {
+            rssExpandedReader.decodeRow(rowNumber, row, null);
+          } catch (ReaderException re) {
+            // ok
+          }
+          assertTrue(rows.size() <= 25);
+          maxRows = Math.max(maxRows, rows.size());
+        }
+      }
+    }
+    assertEquals(25, maxRows);
+  }
 
 }
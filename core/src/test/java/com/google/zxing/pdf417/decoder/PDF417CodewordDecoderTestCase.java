@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.pdf417.PDF417Common;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link PDF417CodewordDecoder} and {@link PDF417Common#getCodeword(int)} against simple
+ * scans of the symbol table.
+ */
+public final class PDF417CodewordDecoderTestCase extends Assert {
+
+  @Test
+  public void testGetCodeword() {
+    int[] clusterCounts = new int[PDF417Common.NUMBER_OF_CODEWORDS];
+    for (int symbol = 0; symbol < 0x40000; symbol++) {
+      int codeword = PDF417Common.getCodeword(symbol);
+      if (Arrays.binarySearch(PDF417Common.SYMBOL_TABLE, symbol) < 0) {
+        assertEquals(-1, codeword);
+      } else {
+        assertTrue(codeword >= 0 && codeword < PDF417Common.NUMBER_OF_CODEWORDS);
+        clusterCounts[codeword]++;
+      }
+      // Only the low 18 bits matter
+      assertEquals(codeword, PDF417Common.getCodeword(symbol | 0x7FFC0000));
+    }
+    // Each codeword has a symbol in each of the three clusters
+    for (int count : clusterCounts) {
+      assertEquals(3, count);
+    }
+  }
+
+  @Test
+  public void testClosestDecodedValue() {
+    float[][] ratiosTable = ratiosTable();
+    Random random = new Random(0x417);
+    for (int i = 0; i < 20000; i++) {
+      // Bar widths of a real symbol, at some module size, with some noise
+      int[] widths = toWidths(PDF417Common.SYMBOL_TABLE[random.nextInt(PDF417Common.SYMBOL_TABLE.length)]);
+      int moduleSize = 1 + random.nextInt(6);
+      int noise = random.nextInt(2 * moduleSize + 1);
+      int[] moduleBitCount = new int[PDF417Common.BARS_IN_MODULE];
+      for (int k = 0; k < moduleBitCount.length; k++) {
+        moduleBitCount[k] = Math.max(0, widths[k] * moduleSize + random.nextInt(2 * noise + 1) - noise);
+      }
+      if (i % 4 == 0) {
+        // and now and then, nothing like a symbol
+        for (int k = 0; k < moduleBitCount.length; k++) {
+          moduleBitCount[k] = random.nextInt(10);
+        }
+      }
+      assertEquals(Arrays.toString(moduleBitCount),
+                   closestDecodedValue(ratiosTable, moduleBitCount),
+                   PDF417CodewordDecoder.getClosestDecodedValue(moduleBitCount));
+    }
+    // Symbols themselves, and nothing at all
+    for (int symbol : PDF417Common.SYMBOL_TABLE) {
+      assertEquals(symbol, PDF417CodewordDecoder.getClosestDecodedValue(toWidths(symbol)));
+    }
+    assertEquals(-1, PDF417CodewordDecoder.getClosestDecodedValue(new int[PDF417Common.BARS_IN_MODULE]));
+  }
+
+  private static int[] toWidths(int symbol) {
+    int[] widths = new int[PDF417Common.BARS_IN_MODULE];
+    int currentBit = symbol & 0x1;
+    for (int j = 0; j < widths.length; j++) {
+      int size = 0;
+      while ((symbol & 0x1) == currentBit) {
+        size++;
+        symbol >>= 1;
+      }
+      currentBit = symbol & 0x1;
+      widths[widths.length - j - 1] = size;
+    }
+    return widths;
+  }
+
+  private static float[][] ratiosTable() {
+    float[][] ratiosTable = new float[PDF417Common.SYMBOL_TABLE.length][];
+    for (int i = 0; i < ratiosTable.length; i++) {
+      int[] widths = toWidths(PDF417Common.SYMBOL_TABLE[i]);
+      ratiosTable[i] = new float[widths.length];
+      for (int k = 0; k < widths.length; k++) {
+        ratiosTable[i][k] = (float) widths[k] / PDF417Common.MODULES_IN_CODEWORD;
+      }
+    }
+    return ratiosTable;
+  }
+
+  // Compares against every symbol in turn
+  private static int closestDecodedValue(float[][] ratiosTable, int[] moduleBitCount) {
+    int bitCountSum = 0;
+    for (int count : moduleBitCount) {
+      bitCountSum += count;
+    }
+    float bestMatchError = Float.MAX_VALUE;
+    int bestMatch = -1;
+    for (int j = 0; j < ratiosTable.length; j++) {
+      float error = 0.0f;
+      for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
+        float diff = ratiosTable[j][k] - moduleBitCount[k] / (float) bitCountSum;
+        error += diff * diff;
+      }
+      if (error < bestMatchError) {
+        bestMatchError = error;
+        bestMatch = PDF417Common.SYMBOL_TABLE[j];
+      }
+    }
+    return bestMatch;
+  }
+
+}
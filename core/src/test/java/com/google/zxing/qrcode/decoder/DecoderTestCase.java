@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.decoder;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link Decoder}.
+ */
+public final class DecoderTestCase extends Assert {
+
+  @Test
+  public void testBerlekampMassey() throws Exception {
+    ByteMatrix matrix = Encoder.encode("HELLO WORLD", ErrorCorrectionLevel.M).getMatrix();
+    BitMatrix bits = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+    for (int y = 0; y < matrix.getHeight(); y++) {
+      for (int x = 0; x < matrix.getWidth(); x++) {
+        if (matrix.get(x, y) == 1) {
+          bits.set(x, y);
+        }
+      }
+    }
+    // Damage the first three codewords, which start at the bottom right and run upwards
+    int last = bits.getWidth() - 1;
+    bits.flip(last, last);
+    bits.flip(last, last - 4);
+    bits.flip(last, last - 8);
+    // Decoding unmasks the matrix in place, so each decoder gets its own copy
+    assertEquals("HELLO WORLD", new Decoder().decode(bits.clone()).getText());
+    assertEquals("HELLO WORLD", new Decoder(true).decode(bits).getText());
+  }
+
+}
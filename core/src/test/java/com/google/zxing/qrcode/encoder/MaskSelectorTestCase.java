@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link MaskSelector} against {@link MaskUtil}.
+ */
+public final class MaskSelectorTestCase extends Assert {
+
+  @Test
+  public void testPenaltyMatchesMaskUtil() {
+    Random random = new Random(0xFEEDL);
+    int[] sizes = {1, 5, 11, 21, 25, 63, 64, 65, 66, 127, 128, 129, 177};
+    for (int width : sizes) {
+      for (int height : sizes) {
+        for (int density = 1; density < 10; density += 4) {
+          ByteMatrix matrix = new ByteMatrix(width, height);
+          for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+              matrix.set(x, y, random.nextInt(10) < density);
+            }
+          }
+          int expected = MaskUtil.applyMaskPenaltyRule1(matrix) +
+              MaskUtil.applyMaskPenaltyRule2(matrix) +
+              MaskUtil.applyMaskPenaltyRule3(matrix) +
+              MaskUtil.applyMaskPenaltyRule4(matrix);
+          assertEquals(width + "x" + height,
+                       expected, MaskSelector.calculatePenalty(MaskSelector.packCells(matrix, 1), width));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testChooseMaskPattern() throws WriterException {
+    Random random = new Random(0xBEEFL);
+    for (int versionNumber = 1; versionNumber <= 40; versionNumber++) {
+      Version version = Version.getVersionForNumber(versionNumber);
+      int dimension = version.getDimensionForVersion();
+      for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+        BitArray bits = new BitArray();
+        for (int i = 0; i < version.getTotalCodewords(); i++) {
+          bits.appendBits(random.nextInt(256), 8);
+        }
+        ByteMatrix matrix = new ByteMatrix(dimension, dimension);
+        int minPenalty = Integer.MAX_VALUE;
+        int expected = -1;
+        for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+          MatrixUtil.buildMatrix(bits, ecLevel, version, maskPattern, matrix);
+          int penalty = MaskUtil.applyMaskPenaltyRule1(matrix) +
+              MaskUtil.applyMaskPenaltyRule2(matrix) +
+              MaskUtil.applyMaskPenaltyRule3(matrix) +
+              MaskUtil.applyMaskPenaltyRule4(matrix);
+          if (penalty < minPenalty) {
+            minPenalty = penalty;
+            expected = maskPattern;
+          }
+        }
+        assertEquals(versionNumber + " " + ecLevel,
+                     expected, MaskSelector.chooseMaskPattern(bits, ecLevel, version, matrix));
+      }
+    }
+  }
+
+}
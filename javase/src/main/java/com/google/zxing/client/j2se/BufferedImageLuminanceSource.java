@@ -21,11 +21,21 @@ import com.google.zxing.LuminanceSource;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 
 /**
  * This LuminanceSource implementation is meant for J2SE clients and our blackbox unit tests.
  *
+ * <p>A color image is converted to luminance once, and only within the requested rectangle.
+ * Images of type {@link BufferedImage#TYPE_3BYTE_BGR}, {@link BufferedImage#TYPE_INT_RGB} and
+ * {@link BufferedImage#TYPE_INT_ARGB} are read directly from their rasters. Cropping and
+ * rotating by 90 degrees return views onto the same luminance data, without copying it.</p>
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  * @author Sean Owen
  * @author code@elektrowolle.de (Wolfgang Jung)
@@ -35,8 +45,13 @@ public final class BufferedImageLuminanceSource extends LuminanceSource {
   private static final double MINUS_45_IN_RADIANS = -0.7853981633974483; // Math.toRadians(-45.0)
 
   private final BufferedImage image;
+  // The region of image this source covers, before rotation
   private final int left;
   private final int top;
+  private final int regionWidth;
+  private final int regionHeight;
+  // Number of quarter turns counterclockwise, from 0 to 3, by which the region is rotated
+  private final int turns;
 
   public BufferedImageLuminanceSource(BufferedImage image) {
     this(image, 0, 0, image.getWidth(), image.getHeight());
@@ -47,44 +62,130 @@ public final class BufferedImageLuminanceSource extends LuminanceSource {
 
     if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
       this.image = image;
+      this.left = left;
+      this.top = top;
     } else {
       int sourceWidth = image.getWidth();
       int sourceHeight = image.getHeight();
       if (left + width > sourceWidth || top + height > sourceHeight) {
         throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
       }
+      this.image = toLuminance(image, left, top, width, height);
+      this.left = 0;
+      this.top = 0;
+    }
+    regionWidth = width;
+    regionHeight = height;
+    turns = 0;
+  }
 
-      this.image = new BufferedImage(sourceWidth, sourceHeight, BufferedImage.TYPE_BYTE_GRAY);
-
-      WritableRaster raster = this.image.getRaster();
-      int[] buffer = new int[width];
-      for (int y = top; y < top + height; y++) {
-        image.getRGB(left, y, width, 1, buffer, 0, sourceWidth);
-        for (int x = 0; x < width; x++) {
-          int pixel = buffer[x];
+  private BufferedImageLuminanceSource(BufferedImage image, int left, int top, int regionWidth, int regionHeight,
+                                       int turns) {
+    super((turns & 1) == 0 ? regionWidth : regionHeight, (turns & 1) == 0 ? regionHeight : regionWidth);
+    this.image = image;
+    this.left = left;
+    this.top = top;
+    this.regionWidth = regionWidth;
+    this.regionHeight = regionHeight;
+    this.turns = turns;
+  }
 
-          // The color of fully-transparent pixels is irrelevant. They are often, technically, fully-transparent
-          // black (0 alpha, and then 0 RGB). They are often used, of course as the "white" area in a
-          // barcode image. Force any such pixel to be white:
-          if ((pixel & 0xFF000000) == 0) {
-            pixel = 0xFFFFFFFF; // = white
-          }
-          
-          // .299R + 0.587G + 0.114B (YUV/YIQ for PAL and NTSC), 
-          // (306*R) >> 10 is approximately equal to R*0.299, and so on.
-          // 0x200 >> 10 is 0.5, it implements rounding.
-          buffer[x] =
-              (306 * ((pixel >> 16) & 0xFF) +
-               601 * ((pixel >> 8) & 0xFF) +
-               117 * (pixel & 0xFF) +
-               0x200) >> 10;
+  /**
+   * @return a gray image of just the given rectangle of the image
+   */
+  private static BufferedImage toLuminance(BufferedImage image, int left, int top, int width, int height) {
+    BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    // A new image's buffer holds exactly its pixels, in row order
+    byte[] luminances = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+    Raster raster = image.getRaster();
+    SampleModel sampleModel = raster.getSampleModel();
+    switch (image.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR:
+        if (raster.getDataBuffer() instanceof DataBufferByte && sampleModel instanceof ComponentSampleModel) {
+          convertBytes(raster, (ComponentSampleModel) sampleModel, left, top, width, height, luminances);
+          return gray;
         }
-        raster.setPixels(left, y, width, 1, buffer);
+        break;
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        if (raster.getDataBuffer() instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+          convertInts(raster, (SinglePixelPackedSampleModel) sampleModel, left, top, width, height,
+                      image.getType() == BufferedImage.TYPE_INT_ARGB, luminances);
+          return gray;
+        }
+        break;
+    }
+    int[] buffer = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(left, top + y, width, 1, buffer, 0, width);
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        luminances[offset + x] = (byte) luminance(buffer[x]);
+      }
+    }
+    return gray;
+  }
+
+  /**
+   * Reads 8-bit red, green and blue samples straight from a raster's bytes.
+   */
+  private static void convertBytes(Raster raster, ComponentSampleModel sampleModel,
+                                   int left, int top, int width, int height, byte[] luminances) {
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int pixelStride = sampleModel.getPixelStride();
+    int[] bandOffsets = sampleModel.getBandOffsets();
+    int redOffset = bandOffsets[0];
+    int greenOffset = bandOffsets[1];
+    int blueOffset = bandOffsets[2];
+    // The raster may be a sub-image, starting part way into the buffer
+    int rowStart = raster.getDataBuffer().getOffset() +
+        (top - raster.getSampleModelTranslateY()) * scanlineStride +
+        (left - raster.getSampleModelTranslateX()) * pixelStride;
+    for (int y = 0; y < height; y++, rowStart += scanlineStride) {
+      int offset = y * width;
+      for (int x = 0, i = rowStart; x < width; x++, i += pixelStride) {
+        luminances[offset + x] = (byte) luminance(data[i + redOffset] & 0xFF,
+                                                  data[i + greenOffset] & 0xFF,
+                                                  data[i + blueOffset] & 0xFF);
       }
+    }
+  }
 
+  /**
+   * Reads packed RGB or ARGB pixels straight from a raster's ints.
+   */
+  private static void convertInts(Raster raster, SinglePixelPackedSampleModel sampleModel,
+                                  int left, int top, int width, int height, boolean hasAlpha, byte[] luminances) {
+    int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int rowStart = raster.getDataBuffer().getOffset() +
+        (top - raster.getSampleModelTranslateY()) * scanlineStride +
+        (left - raster.getSampleModelTranslateX());
+    for (int y = 0; y < height; y++, rowStart += scanlineStride) {
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        int pixel = data[rowStart + x];
+        luminances[offset + x] = (byte) (hasAlpha ? luminance(pixel) : luminance(pixel | 0xFF000000));
+      }
     }
-    this.left = left;
-    this.top = top;
+  }
+
+  private static int luminance(int pixel) {
+    // The color of fully-transparent pixels is irrelevant. They are often, technically, fully-transparent
+    // black (0 alpha, and then 0 RGB). They are often used, of course as the "white" area in a
+    // barcode image. Force any such pixel to be white:
+    if ((pixel & 0xFF000000) == 0) {
+      return 0xFF;
+    }
+    return luminance((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+  }
+
+  private static int luminance(int red, int green, int blue) {
+    // .299R + 0.587G + 0.114B (YUV/YIQ for PAL and NTSC),
+    // (306*R) >> 10 is approximately equal to R*0.299, and so on.
+    // 0x200 >> 10 is 0.5, it implements rounding.
+    return (306 * red + 601 * green + 117 * blue + 0x200) >> 10;
   }
 
   @Override
@@ -97,19 +198,65 @@ public final class BufferedImageLuminanceSource extends LuminanceSource {
       row = new byte[width];
     }
     // The underlying raster of image consists of bytes with the luminance values
-    image.getRaster().getDataElements(left, top + y, width, 1, row);
+    Raster raster = image.getRaster();
+    switch (turns) {
+      case 0:
+        raster.getDataElements(left, top + y, width, 1, row);
+        break;
+      case 1:
+        // A row is a column of the region, from the right, read downwards
+        raster.getDataElements(left + regionWidth - 1 - y, top, 1, width, row);
+        break;
+      case 2:
+        raster.getDataElements(left, top + regionHeight - 1 - y, width, 1, row);
+        reverse(row, width);
+        break;
+      default:
+        // A row is a column of the region, from the left, read upwards
+        raster.getDataElements(left + y, top, 1, width, row);
+        reverse(row, width);
+        break;
+    }
     return row;
   }
 
   @Override
   public byte[] getMatrix() {
-    int width = getWidth();
-    int height = getHeight();
-    int area = width * height;
-    byte[] matrix = new byte[area];
+    int area = regionWidth * regionHeight;
+    byte[] region = new byte[area];
     // The underlying raster of image consists of area bytes with the luminance values
-    image.getRaster().getDataElements(left, top, width, height, matrix);
-    return matrix;
+    image.getRaster().getDataElements(left, top, regionWidth, regionHeight, region);
+    switch (turns) {
+      case 0:
+        return region;
+      case 2:
+        reverse(region, area);
+        return region;
+      default:
+        byte[] matrix = new byte[area];
+        int width = getWidth();
+        for (int y = 0; y < regionWidth; y++) {
+          int offset = y * width;
+          if (turns == 1) {
+            for (int x = 0, i = regionWidth - 1 - y; x < width; x++, i += regionWidth) {
+              matrix[offset + x] = region[i];
+            }
+          } else {
+            for (int x = 0, i = (regionHeight - 1) * regionWidth + y; x < width; x++, i -= regionWidth) {
+              matrix[offset + x] = region[i];
+            }
+          }
+        }
+        return matrix;
+    }
+  }
+
+  private static void reverse(byte[] values, int length) {
+    for (int i = 0, j = length - 1; i < j; i++, j--) {
+      byte temp = values[i];
+      values[i] = values[j];
+      values[j] = temp;
+    }
   }
 
   @Override
@@ -119,7 +266,34 @@ public final class BufferedImageLuminanceSource extends LuminanceSource {
 
   @Override
   public LuminanceSource crop(int left, int top, int width, int height) {
-    return new BufferedImageLuminanceSource(image, this.left + left, this.top + top, width, height);
+    // Find the corner of the crop rectangle which is top-left in the unrotated region
+    int regionLeft;
+    int regionTop;
+    switch (turns) {
+      case 0:
+        regionLeft = left;
+        regionTop = top;
+        break;
+      case 1:
+        regionLeft = regionWidth - (top + height);
+        regionTop = left;
+        break;
+      case 2:
+        regionLeft = regionWidth - (left + width);
+        regionTop = regionHeight - (top + height);
+        break;
+      default:
+        regionLeft = top;
+        regionTop = regionHeight - (left + width);
+        break;
+    }
+    boolean sideways = (turns & 1) != 0;
+    return new BufferedImageLuminanceSource(image,
+                                            this.left + regionLeft,
+                                            this.top + regionTop,
+                                            sideways ? height : width,
+                                            sideways ? width : height,
+                                            turns);
   }
 
   /**
@@ -134,27 +308,18 @@ public final class BufferedImageLuminanceSource extends LuminanceSource {
 
   @Override
   public LuminanceSource rotateCounterClockwise() {
-    int sourceWidth = image.getWidth();
-    int sourceHeight = image.getHeight();
-
-    // Rotate 90 degrees counterclockwise.
-    AffineTransform transform = new AffineTransform(0.0, -1.0, 1.0, 0.0, 0.0, sourceWidth);
-
-    // Note width/height are flipped since we are rotating 90 degrees.
-    BufferedImage rotatedImage = new BufferedImage(sourceHeight, sourceWidth, BufferedImage.TYPE_BYTE_GRAY);
-
-    // Draw the original image into rotated, via transformation
-    Graphics2D g = rotatedImage.createGraphics();
-    g.drawImage(image, transform, null);
-    g.dispose();
-
-    // Maintain the cropped region, but rotate it too.
-    int width = getWidth();
-    return new BufferedImageLuminanceSource(rotatedImage, top, sourceWidth - (left + width), getHeight(), width);
+    return new BufferedImageLuminanceSource(image, left, top, regionWidth, regionHeight, (turns + 1) & 0x03);
   }
 
   @Override
   public LuminanceSource rotateCounterClockwise45() {
+    if (turns != 0) {
+      // Draw from an upright copy of this view
+      BufferedImage upright = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+      upright.getRaster().setDataElements(0, 0, getWidth(), getHeight(), getMatrix());
+      return new BufferedImageLuminanceSource(upright).rotateCounterClockwise45();
+    }
+
     int width = getWidth();
     int height = getHeight();
 
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.j2se;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * <p>Writes a {@link BitMatrix} as a 1-bit PNG, PBM or BMP image, straight from its rows.
+ * Unlike {@link MatrixToImageWriter}, no {@link java.awt.image.BufferedImage} is made: each row
+ * of the output is packed, and for PNG compressed, then written before the next, so memory use
+ * doesn't grow with the size of the image.</p>
+ *
+ * <p>Each bit of the matrix may be drawn as a square of pixels, so that a matrix with one bit per
+ * module, as from {@link com.google.zxing.qrcode.QRCodeWriter} asked for a size of 0, can be
+ * scaled up without first making a matrix of the full size.</p>
+ *
+ * <p>PNG images are 1-bit grayscale for the default black on white colors, and otherwise
+ * 1-bit indexed, with transparency if the colors have any. BMP images are 1-bit indexed, and
+ * ignore transparency. PBM images are always black on white.</p>
+ *
+ * @see MatrixToImageWriter
+ */
+public final class MatrixToBilevelImageWriter {
+
+  private static final MatrixToImageConfig DEFAULT_CONFIG = new MatrixToImageConfig();
+
+  private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+  private static final int PNG_COLOR_TYPE_GRAY = 0;
+  private static final int PNG_COLOR_TYPE_INDEXED = 3;
+  // Bytes of compressed data per IDAT chunk
+  private static final int PNG_IDAT_SIZE = 1 << 15;
+  private static final int BMP_HEADER_SIZE = 14 + 40 + 2 * 4;
+
+  private MatrixToBilevelImageWriter() {}
+
+  /**
+   * @param format image format name
+   * @return true if the format, "png", "pbm" or "bmp" in any case, can be written by this class
+   */
+  public static boolean isSupportedFormat(String format) {
+    String name = format.toLowerCase(Locale.ENGLISH);
+    return "png".equals(name) || "pbm".equals(name) || "bmp".equals(name);
+  }
+
+  /**
+   * Writes a {@link BitMatrix} to a file with default configuration, one pixel per bit.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "png", "pbm" or "bmp"
+   * @param file file {@link Path} to write image to
+   * @throws IOException if writes to the file fail, or the format isn't supported
+   */
+  public static void writeToPath(BitMatrix matrix, String format, Path file) throws IOException {
+    writeToPath(matrix, format, file, DEFAULT_CONFIG, 1);
+  }
+
+  /**
+   * As {@link #writeToPath(BitMatrix, String, Path)}, but allows customization of the output.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "png", "pbm" or "bmp"
+   * @param file file {@link Path} to write image to
+   * @param config output configuration
+   * @param scale width and height in pixels of the square drawn for each bit
+   * @throws IOException if writes to the file fail, or the format isn't supported
+   */
+  public static void writeToPath(BitMatrix matrix, String format, Path file, MatrixToImageConfig config, int scale)
+      throws IOException {
+    try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+      writeToStream(matrix, format, stream, config, scale);
+    }
+  }
+
+  /**
+   * Writes a {@link BitMatrix} to a stream with default configuration, one pixel per bit.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "png", "pbm" or "bmp"
+   * @param stream {@link OutputStream} to write image to
+   * @throws IOException if writes to the stream fail, or the format isn't supported
+   */
+  public static void writeToStream(BitMatrix matrix, String format, OutputStream stream) throws IOException {
+    writeToStream(matrix, format, stream, DEFAULT_CONFIG, 1);
+  }
+
+  /**
+   * As {@link #writeToStream(BitMatrix, String, OutputStream)}, but allows customization of the output.
+   * The stream is not closed, and gets many small writes, so should be buffered.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "png", "pbm" or "bmp"
+   * @param stream {@link OutputStream} to write image to
+   * @param config output configuration
+   * @param scale width and height in pixels of the square drawn for each bit
+   * @throws IOException if writes to the stream fail, or the format isn't supported
+   */
+  public static void writeToStream(BitMatrix matrix,
+                                   String format,
+                                   OutputStream stream,
+                                   MatrixToImageConfig config,
+                                   int scale) throws IOException {
+    if (scale < 1) {
+      throw new IllegalArgumentException("Scale must be positive: " + scale);
+    }
+    long width = (long) matrix.getWidth() * scale;
+    long height = (long) matrix.getHeight() * scale;
+    if (width > Integer.MAX_VALUE / 2 || height > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("Image too large: " + width + 'x' + height);
+    }
+    switch (format.toLowerCase(Locale.ENGLISH)) {
+      case "png":
+        writePNG(matrix, stream, config, scale);
+        break;
+      case "pbm":
+        writePBM(matrix, stream, scale);
+        break;
+      case "bmp":
+        writeBMP(matrix, stream, config, scale);
+        break;
+      default:
+        throw new IOException("Could not write an image of format " + format);
+    }
+  }
+
+  private static void writePNG(BitMatrix matrix, OutputStream stream, MatrixToImageConfig config, int scale)
+      throws IOException {
+    int width = matrix.getWidth() * scale;
+    int height = matrix.getHeight() * scale;
+    int onColor = config.getPixelOnColor();
+    int offColor = config.getPixelOffColor();
+    // In grayscale, 1 is white, so off; in the palette, 1 is the on color
+    boolean gray = onColor == MatrixToImageConfig.BLACK && offColor == MatrixToImageConfig.WHITE;
+
+    DataOutputStream out = new DataOutputStream(stream);
+    out.write(PNG_SIGNATURE);
+
+    PNGChunk header = new PNGChunk(out, "IHDR");
+    header.writeInt(width);
+    header.writeInt(height);
+    header.write(1); // bit depth
+    header.write(gray ? PNG_COLOR_TYPE_GRAY : PNG_COLOR_TYPE_INDEXED);
+    header.write(0); // deflate
+    header.write(0); // adaptive filtering, though only "none" is used
+    header.write(0); // not interlaced
+    header.finish();
+
+    if (!gray) {
+      PNGChunk palette = new PNGChunk(out, "PLTE");
+      palette.writeRGB(offColor);
+      palette.writeRGB(onColor);
+      palette.finish();
+      if (!isOpaque(onColor) || !isOpaque(offColor)) {
+        PNGChunk transparency = new PNGChunk(out, "tRNS");
+        transparency.write(offColor >>> 24);
+        transparency.write(onColor >>> 24);
+        transparency.finish();
+      }
+    }
+
+    Deflater deflater = new Deflater();
+    try {
+      IDATOutputStream data = new IDATOutputStream(out);
+      DeflaterOutputStream compressed = new DeflaterOutputStream(data, deflater, PNG_IDAT_SIZE);
+      // Each row starts with its filter type, 0, for none
+      byte[] packed = new byte[1 + (width + 7) / 8];
+      BitArray row = new BitArray(matrix.getWidth());
+      for (int y = 0; y < matrix.getHeight(); y++) {
+        row = matrix.getRow(y, row);
+        packRow(row, scale, !gray, packed, 1);
+        for (int i = 0; i < scale; i++) {
+          compressed.write(packed);
+        }
+      }
+      compressed.finish();
+      data.finish();
+    } finally {
+      deflater.end();
+    }
+
+    new PNGChunk(out, "IEND").finish();
+    out.flush();
+  }
+
+  private static void writePBM(BitMatrix matrix, OutputStream stream, int scale) throws IOException {
+    int width = matrix.getWidth() * scale;
+    int height = matrix.getHeight() * scale;
+    stream.write(("P4\n" + width + ' ' + height + '\n').getBytes(StandardCharsets.US_ASCII));
+    // 1 is black
+    byte[] packed = new byte[(width + 7) / 8];
+    BitArray row = new BitArray(matrix.getWidth());
+    for (int y = 0; y < matrix.getHeight(); y++) {
+      row = matrix.getRow(y, row);
+      packRow(row, scale, true, packed, 0);
+      for (int i = 0; i < scale; i++) {
+        stream.write(packed);
+      }
+    }
+    stream.flush();
+  }
+
+  private static void writeBMP(BitMatrix matrix, OutputStream stream, MatrixToImageConfig config, int scale)
+      throws IOException {
+    int width = matrix.getWidth() * scale;
+    int height = matrix.getHeight() * scale;
+    // Rows are padded to a multiple of 4 bytes
+    int rowSize = ((width + 31) / 32) * 4;
+    long imageSize = (long) rowSize * height;
+    if (BMP_HEADER_SIZE + imageSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image too large for BMP: " + width + 'x' + height);
+    }
+
+    // BITMAPFILEHEADER
+    stream.write('B');
+    stream.write('M');
+    writeLittleEndianInt(stream, BMP_HEADER_SIZE + (int) imageSize);
+    writeLittleEndianInt(stream, 0);
+    writeLittleEndianInt(stream, BMP_HEADER_SIZE);
+    // BITMAPINFOHEADER
+    writeLittleEndianInt(stream, 40);
+    writeLittleEndianInt(stream, width);
+    writeLittleEndianInt(stream, height); // positive, so rows go from the bottom up
+    stream.write(1); // planes
+    stream.write(0);
+    stream.write(1); // bits per pixel
+    stream.write(0);
+    writeLittleEndianInt(stream, 0); // uncompressed
+    writeLittleEndianInt(stream, (int) imageSize);
+    writeLittleEndianInt(stream, 2835); // 72 DPI, in pixels per meter
+    writeLittleEndianInt(stream, 2835);
+    writeLittleEndianInt(stream, 2); // colors in the palette
+    writeLittleEndianInt(stream, 0);
+    // Palette of BGR0 entries: 0 is the off color, 1 the on color
+    writeLittleEndianInt(stream, config.getPixelOffColor() & 0xFFFFFF);
+    writeLittleEndianInt(stream, config.getPixelOnColor() & 0xFFFFFF);
+
+    byte[] packed = new byte[rowSize];
+    BitArray row = new BitArray(matrix.getWidth());
+    for (int y = matrix.getHeight() - 1; y >= 0; y--) {
+      row = matrix.getRow(y, row);
+      packRow(row, scale, true, packed, 0);
+      for (int i = 0; i < scale; i++) {
+        stream.write(packed);
+      }
+    }
+    stream.flush();
+  }
+
+  /**
+   * Packs a row of the matrix into bits, most significant first, each bit repeated scale times.
+   *
+   * @param row row of the matrix
+   * @param scale number of pixels to draw for each bit
+   * @param on the bit to write for set bits of the row; the opposite is written for unset ones
+   * @param packed array to pack into; bytes after the row's are cleared
+   * @param offset offset into packed of the first byte of the row
+   */
+  private static void packRow(BitArray row, int scale, boolean on, byte[] packed, int offset) {
+    Arrays.fill(packed, offset, packed.length, (byte) 0);
+    int size = row.getSize();
+    int pixel = 0;
+    for (int x = 0; x < size; x++) {
+      if (row.get(x) == on) {
+        for (int i = 0; i < scale; i++, pixel++) {
+          packed[offset + (pixel >> 3)] |= (byte) (0x80 >>> (pixel & 0x07));
+        }
+      } else {
+        pixel += scale;
+      }
+    }
+  }
+
+  private static boolean isOpaque(int argb) {
+    return (argb & 0xFF000000) == 0xFF000000;
+  }
+
+  private static void writeLittleEndianInt(OutputStream stream, int value) throws IOException {
+    stream.write(value);
+    stream.write(value >>> 8);
+    stream.write(value >>> 16);
+    stream.write(value >>> 24);
+  }
+
+  /**
+   * Collects the data of one PNG chunk, then writes it with its length and CRC.
+   */
+  private static final class PNGChunk {
+
+    private final DataOutputStream out;
+    private final String type;
+    private final DataOutputStream data;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    PNGChunk(DataOutputStream out, String type) {
+      this.out = out;
+      this.type = type;
+      this.data = new DataOutputStream(bytes);
+    }
+
+    void write(int b) throws IOException {
+      data.write(b);
+    }
+
+    void writeInt(int value) throws IOException {
+      data.writeInt(value);
+    }
+
+    void writeRGB(int argb) throws IOException {
+      data.write(argb >>> 16);
+      data.write(argb >>> 8);
+      data.write(argb);
+    }
+
+    void finish() throws IOException {
+      writeChunk(out, type, bytes.toByteArray(), bytes.size());
+    }
+
+  }
+
+  private static void writeChunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+    byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(data, 0, length);
+    out.writeInt(length);
+    out.write(typeBytes);
+    out.write(data, 0, length);
+    out.writeInt((int) crc.getValue());
+  }
+
+  /**
+   * Splits compressed image data into IDAT chunks as it is written.
+   */
+  private static final class IDATOutputStream extends OutputStream {
+
+    private final DataOutputStream out;
+    private final byte[] buffer = new byte[PNG_IDAT_SIZE];
+    private int count;
+
+    IDATOutputStream(DataOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (count == buffer.length) {
+        flushChunk();
+      }
+      buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (count == buffer.length) {
+          flushChunk();
+        }
+        int n = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, n);
+        count += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    void finish() throws IOException {
+      if (count > 0) {
+        flushChunk();
+      }
+    }
+
+    private void flushChunk() throws IOException {
+      writeChunk(out, "IDAT", buffer, count);
+      count = 0;
+    }
+
+  }
+
+}
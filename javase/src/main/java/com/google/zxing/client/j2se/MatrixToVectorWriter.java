@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.j2se;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * <p>Writes a {@link BitMatrix} as an SVG or PDF image, drawn as filled rectangles rather than
+ * pixels, so that it can be printed at any size.</p>
+ *
+ * <p>Set bits are drawn in rectangles, one for each horizontal run of set bits, stretched down over
+ * all following rows which are the same. A matrix scaled up by a writer, where each module is a
+ * square of identical bits, is so drawn with about one rectangle per run of modules, and the output
+ * grows with the number of modules, not pixels. Output is written as it is made.</p>
+ *
+ * <p>Bits are drawn as squares of scale units: pixels in SVG, points in PDF. The off color is
+ * drawn as a background unless it is fully transparent.</p>
+ *
+ * @see MatrixToImageWriter
+ */
+public final class MatrixToVectorWriter {
+
+  private static final MatrixToImageConfig DEFAULT_CONFIG = new MatrixToImageConfig();
+
+  private MatrixToVectorWriter() {}
+
+  /**
+   * @param format image format name
+   * @return true if the format, "svg" or "pdf" in any case, can be written by this class
+   */
+  public static boolean isSupportedFormat(String format) {
+    String name = format.toLowerCase(Locale.ENGLISH);
+    return "svg".equals(name) || "pdf".equals(name);
+  }
+
+  /**
+   * Writes a {@link BitMatrix} to a file with default configuration, one unit per bit.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "svg" or "pdf"
+   * @param file file {@link Path} to write image to
+   * @throws IOException if writes to the file fail, or the format isn't supported
+   */
+  public static void writeToPath(BitMatrix matrix, String format, Path file) throws IOException {
+    writeToPath(matrix, format, file, DEFAULT_CONFIG, 1.0);
+  }
+
+  /**
+   * As {@link #writeToPath(BitMatrix, String, Path)}, but allows customization of the output.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "svg" or "pdf"
+   * @param file file {@link Path} to write image to
+   * @param config output configuration
+   * @param scale width and height in units of the square drawn for each bit
+   * @throws IOException if writes to the file fail, or the format isn't supported
+   */
+  public static void writeToPath(BitMatrix matrix, String format, Path file, MatrixToImageConfig config, double scale)
+      throws IOException {
+    try (OutputStream stream = Files.newOutputStream(file)) {
+      writeToStream(matrix, format, stream, config, scale);
+    }
+  }
+
+  /**
+   * Writes a {@link BitMatrix} to a stream with default configuration, one unit per bit.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "svg" or "pdf"
+   * @param stream {@link OutputStream} to write image to
+   * @throws IOException if writes to the stream fail, or the format isn't supported
+   */
+  public static void writeToStream(BitMatrix matrix, String format, OutputStream stream) throws IOException {
+    writeToStream(matrix, format, stream, DEFAULT_CONFIG, 1.0);
+  }
+
+  /**
+   * As {@link #writeToStream(BitMatrix, String, OutputStream)}, but allows customization of the output.
+   * The stream is flushed but not closed.
+   *
+   * @param matrix {@link BitMatrix} to write
+   * @param format image format, "svg" or "pdf"
+   * @param stream {@link OutputStream} to write image to
+   * @param config output configuration
+   * @param scale width and height in units of the square drawn for each bit
+   * @throws IOException if writes to the stream fail, or the format isn't supported
+   */
+  public static void writeToStream(BitMatrix matrix,
+                                   String format,
+                                   OutputStream stream,
+                                   MatrixToImageConfig config,
+                                   double scale) throws IOException {
+    if (!(scale > 0.0) || Double.isInfinite(scale)) {
+      throw new IllegalArgumentException("Scale must be positive: " + scale);
+    }
+    AsciiOutputStream out = new AsciiOutputStream(stream);
+    switch (format.toLowerCase(Locale.ENGLISH)) {
+      case "svg":
+        writeSVG(matrix, out, config, scale);
+        break;
+      case "pdf":
+        writePDF(matrix, out, config, scale);
+        break;
+      default:
+        throw new IOException("Could not write an image of format " + format);
+    }
+    out.flush();
+  }
+
+  private static void writeSVG(BitMatrix matrix, final AsciiOutputStream out, MatrixToImageConfig config, double scale)
+      throws IOException {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    out.print("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    // The view box is in bits, so that coordinates stay small integers
+    out.print("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"" + format(width * scale) +
+              "\" height=\"" + format(height * scale) + "\" viewBox=\"0 0 " + width + ' ' + height +
+              "\" shape-rendering=\"crispEdges\">\n");
+    int offColor = config.getPixelOffColor();
+    if (!isTransparent(offColor)) {
+      out.print("<rect width=\"" + width + "\" height=\"" + height + '"' + svgFill(offColor) + "/>\n");
+    }
+    out.print("<path" + svgFill(config.getPixelOnColor()) + " d=\"");
+    forEachRectangle(matrix, new RectangleCallback() {
+      @Override
+      public void rectangle(int left, int top, int rectWidth, int rectHeight) throws IOException {
+        out.print("M" + left + ' ' + top + 'h' + rectWidth + 'v' + rectHeight + 'h' + -rectWidth + "z\n");
+      }
+    });
+    out.print("\"/>\n</svg>\n");
+  }
+
+  private static String svgFill(int argb) {
+    String fill = String.format(Locale.ENGLISH, " fill=\"#%06x\"", argb & 0xFFFFFF);
+    if (!isOpaque(argb)) {
+      fill += " fill-opacity=\"" + format((argb >>> 24) / 255.0) + '"';
+    }
+    return fill;
+  }
+
+  private static void writePDF(BitMatrix matrix, final AsciiOutputStream out, MatrixToImageConfig config,
+                               double scale) throws IOException {
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    int onColor = config.getPixelOnColor();
+    int offColor = config.getPixelOffColor();
+    // Transparency needs graphics states, so, simply, transparent colors are drawn opaque, and a
+    // background that is fully transparent isn't drawn at all
+    long[] offsets = new long[6];
+
+    out.print("%PDF-1.4\n");
+    offsets[1] = out.getCount();
+    out.print("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+    offsets[2] = out.getCount();
+    out.print("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+    offsets[3] = out.getCount();
+    out.print("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + format(width * scale) + ' ' +
+              format(height * scale) + "] /Resources << >> /Contents 4 0 R >>\nendobj\n");
+
+    // The length of the content stream follows it, so that it needn't be made before it's written
+    offsets[4] = out.getCount();
+    out.print("4 0 obj\n<< /Length 5 0 R >>\nstream\n");
+    long start = out.getCount();
+    // Draw in bits, from the top left, as in the matrix
+    out.print(format(scale) + " 0 0 " + format(-scale) + " 0 " + format(height * scale) + " cm\n");
+    if (!isTransparent(offColor)) {
+      out.print(pdfColor(offColor) + " rg\n0 0 " + width + ' ' + height + " re f\n");
+    }
+    out.print(pdfColor(onColor) + " rg\n");
+    forEachRectangle(matrix, new RectangleCallback() {
+      @Override
+      public void rectangle(int left, int top, int rectWidth, int rectHeight) throws IOException {
+        out.print(String.valueOf(left) + ' ' + top + ' ' + rectWidth + ' ' + rectHeight + " re\n");
+      }
+    });
+    out.print("f\n");
+    long length = out.getCount() - start;
+    out.print("endstream\nendobj\n");
+    offsets[5] = out.getCount();
+    out.print("5 0 obj\n" + length + "\nendobj\n");
+
+    long xref = out.getCount();
+    out.print("xref\n0 6\n0000000000 65535 f \n");
+    for (int i = 1; i < offsets.length; i++) {
+      out.print(String.format(Locale.ENGLISH, "%010d 00000 n \n", offsets[i]));
+    }
+    out.print("trailer\n<< /Size 6 /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+  }
+
+  private static String pdfColor(int argb) {
+    return format(((argb >> 16) & 0xFF) / 255.0) + ' ' +
+        format(((argb >> 8) & 0xFF) / 255.0) + ' ' +
+        format((argb & 0xFF) / 255.0);
+  }
+
+  /**
+   * Calls back with a rectangle for each run of set bits in a row, extended down over the
+   * following rows which are identical to it.
+   */
+  private static void forEachRectangle(BitMatrix matrix, RectangleCallback callback) throws IOException {
+    int height = matrix.getHeight();
+    if (height == 0) {
+      return;
+    }
+    BitArray band = matrix.getRow(0, null);
+    BitArray row = new BitArray(matrix.getWidth());
+    int bandTop = 0;
+    for (int y = 1; y < height; y++) {
+      row = matrix.getRow(y, row);
+      if (!row.equals(band)) {
+        forEachRun(band, bandTop, y - bandTop, callback);
+        BitArray temp = band;
+        band = row;
+        row = temp;
+        bandTop = y;
+      }
+    }
+    forEachRun(band, bandTop, height - bandTop, callback);
+  }
+
+  private static void forEachRun(BitArray band, int top, int height, RectangleCallback callback)
+      throws IOException {
+    int size = band.getSize();
+    int left = band.getNextSet(0);
+    while (left < size) {
+      int right = band.getNextUnset(left);
+      callback.rectangle(left, top, right - left, height);
+      left = band.getNextSet(right);
+    }
+  }
+
+  private static boolean isOpaque(int argb) {
+    return (argb & 0xFF000000) == 0xFF000000;
+  }
+
+  private static boolean isTransparent(int argb) {
+    return (argb & 0xFF000000) == 0;
+  }
+
+  /**
+   * @return the number in plain decimal, without an exponent or trailing zeros, as both SVG and
+   *  PDF accept
+   */
+  private static String format(double value) {
+    return BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+  }
+
+  private interface RectangleCallback {
+    void rectangle(int left, int top, int width, int height) throws IOException;
+  }
+
+  /**
+   * Buffers ASCII text on its way to the stream, and counts its bytes, for PDF's cross-references.
+   */
+  private static final class AsciiOutputStream {
+
+    private final OutputStream out;
+    private long count;
+
+    AsciiOutputStream(OutputStream stream) {
+      this.out = new BufferedOutputStream(stream);
+    }
+
+    void print(String s) throws IOException {
+      byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+      out.write(bytes);
+      count += bytes.length;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    void flush() throws IOException {
+      out.flush();
+    }
+
+  }
+
+}
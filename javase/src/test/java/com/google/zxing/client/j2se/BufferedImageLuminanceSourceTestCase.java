@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.j2se;
+
+import com.google.zxing.LuminanceSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link BufferedImageLuminanceSource} against a conversion of each pixel from
+ * {@link BufferedImage#getRGB(int, int)}, as it used to be done.
+ */
+public final class BufferedImageLuminanceSourceTestCase extends Assert {
+
+  private static final int WIDTH = 37;
+  private static final int HEIGHT = 23;
+
+  @Test
+  public void test3ByteBGR() {
+    checkImage(randomImage(BufferedImage.TYPE_3BYTE_BGR, 1));
+  }
+
+  @Test
+  public void testIntARGB() {
+    checkImage(randomImage(BufferedImage.TYPE_INT_ARGB, 2));
+  }
+
+  @Test
+  public void testIntRGB() {
+    checkImage(randomImage(BufferedImage.TYPE_INT_RGB, 3));
+  }
+
+  @Test
+  public void testByteGray() {
+    checkImage(randomImage(BufferedImage.TYPE_BYTE_GRAY, 4));
+  }
+
+  @Test
+  public void testOtherTypes() {
+    // Read through getRGB()
+    checkImage(randomImage(BufferedImage.TYPE_4BYTE_ABGR, 5));
+    checkImage(randomImage(BufferedImage.TYPE_USHORT_565_RGB, 6));
+    checkImage(randomImage(BufferedImage.TYPE_INT_BGR, 7));
+  }
+
+  @Test
+  public void testSubimages() {
+    // Rasters which start part way into their buffers
+    for (int type : new int[] {BufferedImage.TYPE_3BYTE_BGR,
+                               BufferedImage.TYPE_INT_ARGB,
+                               BufferedImage.TYPE_INT_RGB,
+                               BufferedImage.TYPE_BYTE_GRAY}) {
+      checkImage(randomImage(type, 8).getSubimage(5, 3, WIDTH - 9, HEIGHT - 7));
+    }
+  }
+
+  @Test
+  public void testTransparentIsWhite() {
+    BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(0, 0, 0x00000000);
+    image.setRGB(1, 0, 0x00123456);
+    assertArrayEquals(new byte[] {(byte) 0xFF, (byte) 0xFF}, new BufferedImageLuminanceSource(image).getMatrix());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutsideImage() {
+    new BufferedImageLuminanceSource(randomImage(BufferedImage.TYPE_INT_RGB, 9), 10, 10, WIDTH, HEIGHT);
+  }
+
+  /**
+   * Compares the source for the whole image, and for a crop of it, and views of those through
+   * chains of crops and rotations, to the expected luminance.
+   */
+  private static void checkImage(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    Expected expected = new Expected(width, height, referenceLuminance(image));
+    checkChains(new BufferedImageLuminanceSource(image), expected, image.getType());
+    checkChains(new BufferedImageLuminanceSource(image, 3, 2, width - 7, height - 5),
+                expected.crop(3, 2, width - 7, height - 5),
+                image.getType());
+  }
+
+  private static void checkChains(LuminanceSource source, Expected expected, int type) {
+    check(source, expected, type + " as is");
+    for (int turns = 1; turns <= 4; turns++) {
+      source = source.rotateCounterClockwise();
+      expected = expected.rotateCounterClockwise();
+      check(source, expected, type + " turned " + turns);
+    }
+    Random random = new Random(type);
+    for (int chain = 0; chain < 20; chain++) {
+      LuminanceSource view = source;
+      Expected expectedView = expected;
+      StringBuilder description = new StringBuilder().append(type);
+      for (int step = 0; step < 4; step++) {
+        if (random.nextBoolean()) {
+          view = view.rotateCounterClockwise();
+          expectedView = expectedView.rotateCounterClockwise();
+          description.append(" rotate");
+        } else {
+          int cropWidth = 1 + random.nextInt(expectedView.width);
+          int cropHeight = 1 + random.nextInt(expectedView.height);
+          int cropLeft = random.nextInt(expectedView.width - cropWidth + 1);
+          int cropTop = random.nextInt(expectedView.height - cropHeight + 1);
+          view = view.crop(cropLeft, cropTop, cropWidth, cropHeight);
+          expectedView = expectedView.crop(cropLeft, cropTop, cropWidth, cropHeight);
+          description.append(" crop ").append(cropLeft).append(',').append(cropTop)
+              .append(' ').append(cropWidth).append('x').append(cropHeight);
+        }
+        check(view, expectedView, description.toString());
+      }
+    }
+  }
+
+  private static void check(LuminanceSource source, Expected expected, String description) {
+    assertEquals(description, expected.width, source.getWidth());
+    assertEquals(description, expected.height, source.getHeight());
+    assertArrayEquals(description, expected.pixels, source.getMatrix());
+    // A reused row longer than needed is written only as far as the width
+    byte[] row = new byte[expected.width + 3];
+    for (int y = 0; y < expected.height; y++) {
+      row = source.getRow(y, row);
+      assertArrayEquals(description + " row " + y,
+                        Arrays.copyOfRange(expected.pixels, y * expected.width, (y + 1) * expected.width),
+                        Arrays.copyOf(row, expected.width));
+    }
+  }
+
+  private static BufferedImage randomImage(int type, long seed) {
+    Random random = new Random(seed);
+    BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int argb = random.nextInt();
+        if (random.nextInt(8) == 0) {
+          argb &= 0x00FFFFFF;
+        } else if (random.nextInt(8) == 0) {
+          argb |= 0xFF000000;
+        }
+        image.setRGB(x, y, argb);
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Luminance of each pixel, as converted from {@link BufferedImage#getRGB(int, int)}; gray images
+   * are used as they are.
+   */
+  private static byte[] referenceLuminance(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    byte[] luminances = new byte[width * height];
+    if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+      image.getRaster().getDataElements(0, 0, width, height, luminances);
+      return luminances;
+    }
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int pixel = image.getRGB(x, y);
+        int luminance;
+        if ((pixel & 0xFF000000) == 0) {
+          luminance = 0xFF;
+        } else {
+          luminance = (306 * ((pixel >> 16) & 0xFF) + 601 * ((pixel >> 8) & 0xFF) + 117 * (pixel & 0xFF) + 0x200) >> 10;
+        }
+        luminances[y * width + x] = (byte) luminance;
+      }
+    }
+    return luminances;
+  }
+
+  /**
+   * Expected luminance of a view, cropped and rotated pixel by pixel.
+   */
+  private static final class Expected {
+
+    private final int width;
+    private final int height;
+    private final byte[] pixels;
+
+    Expected(int width, int height, byte[] pixels) {
+      this.width = width;
+      this.height = height;
+      this.pixels = pixels;
+    }
+
+    Expected crop(int left, int top, int cropWidth, int cropHeight) {
+      byte[] cropped = new byte[cropWidth * cropHeight];
+      for (int y = 0; y < cropHeight; y++) {
+        System.arraycopy(pixels, (top + y) * width + left, cropped, y * cropWidth, cropWidth);
+      }
+      return new Expected(cropWidth, cropHeight, cropped);
+    }
+
+    Expected rotateCounterClockwise() {
+      byte[] rotated = new byte[pixels.length];
+      for (int y = 0; y < width; y++) {
+        for (int x = 0; x < height; x++) {
+          rotated[y * height + x] = pixels[x * width + width - 1 - y];
+        }
+      }
+      return new Expected(height, width, rotated);
+    }
+
+  }
+
+}
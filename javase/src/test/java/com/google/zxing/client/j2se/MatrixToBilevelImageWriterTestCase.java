@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.j2se;
+
+import com.google.zxing.common.BitMatrix;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link MatrixToBilevelImageWriter}, reading PNG and BMP images back with {@link ImageIO}.
+ */
+public final class MatrixToBilevelImageWriterTestCase extends Assert {
+
+  @Test
+  public void testGrayPNG() throws IOException {
+    BitMatrix matrix = randomMatrix(13, 9, 1);
+    byte[] png = write(matrix, "png", new MatrixToImageConfig(), 3);
+    List<String> chunks = pngChunkTypes(png);
+    assertEquals("IHDR", chunks.get(0));
+    assertFalse(chunks.contains("PLTE"));
+    assertFalse(chunks.contains("tRNS"));
+    // Bit depth 1, grayscale
+    assertEquals(1, png[24]);
+    assertEquals(0, png[25]);
+    checkPixels(matrix, 3, ImageIO.read(new ByteArrayInputStream(png)), 0xFF000000, 0xFFFFFFFF);
+  }
+
+  @Test
+  public void testIndexedPNG() throws IOException {
+    BitMatrix matrix = randomMatrix(21, 17, 2);
+    MatrixToImageConfig config = new MatrixToImageConfig(0xFF102030, 0xFFF0E0D0);
+    byte[] png = write(matrix, "png", config, 2);
+    List<String> chunks = pngChunkTypes(png);
+    assertTrue(chunks.contains("PLTE"));
+    assertFalse(chunks.contains("tRNS"));
+    assertEquals(1, png[24]);
+    assertEquals(3, png[25]);
+    checkPixels(matrix, 2, ImageIO.read(new ByteArrayInputStream(png)), 0xFF102030, 0xFFF0E0D0);
+  }
+
+  @Test
+  public void testTransparentPNG() throws IOException {
+    BitMatrix matrix = randomMatrix(10, 11, 3);
+    MatrixToImageConfig config = new MatrixToImageConfig(0x80FF0000, 0x0000FF00);
+    byte[] png = write(matrix, "png", config, 1);
+    List<String> chunks = pngChunkTypes(png);
+    assertTrue(chunks.indexOf("PLTE") < chunks.indexOf("tRNS"));
+    assertTrue(chunks.indexOf("tRNS") < chunks.indexOf("IDAT"));
+    checkPixels(matrix, 1, ImageIO.read(new ByteArrayInputStream(png)), 0x80FF0000, 0x0000FF00);
+  }
+
+  @Test
+  public void testLargePNG() throws IOException {
+    // Compressed data too big for one IDAT chunk
+    BitMatrix matrix = randomMatrix(1000, 1000, 4);
+    byte[] png = write(matrix, "png", new MatrixToImageConfig(), 1);
+    List<String> chunks = pngChunkTypes(png);
+    assertTrue(chunks.lastIndexOf("IDAT") > chunks.indexOf("IDAT"));
+    assertEquals("IEND", chunks.get(chunks.size() - 1));
+    checkPixels(matrix, 1, ImageIO.read(new ByteArrayInputStream(png)), 0xFF000000, 0xFFFFFFFF);
+  }
+
+  @Test
+  public void testBMP() throws IOException {
+    BitMatrix matrix = randomMatrix(19, 7, 5);
+    MatrixToImageConfig config = new MatrixToImageConfig(0xFF0000FF, 0xFFFFFF00);
+    byte[] bmp = write(matrix, "bmp", config, 2);
+    ByteBuffer header = ByteBuffer.wrap(bmp).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals('B', bmp[0]);
+    assertEquals('M', bmp[1]);
+    assertEquals(bmp.length, header.getInt(2));
+    assertEquals(62, header.getInt(10));
+    assertEquals(38, header.getInt(18));
+    assertEquals(14, header.getInt(22));
+    assertEquals(1, header.getShort(28));
+    // 38 pixels, padded to 8 bytes per row
+    assertEquals(8 * 14, header.getInt(34));
+    assertEquals(62 + 8 * 14, bmp.length);
+    checkPixels(matrix, 2, ImageIO.read(new ByteArrayInputStream(bmp)), 0xFF0000FF, 0xFFFFFF00);
+  }
+
+  @Test
+  public void testPBM() throws IOException {
+    BitMatrix matrix = randomMatrix(11, 5, 6);
+    byte[] pbm = write(matrix, "pbm", new MatrixToImageConfig(0xFF102030, 0xFFFFFFFF), 2);
+    byte[] header = "P4\n22 10\n".getBytes(StandardCharsets.US_ASCII);
+    for (int i = 0; i < header.length; i++) {
+      assertEquals(header[i], pbm[i]);
+    }
+    // 22 pixels, padded to 3 bytes per row; colors are ignored, and 1 is black
+    int rowSize = 3;
+    assertEquals(header.length + rowSize * 10, pbm.length);
+    for (int y = 0; y < 10; y++) {
+      for (int x = 0; x < rowSize * 8; x++) {
+        boolean bit = (pbm[header.length + y * rowSize + (x >> 3)] & (0x80 >>> (x & 0x07))) != 0;
+        assertEquals(x + "," + y, x < 22 && matrix.get(x / 2, y / 2), bit);
+      }
+    }
+  }
+
+  @Test
+  public void testSupportedFormats() {
+    assertTrue(MatrixToBilevelImageWriter.isSupportedFormat("PNG"));
+    assertTrue(MatrixToBilevelImageWriter.isSupportedFormat("pbm"));
+    assertTrue(MatrixToBilevelImageWriter.isSupportedFormat("bmp"));
+    assertFalse(MatrixToBilevelImageWriter.isSupportedFormat("gif"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsupportedFormat() throws IOException {
+    write(new BitMatrix(3), "gif", new MatrixToImageConfig(), 1);
+  }
+
+  private static byte[] write(BitMatrix matrix, String format, MatrixToImageConfig config, int scale)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MatrixToBilevelImageWriter.writeToStream(matrix, format, out, config, scale);
+    return out.toByteArray();
+  }
+
+  private static BitMatrix randomMatrix(int width, int height, long seed) {
+    Random random = new Random(seed);
+    BitMatrix matrix = new BitMatrix(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if (random.nextBoolean()) {
+          matrix.set(x, y);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private static void checkPixels(BitMatrix matrix, int scale, BufferedImage image, int onColor, int offColor) {
+    assertEquals(matrix.getWidth() * scale, image.getWidth());
+    assertEquals(matrix.getHeight() * scale, image.getHeight());
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        assertEquals(x + "," + y, matrix.get(x / scale, y / scale) ? onColor : offColor, image.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * @return types of the chunks in a PNG image, in order, having checked the signature
+   */
+  private static List<String> pngChunkTypes(byte[] png) {
+    assertEquals((byte) 0x89, png[0]);
+    assertEquals("PNG", new String(png, 1, 3, StandardCharsets.US_ASCII));
+    ByteBuffer buffer = ByteBuffer.wrap(png);
+    List<String> types = new ArrayList<>();
+    int offset = 8;
+    while (offset < png.length) {
+      int length = buffer.getInt(offset);
+      types.add(new String(png, offset + 4, 4, StandardCharsets.US_ASCII));
+      // Length, type, data and CRC
+      offset += 12 + length;
+    }
+    assertEquals(png.length, offset);
+    return types;
+  }
+
+}
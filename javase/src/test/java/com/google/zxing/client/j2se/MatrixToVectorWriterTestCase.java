@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.client.j2se;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests {@link MatrixToVectorWriter}.
+ */
+public final class MatrixToVectorWriterTestCase extends Assert {
+
+  private static final Pattern SVG_RECTANGLE = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v(\\d+)h-(\\d+)z");
+  private static final Pattern PDF_RECTANGLE = Pattern.compile("(?m)^(\\d+) (\\d+) (\\d+) (\\d+) re$");
+
+  @Test
+  public void testSVGPathMatchesRuns() throws Exception {
+    for (BitMatrix matrix : testMatrices()) {
+      String svg = write(matrix, "svg", new MatrixToImageConfig(), 1.0);
+      assertTrue(svg.contains("viewBox=\"0 0 " + matrix.getWidth() + ' ' + matrix.getHeight() + '"'));
+      BitMatrix drawn = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+      int rectangles = 0;
+      Matcher m = SVG_RECTANGLE.matcher(svg);
+      while (m.find()) {
+        assertEquals(m.group(3), m.group(5));
+        drawn.setRegion(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                        Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+        rectangles++;
+      }
+      assertEquals(matrix, drawn);
+      assertEquals(countRuns(matrix), rectangles);
+    }
+  }
+
+  @Test
+  public void testPDFCrossReferences() throws Exception {
+    for (BitMatrix matrix : testMatrices()) {
+      String pdf = write(matrix, "pdf", new MatrixToImageConfig(0xFF102030, 0xFFFFFFFF), 2.5);
+      assertTrue(pdf.startsWith("%PDF-1.4\n"));
+      assertTrue(pdf.endsWith("%%EOF\n"));
+
+      int startXref = pdf.lastIndexOf("startxref\n");
+      int xref = Integer.parseInt(pdf.substring(startXref + 10, pdf.indexOf('\n', startXref + 10)));
+      assertTrue(pdf.startsWith("xref\n0 6\n", xref));
+      String[] entries = pdf.substring(xref).split("\n");
+      assertEquals("0000000000 65535 f ", entries[2]);
+      for (int object = 1; object <= 5; object++) {
+        String entry = entries[2 + object];
+        assertEquals(20, entry.length() + 1);
+        assertTrue(entry.endsWith(" 00000 n "));
+        int offset = Integer.parseInt(entry.substring(0, 10));
+        assertTrue(pdf.startsWith(object + " 0 obj\n", offset));
+      }
+
+      int lengthObject = pdf.indexOf("5 0 obj\n");
+      int length = Integer.parseInt(pdf.substring(lengthObject + 8, pdf.indexOf('\n', lengthObject + 8)));
+      int streamStart = pdf.indexOf("stream\n") + 7;
+      assertTrue(pdf.startsWith("endstream\n", streamStart + length));
+
+      BitMatrix drawn = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+      Matcher m = PDF_RECTANGLE.matcher(pdf);
+      while (m.find()) {
+        drawn.setRegion(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                        Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+      }
+      assertEquals(matrix, drawn);
+    }
+  }
+
+  @Test
+  public void testLocaleIndependent() throws Exception {
+    BitMatrix matrix = new MultiFormatWriter().encode("locale", BarcodeFormat.QR_CODE, 0, 0);
+    MatrixToImageConfig config = new MatrixToImageConfig(0x80123456, 0xFFABCDEF);
+    Locale defaultLocale = Locale.getDefault();
+    String svg;
+    String pdf;
+    try {
+      Locale.setDefault(Locale.ENGLISH);
+      svg = write(matrix, "svg", config, 1.5);
+      pdf = write(matrix, "pdf", config, 1.5);
+      // Formats numbers with other digits
+      Locale.setDefault(new Locale("ar", "EG"));
+      assertEquals(svg, write(matrix, "svg", config, 1.5));
+      assertEquals(pdf, write(matrix, "pdf", config, 1.5));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void testConfiguration() throws Exception {
+    BitMatrix matrix = new BitMatrix(10, 4);
+    matrix.setRegion(2, 1, 3, 2);
+    String svg = write(matrix, "svg", new MatrixToImageConfig(0x80FF0000, 0xFFFFFFFF), 1.5);
+    assertTrue(svg.contains("width=\"15\" height=\"6\""));
+    assertTrue(svg.contains("<rect width=\"10\" height=\"4\" fill=\"#ffffff\"/>"));
+    assertTrue(svg.contains("<path fill=\"#ff0000\" fill-opacity=\"0.502\" d=\"M2 1h3v2h-3z\n\"/>"));
+
+    // A fully transparent background isn't drawn
+    svg = write(matrix, "svg", new MatrixToImageConfig(0xFF000000, 0x00FFFFFF), 1.0);
+    assertFalse(svg.contains("<rect"));
+    String pdf = write(matrix, "pdf", new MatrixToImageConfig(0xFF000000, 0x00FFFFFF), 1.0);
+    assertFalse(pdf.contains("0 0 10 4 re f"));
+    assertTrue(pdf.contains("/MediaBox [0 0 10 4]"));
+    assertTrue(pdf.contains("1 0 0 -1 0 4 cm\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsupportedFormat() throws Exception {
+    write(new BitMatrix(3), "eps", new MatrixToImageConfig(), 1.0);
+  }
+
+  private static String write(BitMatrix matrix, String format, MatrixToImageConfig config, double scale)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MatrixToVectorWriter.writeToStream(matrix, format, out, config, scale);
+    return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  private static List<BitMatrix> testMatrices() throws WriterException {
+    List<BitMatrix> matrices = new ArrayList<>();
+    MultiFormatWriter writer = new MultiFormatWriter();
+    matrices.add(writer.encode("vector test", BarcodeFormat.QR_CODE, 0, 0));
+    matrices.add(writer.encode("vector test", BarcodeFormat.QR_CODE, 400, 400));
+    matrices.add(writer.encode("vector test", BarcodeFormat.CODE_128, 300, 80));
+    matrices.add(writer.encode("vector test", BarcodeFormat.PDF_417, 300, 100));
+    Random random = new Random(0x5EEDL);
+    BitMatrix noise = new BitMatrix(131, 67);
+    for (int y = 0; y < noise.getHeight(); y++) {
+      for (int x = 0; x < noise.getWidth(); x++) {
+        if (random.nextBoolean()) {
+          noise.set(x, y);
+        }
+      }
+    }
+    matrices.add(noise);
+    matrices.add(new BitMatrix(5, 5));
+    return matrices;
+  }
+
+  /**
+   * @return number of runs of set bits in rows, not counting rows the same as the one above
+   */
+  private static int countRuns(BitMatrix matrix) {
+    int runs = 0;
+    for (int y = 0; y < matrix.getHeight(); y++) {
+      if (y > 0 && matrix.getRow(y, null).equals(matrix.getRow(y - 1, null))) {
+        continue;
+      }
+      for (int x = 0; x < matrix.getWidth(); x++) {
+        if (matrix.get(x, y) && (x == 0 || !matrix.get(x - 1, y))) {
+          runs++;
+        }
+      }
+    }
+    return runs;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.web;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the images {@link ChartServlet} renders, so that popular ones are encoded once. The least
+ * recently used images are evicted once there are more than a maximum number, or they take more
+ * than a maximum number of bytes.
+ */
+final class ChartCache {
+
+  private final int maxImages;
+  private final long maxBytes;
+  // In access order, least recently used first
+  private final Map<ChartServletRequestParameters,Image> images;
+  private long bytes;
+
+  ChartCache(int maxImages, long maxBytes) {
+    this.maxImages = maxImages;
+    this.maxBytes = maxBytes;
+    images = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  synchronized Image get(ChartServletRequestParameters parameters) {
+    return images.get(parameters);
+  }
+
+  synchronized void put(ChartServletRequestParameters parameters, Image image) {
+    long size = sizeOf(parameters, image);
+    if (size > maxBytes) {
+      return;
+    }
+    Image old = images.put(parameters, image);
+    if (old != null) {
+      bytes -= sizeOf(parameters, old);
+    }
+    bytes += size;
+    Iterator<Map.Entry<ChartServletRequestParameters,Image>> eldest = images.entrySet().iterator();
+    while (images.size() > maxImages || bytes > maxBytes) {
+      Map.Entry<ChartServletRequestParameters,Image> entry = eldest.next();
+      bytes -= sizeOf(entry.getKey(), entry.getValue());
+      eldest.remove();
+    }
+  }
+
+  private static long sizeOf(ChartServletRequestParameters parameters, Image image) {
+    // Roughly: the text is kept too, as the key
+    return image.getData().length + 2L * parameters.getText().length();
+  }
+
+  /**
+   * An encoded image, and its entity tag.
+   */
+  static final class Image {
+
+    private static final Splitter ETAG_LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final byte[] data;
+    private final String eTag;
+
+    Image(byte[] data) {
+      this.data = data;
+      // A strong entity tag: equal for identical bytes only
+      this.eTag = '"' + Hashing.murmur3_128().hashBytes(data).toString() + '"';
+    }
+
+    byte[] getData() {
+      return data;
+    }
+
+    String getETag() {
+      return eTag;
+    }
+
+    /**
+     * @param ifNoneMatch value of an If-None-Match header, or null
+     * @return true if the header lists this image's entity tag, or is "*"
+     */
+    boolean matches(String ifNoneMatch) {
+      if (ifNoneMatch == null) {
+        return false;
+      }
+      for (String candidate : ETAG_LIST_SPLITTER.split(ifNoneMatch)) {
+        // If-None-Match uses weak comparison, so W/ doesn't matter
+        if (candidate.startsWith("W/")) {
+          candidate = candidate.substring(2);
+        }
+        if ("*".equals(candidate) || eTag.equals(candidate)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+}
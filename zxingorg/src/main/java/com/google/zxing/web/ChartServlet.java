@@ -22,7 +22,7 @@ import com.google.common.io.CharStreams;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.client.j2se.MatrixToBilevelImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
@@ -53,6 +53,10 @@ public final class ChartServlet extends HttpServlet {
   private static final int MAX_DIMENSION = 4096;
   private static final Collection<Charset> SUPPORTED_OUTPUT_ENCODINGS = ImmutableSet.<Charset>builder()
       .add(StandardCharsets.UTF_8).add(StandardCharsets.ISO_8859_1).add(Charset.forName("Shift_JIS")).build();
+  private static final int MAX_CACHED_IMAGES = 10_000;
+  private static final long MAX_CACHED_BYTES = 64L << 20;
+
+  private final ChartCache cache = new ChartCache(MAX_CACHED_IMAGES, MAX_CACHED_BYTES);
 
   @Override
   protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -64,7 +68,7 @@ public final class ChartServlet extends HttpServlet {
     doEncode(request, response, true);
   }
 
-  private static void doEncode(ServletRequest request, HttpServletResponse response, boolean isPost)
+  private void doEncode(HttpServletRequest request, HttpServletResponse response, boolean isPost)
       throws IOException {
 
     ChartServletRequestParameters parameters;
@@ -75,6 +79,33 @@ public final class ChartServlet extends HttpServlet {
       return;
     }
 
+    ChartCache.Image image = cache.get(parameters);
+    if (image == null) {
+      try {
+        image = new ChartCache.Image(doRender(parameters));
+      } catch (WriterException we) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, we.toString());
+        return;
+      }
+      cache.put(parameters, image);
+    }
+
+    response.setHeader("Cache-Control", "public");
+    response.setHeader("ETag", image.getETag());
+    if (image.matches(request.getHeader("If-None-Match"))) {
+      // Only a GET or HEAD can be answered with "not modified"; for anything else the precondition
+      // has simply failed
+      response.setStatus(isPost ? HttpServletResponse.SC_PRECONDITION_FAILED : HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] pngData = image.getData();
+    response.setContentType("image/png");
+    response.setContentLength(pngData.length);
+    response.getOutputStream().write(pngData);
+  }
+
+  private static byte[] doRender(ChartServletRequestParameters parameters) throws WriterException, IOException {
     Map<EncodeHintType,Object> hints = new EnumMap<>(EncodeHintType.class);
     hints.put(EncodeHintType.MARGIN, parameters.getMargin());
     if (!StandardCharsets.ISO_8859_1.equals(parameters.getOutputEncoding())) {
@@ -83,26 +114,15 @@ public final class ChartServlet extends HttpServlet {
     }
     hints.put(EncodeHintType.ERROR_CORRECTION, parameters.getEcLevel());
 
-    BitMatrix matrix;
-    try {
-      matrix = new QRCodeWriter().encode(parameters.getText(),
-                                         BarcodeFormat.QR_CODE,
-                                         parameters.getWidth(),
-                                         parameters.getHeight(),
-                                         hints);
-    } catch (WriterException we) {
-      response.sendError(HttpServletResponse.SC_BAD_REQUEST, we.toString());
-      return;
-    }
+    BitMatrix matrix = new QRCodeWriter().encode(parameters.getText(),
+                                                 BarcodeFormat.QR_CODE,
+                                                 parameters.getWidth(),
+                                                 parameters.getHeight(),
+                                                 hints);
 
     ByteArrayOutputStream pngOut = new ByteArrayOutputStream();
-    MatrixToImageWriter.writeToStream(matrix, "PNG", pngOut);
-    byte[] pngData = pngOut.toByteArray();
-
-    response.setContentType("image/png");
-    response.setContentLength(pngData.length);
-    response.setHeader("Cache-Control", "public");
-    response.getOutputStream().write(pngData);
+    MatrixToBilevelImageWriter.writeToStream(matrix, "PNG", pngOut);
+    return pngOut.toByteArray();
   }
 
   private static ChartServletRequestParameters doParseParameters(ServletRequest request, boolean readBody)
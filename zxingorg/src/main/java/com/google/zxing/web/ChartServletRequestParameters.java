@@ -19,9 +19,11 @@ package com.google.zxing.web;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
 import java.nio.charset.Charset;
+import java.util.Objects;
 
 /**
- * Parameters parsed from request for {@link ChartServlet}.
+ * Parameters parsed from request for {@link ChartServlet}. Requests with equal parameters get the
+ * same image.
  *
  * @author Sean Owen
  */
@@ -72,4 +74,23 @@ final class ChartServletRequestParameters {
     return text;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ChartServletRequestParameters)) {
+      return false;
+    }
+    ChartServletRequestParameters other = (ChartServletRequestParameters) o;
+    return width == other.width &&
+        height == other.height &&
+        outputEncoding.equals(other.outputEncoding) &&
+        ecLevel == other.ecLevel &&
+        margin == other.margin &&
+        text.equals(other.text);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(width, height, outputEncoding, ecLevel, margin, text);
+  }
+
 }
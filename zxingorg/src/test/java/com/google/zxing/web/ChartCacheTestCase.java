@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.web;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests {@link ChartCache}.
+ */
+public final class ChartCacheTestCase extends Assert {
+
+  @Test
+  public void testEvictsLeastRecentlyUsedByCount() {
+    ChartCache cache = new ChartCache(2, 1L << 20);
+    ChartCache.Image a = image(10, 1);
+    ChartCache.Image b = image(10, 2);
+    ChartCache.Image c = image(10, 3);
+    cache.put(parameters("a"), a);
+    cache.put(parameters("b"), b);
+    // Now b is the least recently used
+    assertSame(a, cache.get(parameters("a")));
+    cache.put(parameters("c"), c);
+    assertSame(a, cache.get(parameters("a")));
+    assertNull(cache.get(parameters("b")));
+    assertSame(c, cache.get(parameters("c")));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedByBytes() {
+    // Each image counts as its 30 bytes, and 2 for its one character of text
+    ChartCache cache = new ChartCache(100, 100);
+    cache.put(parameters("a"), image(30, 1));
+    cache.put(parameters("b"), image(30, 2));
+    cache.put(parameters("c"), image(30, 3));
+    assertNotNull(cache.get(parameters("a")));
+    cache.put(parameters("d"), image(30, 4));
+    assertNotNull(cache.get(parameters("a")));
+    assertNull(cache.get(parameters("b")));
+    assertNotNull(cache.get(parameters("c")));
+    assertNotNull(cache.get(parameters("d")));
+
+    // Replacing an image counts only the new one
+    cache.put(parameters("a"), image(30, 5));
+    cache.put(parameters("a"), image(30, 6));
+    assertNotNull(cache.get(parameters("c")));
+    assertNotNull(cache.get(parameters("d")));
+
+    // One big image pushes out all others
+    cache.put(parameters("e"), image(90, 7));
+    assertNull(cache.get(parameters("a")));
+    assertNull(cache.get(parameters("c")));
+    assertNull(cache.get(parameters("d")));
+    assertNotNull(cache.get(parameters("e")));
+  }
+
+  @Test
+  public void testRejectsOversizeImage() {
+    ChartCache cache = new ChartCache(100, 100);
+    ChartCache.Image small = image(30, 1);
+    cache.put(parameters("a"), small);
+    cache.put(parameters("b"), image(99, 2));
+    assertNull(cache.get(parameters("b")));
+    // Nothing was evicted to make room for it
+    assertSame(small, cache.get(parameters("a")));
+  }
+
+  @Test
+  public void testETag() {
+    ChartCache.Image image = image(50, 1);
+    String eTag = image.getETag();
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\"") && eTag.length() > 2);
+    assertEquals(eTag, image(50, 1).getETag());
+    assertNotEquals(eTag, image(50, 2).getETag());
+    assertNotEquals(eTag, image(51, 1).getETag());
+  }
+
+  @Test
+  public void testETagMatching() {
+    ChartCache.Image image = image(50, 1);
+    String eTag = image.getETag();
+    String other = image(50, 2).getETag();
+    assertFalse(image.matches(null));
+    assertFalse(image.matches(""));
+    assertTrue(image.matches(eTag));
+    assertFalse(image.matches(other));
+    assertTrue(image.matches(other + ", " + eTag));
+    assertTrue(image.matches(other + "," + eTag + " ,"));
+    // Compared weakly
+    assertTrue(image.matches("W/" + eTag));
+    assertTrue(image.matches(other + ", W/" + eTag));
+    assertFalse(image.matches("W/" + other));
+    assertTrue(image.matches("*"));
+    // Quotes are part of the tag
+    assertFalse(image.matches(eTag.substring(1, eTag.length() - 1)));
+  }
+
+  private static ChartServletRequestParameters parameters(String text) {
+    return new ChartServletRequestParameters(100, 100, StandardCharsets.UTF_8, ErrorCorrectionLevel.L, 4, text);
+  }
+
+  private static ChartCache.Image image(int length, int fill) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (fill + i);
+    }
+    return new ChartCache.Image(data);
+  }
+
+}